@@ -174,6 +174,7 @@ public class Activator extends Plugin
 	private IDebuggerStarter debuggerStarter;
 
 	private IServerStarter ss;
+	private volatile OfflineTableLoader offlineTableLoader;
 
 	private volatile boolean defaultAccessed = false;
 
@@ -434,8 +435,12 @@ public class Activator extends Plugin
 	public void stop(BundleContext context) throws Exception
 	{
 		defaultAccessed = false;
+		if (offlineTableLoader != null) offlineTableLoader.stop();
 		if (ServoyModelManager.getServoyModelManager().isServoyModelCreated())
 		{
+			// keep the builder dependencies so the next start doesn't need a full build
+			BuilderDependencies.getInstance().save();
+			PersistReferenceIndex.getInstance().save();
 			ServoyModelManager.getServoyModelManager().getServoyModel().dispose();
 		}
 
@@ -850,6 +855,12 @@ public class Activator extends Plugin
 
 				servoyModel.addActiveProjectListener(apl);
 				apl.activeProjectChanged(servoyModel.getActiveProject());
+				if (offlineTableLoader != null)
+				{
+					// the model (and the active solution) is loaded on the dbi files, now the databases can be checked;
+					// the loader is registered before the application server starts, so before the model could be created
+					offlineTableLoader.scheduleVerification();
+				}
 
 				servoyModel.addPersistChangeListener(true, new IPersistChangeListener()
 				{
@@ -1128,6 +1139,8 @@ public class Activator extends Plugin
 			GetHttpSessionConfigurator.setOriginCheck(GetHttpSessionConfigurator.DISABLE_ORIGIN_CHECK); // securityFiter is not configured in Developer
 			ss.setDeveloperStartup(true);
 			ss.init();
+			// before the start, the servers must already use the dbi files when the tables are loaded
+			offlineTableLoader = OfflineTableLoader.registerIfEnabled(getBundle().getBundleContext());
 			ss.setRepositoryFactory(new EclipseRepositoryFactory());
 			ss.setDebugClientHandler(new DebugClientHandler());
 			ss.setUserManagerFactory(new IUserManagerFactory()
@@ -0,0 +1,207 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobFunction;
+import org.eclipse.core.runtime.jobs.Job;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+import com.servoy.eclipse.model.DBITableLoader;
+import com.servoy.eclipse.model.util.ServoyLog;
+import com.servoy.j2db.persistence.IServerInternal;
+import com.servoy.j2db.persistence.IServerManagerInternal;
+import com.servoy.j2db.persistence.ITableLoader;
+import com.servoy.j2db.persistence.Table;
+import com.servoy.j2db.server.shared.ApplicationServerRegistry;
+import com.servoy.j2db.util.Settings;
+import com.servoy.j2db.util.Utils;
+
+/**
+ * Table loader that lets the developer start without waiting for the databases, enabled with "servoy.developer.offlineTables=true" in the servoy.properties.
+ * The tables and columns of the servers are created from the dbi files of the resources project, the same as for the dbi based export.
+ * When the developer has started a background job switches to the databases and reloads the tables of all the servers from them,
+ * the dbi/database difference markers are created by that reload.
+ */
+class OfflineTableLoader extends DBITableLoader
+{
+	static final String OFFLINE_TABLES_SETTING = "servoy.developer.offlineTables";
+	private static final long RETRY_DELAY = 60 * 1000;
+	private static final long STOP_TIMEOUT = 10 * 1000;
+
+	private final ServiceRegistration<ITableLoader> registration;
+	private final Set<String> serversToVerify = new LinkedHashSet<String>();
+	// servers that could not be verified, these are tried again (but only logged the first time)
+	private final Set<String> failedServers = new HashSet<String>();
+	private volatile boolean online;
+	private volatile boolean stopped;
+	private Job verificationJob;
+
+	private OfflineTableLoader(BundleContext context)
+	{
+		registration = context.registerService(ITableLoader.class, this, null);
+	}
+
+	/**
+	 * Must be called before the application server loads the tables.
+	 *
+	 * @return the registered loader, null when the setting is not enabled
+	 */
+	static OfflineTableLoader registerIfEnabled(BundleContext context)
+	{
+		if (!Utils.getAsBoolean(Settings.getInstance().getProperty(OFFLINE_TABLES_SETTING, "false"))) return null;
+		return new OfflineTableLoader(context);
+	}
+
+	@Override
+	public boolean loadTables(ConcurrentMap<String, Table> loading_tables, IServerInternal server)
+	{
+		// after the switch the tables must come from the database
+		if (online) return false;
+		return super.loadTables(loading_tables, server);
+	}
+
+	/**
+	 * Reloads the tables of all the enabled servers from the databases in a background job, only the first call does something.
+	 * Servers that fail are tried again later, those still have the tables of the dbi files; when the user cancels the job the remaining servers are left as they are.
+	 */
+	synchronized void scheduleVerification()
+	{
+		if (verificationJob != null) return;
+
+		verificationJob = Job.create("Verifying the tables with the databases", (IJobFunction)this::verify);
+		verificationJob.setPriority(Job.DECORATE);
+		verificationJob.schedule();
+	}
+
+	/**
+	 * The developer is stopping, the verification is cancelled and not scheduled again.
+	 */
+	void stop()
+	{
+		stopped = true;
+		Job job;
+		synchronized (this)
+		{
+			job = verificationJob;
+		}
+		if (job != null)
+		{
+			job.cancel();
+			try
+			{
+				// a server that is reloading can take a while, don't block the shutdown on it
+				if (!job.join(STOP_TIMEOUT, null)) ServoyLog.logInfo("The table verification did not stop in time");
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			catch (OperationCanceledException e)
+			{
+				// not possible without a monitor
+			}
+		}
+	}
+
+	private IStatus verify(IProgressMonitor monitor)
+	{
+		IServerManagerInternal serverManager = ApplicationServerRegistry.get().getServerManager();
+		if (!online)
+		{
+			online = true;
+			try
+			{
+				registration.unregister();
+			}
+			catch (IllegalStateException e)
+			{
+				// already unregistered when the bundle stopped
+			}
+			synchronized (this)
+			{
+				serversToVerify.addAll(Arrays.asList(serverManager.getServerNames(true, false, true, true)));
+			}
+		}
+
+		String[] serverNames;
+		synchronized (this)
+		{
+			serverNames = serversToVerify.toArray(new String[serversToVerify.size()]);
+		}
+		monitor.beginTask("Verifying the tables with the databases", serverNames.length);
+		for (String serverName : serverNames)
+		{
+			if (monitor.isCanceled())
+			{
+				return Status.CANCEL_STATUS;
+			}
+			monitor.subTask(serverName);
+			IServerInternal server = (IServerInternal)serverManager.getServer(serverName, false, false);
+			boolean verified = true;
+			try
+			{
+				if (server != null && !server.isValid())
+				{
+					server.testConnection(0);
+					server.flagValid();
+				}
+				if (server != null && server.isValid() && server.isTableListLoaded())
+				{
+					server.reloadTables();
+				}
+			}
+			catch (Exception e)
+			{
+				verified = false;
+				synchronized (this)
+				{
+					if (failedServers.add(serverName))
+					{
+						ServoyLog.logWarning("Could not verify the tables of server '" + serverName + "' with the database, this is tried again later", e);
+					}
+				}
+			}
+			if (verified)
+			{
+				synchronized (this)
+				{
+					serversToVerify.remove(serverName);
+					failedServers.remove(serverName);
+				}
+			}
+			monitor.worked(1);
+		}
+		monitor.done();
+		synchronized (this)
+		{
+			if (!serversToVerify.isEmpty() && !stopped) verificationJob.schedule(RETRY_DELAY);
+		}
+		return Status.OK_STATUS;
+	}
+}
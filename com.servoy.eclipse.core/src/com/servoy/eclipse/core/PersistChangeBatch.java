@@ -0,0 +1,156 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.core;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import com.servoy.j2db.persistence.Form;
+import com.servoy.j2db.persistence.IPersist;
+import com.servoy.j2db.persistence.IRepository;
+import com.servoy.j2db.persistence.IRootObject;
+import com.servoy.j2db.persistence.TableNode;
+
+/**
+ * The persists of one persist change event, every persist is in it only once (by identity).
+ * This is the collection that {@link ServoyModel} gives to the persist change listeners, so a listener can use the changed forms, data sources
+ * and solutions that are computed once for all the listeners instead of going over all the changes itself.
+ */
+public class PersistChangeBatch extends AbstractCollection<IPersist>
+{
+	private final List<IPersist> changes = new ArrayList<IPersist>();
+	private final Set<IPersist> identities = Collections.newSetFromMap(new IdentityHashMap<IPersist, Boolean>());
+
+	private Set<Form> changedForms;
+	private Set<String> changedDataSources;
+	private Set<String> changedSolutions;
+
+	PersistChangeBatch()
+	{
+	}
+
+	/**
+	 * @return the changes as batch, the same object when it already is one
+	 */
+	public static PersistChangeBatch of(Collection< ? extends IPersist> changes)
+	{
+		if (changes instanceof PersistChangeBatch) return (PersistChangeBatch)changes;
+		PersistChangeBatch batch = new PersistChangeBatch();
+		for (IPersist persist : changes)
+		{
+			batch.addChange(persist);
+		}
+		return batch;
+	}
+
+	/**
+	 * Only used while the batch is collected, listeners get a batch that does not change anymore.
+	 */
+	boolean addChange(IPersist persist)
+	{
+		if (persist == null || !identities.add(persist)) return false;
+		changes.add(persist);
+		changedForms = null;
+		changedDataSources = null;
+		changedSolutions = null;
+		return true;
+	}
+
+	@Override
+	public Iterator<IPersist> iterator()
+	{
+		return Collections.unmodifiableList(changes).iterator();
+	}
+
+	@Override
+	public int size()
+	{
+		return changes.size();
+	}
+
+	@Override
+	public boolean contains(Object o)
+	{
+		return identities.contains(o);
+	}
+
+	/**
+	 * @return the forms that are changed or have a changed element
+	 */
+	public synchronized Set<Form> getChangedForms()
+	{
+		if (changedForms == null)
+		{
+			Set<Form> forms = Collections.newSetFromMap(new IdentityHashMap<Form, Boolean>());
+			for (IPersist persist : changes)
+			{
+				IPersist form = persist.getAncestor(IRepository.FORMS);
+				if (form instanceof Form) forms.add((Form)form);
+			}
+			changedForms = Collections.unmodifiableSet(forms);
+		}
+		return changedForms;
+	}
+
+	/**
+	 * @return the data sources of the changed table nodes, or of the table nodes with a changed calculation, aggregation or method
+	 */
+	public synchronized Set<String> getChangedDataSources()
+	{
+		if (changedDataSources == null)
+		{
+			Set<String> dataSources = new HashSet<String>();
+			for (IPersist persist : changes)
+			{
+				IPersist tableNode = persist;
+				while (tableNode != null && !(tableNode instanceof TableNode))
+				{
+					tableNode = tableNode.getParent();
+				}
+				if (tableNode != null && ((TableNode)tableNode).getDataSource() != null) dataSources.add(((TableNode)tableNode).getDataSource());
+			}
+			changedDataSources = Collections.unmodifiableSet(dataSources);
+		}
+		return changedDataSources;
+	}
+
+	/**
+	 * @return the names of the solutions of the changes
+	 */
+	public synchronized Set<String> getChangedSolutions()
+	{
+		if (changedSolutions == null)
+		{
+			Set<String> solutions = new HashSet<String>();
+			for (IPersist persist : changes)
+			{
+				IRootObject rootObject = persist.getRootObject();
+				if (rootObject != null) solutions.add(rootObject.getName());
+			}
+			changedSolutions = Collections.unmodifiableSet(solutions);
+		}
+		return changedSolutions;
+	}
+}
@@ -0,0 +1,545 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.IFileBuffer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import com.servoy.eclipse.model.util.ServoyLog;
+
+/**
+ * Index of the words and uuids in the frm, val, js, css and less files of the workspace, used by the persist searches to only scan the files
+ * that can have a match instead of all the files of all the modules.
+ * <p>
+ * The index only gives candidate files, the search itself still runs its regular expression over those files, so the results are the same as of a full scan.
+ * A project is checked against the index (by modification stamp) the first time it is searched, after that the index is kept up to date from the resource deltas.
+ * The index is stored in the state location when the plugin stops so the next session only has to read the files that changed in between.
+ */
+public class PersistReferenceIndex
+{
+	private static final String STORAGE_FILE_NAME = "persist_reference_index.bin";
+	private static final int MAGIC = 0x53565249; // SVRI
+	private static final int VERSION = 2;
+
+	private static final Set<String> INDEXED_EXTENSIONS = new HashSet<String>(Arrays.asList("frm", "val", "js", "css", "less"));
+	private static final Pattern UUID_PATTERN = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+	private static final Pattern WORD_PATTERN = Pattern.compile("\\w+");
+	private static final Pattern HEX_PATTERN = Pattern.compile("[0-9a-fA-F]+");
+
+	private static PersistReferenceIndex instance;
+
+	private final Map<String, FileEntry> files = new HashMap<String, FileEntry>();
+	private final Map<String, TokenFiles> tokenFiles = new HashMap<String, TokenFiles>();
+
+	// these are changed from the resource change listener, that should never wait for a search
+	private final Set<String> verifiedProjects = ConcurrentHashMap.newKeySet();
+	private final Set<String> changedFiles = ConcurrentHashMap.newKeySet();
+	private final Set<String> closedProjects = ConcurrentHashMap.newKeySet();
+
+	private boolean loaded;
+
+	private PersistReferenceIndex()
+	{
+	}
+
+	public static synchronized PersistReferenceIndex getInstance()
+	{
+		if (instance == null)
+		{
+			instance = new PersistReferenceIndex();
+		}
+		return instance;
+	}
+
+	/**
+	 * Gives the files of the scopes that can have a match of the key: for a uuid the files that have that uuid, for other keys the files that have all its words.
+	 * Files that are changed in an editor but not saved yet are always included.
+	 *
+	 * @param scopes the projects to search in
+	 * @param fileNamePatterns the file name patterns of the search, like "*.frm"
+	 * @param key the literal text that every match contains
+	 * @return the candidate files, or null when the index can't answer this (the scopes should be scanned completely)
+	 */
+	public synchronized IResource[] getCandidateFiles(IResource[] scopes, String[] fileNamePatterns, String key)
+	{
+		Set<String> extensions = getExtensions(fileNamePatterns);
+		List<String> tokens = getKeyTokens(key);
+		if (extensions == null || tokens == null) return null;
+
+		List<IProject> projects = new ArrayList<IProject>();
+		for (IResource scope : scopes)
+		{
+			if (!(scope instanceof IProject)) return null;
+			projects.add((IProject)scope);
+		}
+
+		try
+		{
+			if (!loaded)
+			{
+				load();
+				loaded = true;
+			}
+			removeClosedProjects();
+			for (IProject project : projects)
+			{
+				if (!verifiedProjects.contains(project.getName()))
+				{
+					// mark it first, a change during the verification is then handled as changed file
+					verifiedProjects.add(project.getName());
+					verifyProject(project);
+				}
+			}
+			processChangedFiles();
+		}
+		catch (CoreException e)
+		{
+			ServoyLog.logError("Could not update the persist reference index", e);
+			return null;
+		}
+
+		Set<String> candidates = null;
+		for (String token : tokens)
+		{
+			TokenFiles paths = tokenFiles.get(token);
+			if (paths == null)
+			{
+				candidates = new LinkedHashSet<String>();
+				break;
+			}
+			if (candidates == null) candidates = new LinkedHashSet<String>(paths.paths);
+			else candidates.retainAll(paths.paths);
+		}
+		addDirtyFiles(candidates);
+
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		List<IResource> result = new ArrayList<IResource>();
+		for (String path : candidates)
+		{
+			IFile file = root.getFile(new Path(path));
+			if (extensions.contains(file.getFileExtension()) && projects.contains(file.getProject())) result.add(file);
+		}
+		return result.toArray(new IResource[result.size()]);
+	}
+
+	/**
+	 * Called from the resource change listener of the {@link ServoyModel}, only remembers what changed; the files are read again by the next search.
+	 */
+	void resourcesChanged(IResourceDelta delta)
+	{
+		if (delta == null) return;
+		for (IResourceDelta projectDelta : delta.getAffectedChildren())
+		{
+			IResource resource = projectDelta.getResource();
+			if (!(resource instanceof IProject)) continue;
+			if (projectDelta.getKind() == IResourceDelta.REMOVED || !((IProject)resource).isOpen() ||
+				(projectDelta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.REPLACED)) != 0)
+			{
+				// verify it again completely the next time it is searched, the files of a removed or closed project are dropped by the next search or save
+				verifiedProjects.remove(resource.getName());
+				if (!((IProject)resource).isOpen()) closedProjects.add(resource.getName());
+				continue;
+			}
+			if (!verifiedProjects.contains(resource.getName())) continue;
+			try
+			{
+				projectDelta.accept((IResourceDelta fileDelta) -> {
+					IResource changed = fileDelta.getResource();
+					if (changed.getType() == IResource.FILE)
+					{
+						if (INDEXED_EXTENSIONS.contains(changed.getFileExtension()) &&
+							(fileDelta.getKind() != IResourceDelta.CHANGED || (fileDelta.getFlags() & (IResourceDelta.CONTENT | IResourceDelta.REPLACED)) != 0))
+						{
+							changedFiles.add(changed.getFullPath().toString());
+						}
+						return false;
+					}
+					return true;
+				});
+			}
+			catch (CoreException e)
+			{
+				ServoyLog.logError("Could not update the persist reference index for project " + resource.getName(), e);
+				verifiedProjects.remove(resource.getName());
+			}
+		}
+	}
+
+	/**
+	 * Stores the index in the state location, only when it was used in this session. The files of projects that are removed or closed are not stored.
+	 */
+	public synchronized void save()
+	{
+		if (!loaded) return;
+		File storageFile = getStorageFile();
+		if (storageFile == null) return;
+		removeClosedProjects();
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		Set<String> inaccessibleProjects = new HashSet<String>();
+		for (String path : files.keySet())
+		{
+			String projectName = new Path(path).segment(0);
+			if (projectName != null && !root.getProject(projectName).isAccessible()) inaccessibleProjects.add(projectName);
+		}
+		for (String projectName : inaccessibleProjects)
+		{
+			removeProject(projectName);
+		}
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storageFile), 64 * 1024)))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(files.size());
+			for (Map.Entry<String, FileEntry> entry : files.entrySet())
+			{
+				FileEntry fileEntry = entry.getValue();
+				writeString(out, entry.getKey());
+				out.writeLong(fileEntry.modificationStamp);
+				out.writeLong(fileEntry.localTimeStamp);
+				out.writeInt(fileEntry.tokens.length);
+				for (String token : fileEntry.tokens)
+				{
+					writeString(out, token);
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not save the persist reference index", e);
+			storageFile.delete();
+		}
+	}
+
+	private void load()
+	{
+		File storageFile = getStorageFile();
+		if (storageFile == null || !storageFile.exists()) return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storageFile), 64 * 1024)))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+			int fileCount = in.readInt();
+			for (int i = 0; i < fileCount; i++)
+			{
+				String path = readString(in);
+				long modificationStamp = in.readLong();
+				long localTimeStamp = in.readLong();
+				String[] tokens = new String[in.readInt()];
+				for (int j = 0; j < tokens.length; j++)
+				{
+					tokens[j] = readString(in);
+				}
+				putFile(path, new FileEntry(modificationStamp, localTimeStamp, tokens));
+			}
+		}
+		catch (IOException e)
+		{
+			// the projects are verified before they are used, a partially read index only means that more files are read again
+			ServoyLog.logError("Could not load the persist reference index", e);
+		}
+	}
+
+	/**
+	 * Writes the string as its length and utf-8 bytes, writeUTF can't write strings (like very long words) of more than 64k bytes.
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException
+	{
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0) throw new IOException("Invalid string length " + length);
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Drops the files of the projects that were closed or removed, unless they are open again.
+	 */
+	private void removeClosedProjects()
+	{
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		Iterator<String> it = closedProjects.iterator();
+		while (it.hasNext())
+		{
+			String projectName = it.next();
+			it.remove();
+			if (!root.getProject(projectName).isAccessible()) removeProject(projectName);
+		}
+	}
+
+	private void removeProject(String projectName)
+	{
+		String prefix = '/' + projectName + '/';
+		List<String> removed = new ArrayList<String>();
+		for (String path : files.keySet())
+		{
+			if (path.startsWith(prefix)) removed.add(path);
+		}
+		for (String path : removed)
+		{
+			removeFile(path);
+		}
+	}
+
+	private static File getStorageFile()
+	{
+		Activator activator = Activator.getDefault();
+		if (activator == null) return null;
+		return activator.getStateLocation().append(STORAGE_FILE_NAME).toFile();
+	}
+
+	/**
+	 * Reads the files of the project that are new or changed since they were indexed, and removes the files that don't exist anymore.
+	 */
+	private void verifyProject(IProject project) throws CoreException
+	{
+		String prefix = project.getFullPath().toString() + '/';
+		Set<String> existing = new HashSet<String>();
+		if (project.isAccessible())
+		{
+			project.accept((IResource resource) -> {
+				if (resource.getType() == IResource.FOLDER && resource.getName().startsWith(".")) return false;
+				if (resource.getType() == IResource.FILE)
+				{
+					if (INDEXED_EXTENSIONS.contains(resource.getFileExtension()))
+					{
+						String path = resource.getFullPath().toString();
+						existing.add(path);
+						FileEntry entry = files.get(path);
+						if (entry == null || entry.modificationStamp != resource.getModificationStamp() ||
+							entry.localTimeStamp != resource.getLocalTimeStamp())
+						{
+							indexFile((IFile)resource);
+						}
+					}
+					return false;
+				}
+				return true;
+			});
+		}
+		List<String> removed = new ArrayList<String>();
+		for (String path : files.keySet())
+		{
+			if (path.startsWith(prefix) && !existing.contains(path)) removed.add(path);
+		}
+		for (String path : removed)
+		{
+			removeFile(path);
+		}
+	}
+
+	private void processChangedFiles()
+	{
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		Iterator<String> it = changedFiles.iterator();
+		while (it.hasNext())
+		{
+			String path = it.next();
+			it.remove();
+			IFile file = root.getFile(new Path(path));
+			if (!verifiedProjects.contains(file.getProject().getName()))
+			{
+				// it will be checked when its project is verified
+				removeFile(path);
+			}
+			else if (file.isAccessible())
+			{
+				indexFile(file);
+			}
+			else
+			{
+				removeFile(path);
+			}
+		}
+	}
+
+	private void indexFile(IFile file)
+	{
+		String path = file.getFullPath().toString();
+		removeFile(path);
+		try (InputStream is = file.getContents(true))
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			is.transferTo(bytes);
+			String content = bytes.toString(file.getCharset());
+			putFile(path, new FileEntry(file.getModificationStamp(), file.getLocalTimeStamp(), getTokens(content)));
+		}
+		catch (IOException | CoreException e)
+		{
+			// not in the index, a search then doesn't see this file; read it again with the next change
+			ServoyLog.logError("Could not index " + path + " for the persist searches", e);
+		}
+	}
+
+	private void putFile(String path, FileEntry entry)
+	{
+		FileEntry old = files.put(path, entry);
+		if (old != null) removeTokens(path, old);
+		for (int i = 0; i < entry.tokens.length; i++)
+		{
+			TokenFiles paths = tokenFiles.get(entry.tokens[i]);
+			if (paths == null)
+			{
+				paths = new TokenFiles(entry.tokens[i]);
+				tokenFiles.put(paths.token, paths);
+			}
+			// all the files share the same token string
+			entry.tokens[i] = paths.token;
+			paths.paths.add(path);
+		}
+	}
+
+	private void removeFile(String path)
+	{
+		FileEntry entry = files.remove(path);
+		if (entry != null) removeTokens(path, entry);
+	}
+
+	private void removeTokens(String path, FileEntry entry)
+	{
+		for (String token : entry.tokens)
+		{
+			TokenFiles paths = tokenFiles.get(token);
+			if (paths != null && paths.paths.remove(path) && paths.paths.isEmpty()) tokenFiles.remove(token);
+		}
+	}
+
+	/**
+	 * Files with changes in an open editor are searched in the editor contents, those can have references that are not in the index.
+	 */
+	private static void addDirtyFiles(Set<String> candidates)
+	{
+		for (IFileBuffer buffer : FileBuffers.getTextFileBufferManager().getFileBuffers())
+		{
+			IPath location = buffer.getLocation();
+			if (buffer.isDirty() && location != null) candidates.add(location.toString());
+		}
+	}
+
+	/**
+	 * The uuids and the words of the content; words that are only hex digits are left out, those are mostly numbers and parts of uuids.
+	 */
+	private static String[] getTokens(String content)
+	{
+		Set<String> tokens = new HashSet<String>();
+		Matcher uuidMatcher = UUID_PATTERN.matcher(content);
+		while (uuidMatcher.find())
+		{
+			tokens.add(uuidMatcher.group());
+		}
+		Matcher wordMatcher = WORD_PATTERN.matcher(content);
+		while (wordMatcher.find())
+		{
+			String word = wordMatcher.group();
+			if (!HEX_PATTERN.matcher(word).matches()) tokens.add(word);
+		}
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	/**
+	 * @return the tokens that a file must have to contain the key, null if the index can't be used for it
+	 */
+	private static List<String> getKeyTokens(String key)
+	{
+		if (key == null) return null;
+		if (UUID_PATTERN.matcher(key).matches()) return Arrays.asList(key);
+		List<String> tokens = new ArrayList<String>();
+		Matcher wordMatcher = WORD_PATTERN.matcher(key);
+		while (wordMatcher.find())
+		{
+			String word = wordMatcher.group();
+			if (HEX_PATTERN.matcher(word).matches()) return null;
+			tokens.add(word);
+		}
+		return tokens.isEmpty() ? null : tokens;
+	}
+
+	private static Set<String> getExtensions(String[] fileNamePatterns)
+	{
+		Set<String> extensions = new HashSet<String>();
+		for (String pattern : fileNamePatterns)
+		{
+			if (!pattern.startsWith("*.") || !INDEXED_EXTENSIONS.contains(pattern.substring(2))) return null;
+			extensions.add(pattern.substring(2));
+		}
+		return extensions;
+	}
+
+	private static final class FileEntry
+	{
+		private final long modificationStamp;
+		private final long localTimeStamp;
+		private final String[] tokens;
+
+		private FileEntry(long modificationStamp, long localTimeStamp, String[] tokens)
+		{
+			this.modificationStamp = modificationStamp;
+			this.localTimeStamp = localTimeStamp;
+			this.tokens = tokens;
+		}
+	}
+
+	private static final class TokenFiles
+	{
+		private final String token;
+		private final Set<String> paths = new HashSet<String>();
+
+		private TokenFiles(String token)
+		{
+			this.token = token;
+		}
+	}
+}
@@ -25,6 +25,7 @@ import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.Charset;
 import java.rmi.RemoteException;
 import java.sql.SQLException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -32,6 +33,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -121,6 +123,7 @@ import com.servoy.eclipse.core.resource.TableEditorInput;
 import com.servoy.eclipse.core.util.EclipseDatabaseUtils;
 import com.servoy.eclipse.core.util.ReturnValueRunnable;
 import com.servoy.eclipse.core.util.UIUtils;
+import com.servoy.eclipse.model.DeveloperFlattenedSolution;
 import com.servoy.eclipse.model.IFormComponentListener;
 import com.servoy.eclipse.model.extensions.AbstractServoyModel;
 import com.servoy.eclipse.model.mobile.exporter.MobileExporter;
@@ -224,7 +227,7 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 	private final List<IFormComponentListener> formComponentListeners;
 
 	private final Job fireRealPersistchangesJob;
-	private List<IPersist> realOutstandingChanges;
+	private PersistChangeBatch realOutstandingChanges;
 
 	private TeamShareMonitor teamShareMonitor;
 
@@ -285,7 +288,7 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 
 	private void init()
 	{
-		realOutstandingChanges = new ArrayList<IPersist>();
+		realOutstandingChanges = new PersistChangeBatch();
 
 		// the in-process repository is only meant to work by itself - so all servoy related projects in the workspace should
 		// either not be attached to team or attached to the in-process repository (because database information
@@ -1933,72 +1936,81 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 	 */
 	public void firePersistChanged(boolean realSolution, Object obj, boolean recursive)
 	{
-		flushFlattenedFormCache(realSolution); // looking up elements in firePersistChangedInternal may use out-of-date flattened forms
-		firePersistChangedInternal(realSolution, obj, recursive, new HashSet<Integer>());
+		// looking up elements in collectPersistChanges may use out-of-date flattened forms, the collected changes are all in the form of obj
+		if (obj instanceof IPersist) flushFlattenedFormCache(realSolution, Collections.singletonList((IPersist)obj));
+		else flushFlattenedFormCache(realSolution);
+		firePersistsChanged(realSolution, collectPersistChanges(realSolution, obj, recursive), false);
 	}
 
-	private void firePersistChangedInternal(boolean realSolution, Object obj, boolean recursive, Set<Integer> visited)
+	/**
+	 * Collects the changed object (with all its children when recursive) and all the forms that inherit from it when it is a form,
+	 * so that the listeners get one event for the whole inheritance tree.
+	 */
+	private PersistChangeBatch collectPersistChanges(boolean realSolution, Object obj, boolean recursive)
 	{
+		PersistChangeBatch changed = new PersistChangeBatch();
 		// Protect against cycle in form extends relation.
-		if (obj instanceof IPersist && !visited.add(new Integer(((IPersist)obj).getID())))
-		{
-			return;
-		}
-
-		List<IPersist> changed;
-		if (recursive)
+		Set<Integer> visited = new HashSet<Integer>();
+		ArrayDeque<Object> roots = new ArrayDeque<Object>();
+		ArrayDeque<Object> toAdd = new ArrayDeque<Object>();
+		roots.add(obj);
+		while (!roots.isEmpty())
 		{
-			changed = new ArrayList<IPersist>();
+			Object root = roots.poll();
+			if (root instanceof IPersist && !visited.add(Integer.valueOf(((IPersist)root).getID())))
+			{
+				continue;
+			}
 
-			List<Object> toAdd = new ArrayList<Object>();
-			toAdd.add(obj);
-			Iterator< ? > elementsIte;
-			while (toAdd.size() > 0)
+			if (recursive)
 			{
-				Object element = toAdd.remove(0);
-				if (element instanceof IPersist)
+				toAdd.add(root);
+				Iterator< ? > elementsIte;
+				while (!toAdd.isEmpty())
 				{
-					changed.add((IPersist)element);
-				}
+					Object element = toAdd.poll();
+					if (element instanceof IPersist)
+					{
+						changed.addChange((IPersist)element);
+					}
 
-				if (element instanceof ISupportChilds)
-				{
-					elementsIte = ((ISupportChilds)element).getAllObjects();
-				}
-				else if (element instanceof FormElementGroup)
-				{
-					elementsIte = ((FormElementGroup)element).getElements();
-				}
-				else
-				{
-					elementsIte = null;
-				}
-				while (elementsIte != null && elementsIte.hasNext())
-				{
-					toAdd.add(elementsIte.next());
+					if (element instanceof ISupportChilds)
+					{
+						elementsIte = ((ISupportChilds)element).getAllObjects();
+					}
+					else if (element instanceof FormElementGroup)
+					{
+						elementsIte = ((FormElementGroup)element).getElements();
+					}
+					else
+					{
+						elementsIte = null;
+					}
+					while (elementsIte != null && elementsIte.hasNext())
+					{
+						toAdd.add(elementsIte.next());
+					}
 				}
 			}
-		}
-		else if (obj instanceof IPersist)
-		{
-			changed = new ArrayList<IPersist>(1);
-			changed.add((IPersist)obj);
-		}
-		else
-		{
-			return;
-		}
-
-		firePersistsChanged(realSolution, changed);
+			else if (root instanceof IPersist)
+			{
+				changed.addChange((IPersist)root);
+			}
+			else
+			{
+				continue;
+			}
 
-		if (obj instanceof Form) // all inheriting Forms has been changed
-		{
-			FlattenedSolution fs = realSolution ? getFlattenedSolution() : getEditingFlattenedSolution((Form)obj);
-			for (Form form : fs.getDirectlyInheritingForms((Form)obj))
+			if (root instanceof Form) // all inheriting Forms has been changed
 			{
-				firePersistChangedInternal(realSolution, form, recursive, visited);
+				FlattenedSolution fs = realSolution ? getFlattenedSolution() : getEditingFlattenedSolution((Form)root);
+				if (fs != null)
+				{
+					roots.addAll(fs.getDirectlyInheritingForms((Form)root));
+				}
 			}
 		}
+		return changed;
 	}
 
 	/**
@@ -2017,10 +2029,10 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 			@Override
 			public IStatus run(IProgressMonitor monitor)
 			{
-				List<IPersist> changes = getOutstandingRealPersistChanges();
+				PersistChangeBatch changes = getOutstandingRealPersistChanges();
 				if (changes.size() > 0)
 				{
-					firePersistsChangedEx(true, new HashSet<IPersist>(changes));
+					firePersistsChangedEx(true, changes);
 				}
 				return Status.OK_STATUS;
 			}
@@ -2081,9 +2093,71 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 		}
 	}
 
+	/**
+	 * Flushes the flattened forms that can be affected by the changes: when all changes are elements of forms only the flattened forms of those forms
+	 * and the forms that extend them are flushed, otherwise all of them.
+	 * The forms that embed a form component are not known reliably (the builder dependencies are stale when not building automatically
+	 * and don't know the unsaved editing forms), so a change in a form component flushes all flattened forms of that solution.
+	 */
+	private void flushFlattenedFormCache(boolean realSolution, Collection<IPersist> changes)
+	{
+		PersistChangeBatch batch = PersistChangeBatch.of(changes);
+		for (IPersist persist : batch)
+		{
+			if (persist instanceof Form || !(persist.getAncestor(IRepository.FORMS) instanceof Form))
+			{
+				// the form itself (like its extends form) or something outside a form changed
+				flushFlattenedFormCache(realSolution);
+				return;
+			}
+		}
+		if (realSolution)
+		{
+			flushFlattenedForms(getFlattenedSolution(), batch.getChangedForms());
+		}
+		else
+		{
+			for (ServoyProject project : getModulesOfActiveProject())
+			{
+				flushFlattenedForms(project.getEditingFlattenedSolution(), batch.getChangedForms());
+			}
+		}
+	}
+
+	private void flushFlattenedForms(FlattenedSolution fs, Set<Form> changedForms)
+	{
+		if (fs == null) return;
+		if (!(fs instanceof DeveloperFlattenedSolution))
+		{
+			fs.flushFlattenedFormCache();
+			return;
+		}
+
+		Set<Form> forms = Collections.newSetFromMap(new IdentityHashMap<Form, Boolean>());
+		ArrayDeque<Form> toFlush = new ArrayDeque<Form>();
+		for (Form changedForm : changedForms)
+		{
+			// the changed form can be of the other (real or editing) solution
+			Form form = fs.getForm(changedForm.getName());
+			if (form != null) toFlush.add(form);
+		}
+		while (!toFlush.isEmpty())
+		{
+			Form form = toFlush.poll();
+			if (!forms.add(form)) continue;
+
+			if (form.isFormComponent().booleanValue())
+			{
+				fs.flushFlattenedFormCache();
+				return;
+			}
+			toFlush.addAll(fs.getDirectlyInheritingForms(form));
+		}
+		((DeveloperFlattenedSolution)fs).flushFlattenedForms(forms);
+	}
+
 	private final int[] isCollectingPersistChanges = new int[] { 0, 0 };
-	@SuppressWarnings("unchecked")
-	private final List<IPersist>[] collectedPersistChanges = new List[] { new ArrayList<IPersist>(), new ArrayList<IPersist>() };
+	private final PersistChangeBatch[] collectedPersistChanges = new PersistChangeBatch[] { new PersistChangeBatch(), new PersistChangeBatch() };
 
 	public void startCollectingPersistChanges(boolean realSolution)
 	{
@@ -2101,13 +2175,10 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 			{
 				return false;
 			}
-			List<IPersist> collected = collectedPersistChanges[realSolution ? 0 : 1];
+			PersistChangeBatch collected = collectedPersistChanges[realSolution ? 0 : 1];
 			for (IPersist persist : changes)
 			{
-				if (!collected.contains(persist))
-				{
-					collected.add(persist);
-				}
+				collected.addChange(persist);
 			}
 			return true;
 		}
@@ -2115,7 +2186,7 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 
 	public void stopCollectingPersistChanges(boolean realSolution)
 	{
-		Collection<IPersist> collected;
+		PersistChangeBatch collected;
 		synchronized (isCollectingPersistChanges)
 		{
 			if (--isCollectingPersistChanges[realSolution ? 0 : 1] > 0 || collectedPersistChanges[realSolution ? 0 : 1].size() == 0)
@@ -2123,22 +2194,31 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 				return;
 			}
 			collected = collectedPersistChanges[realSolution ? 0 : 1];
-			collectedPersistChanges[realSolution ? 0 : 1] = new ArrayList<IPersist>();
+			collectedPersistChanges[realSolution ? 0 : 1] = new PersistChangeBatch();
 		}
 		firePersistsChanged(realSolution, collected);
 	}
 
 	/**
 	 * Notify listeners of changes to persists. Changes can be notified for the real solutions or the editing solutions.
+	 * The listeners get the changes as a {@link PersistChangeBatch}, changes of the real solutions are coalesced for .1 sec.
 	 *
 	 * @param realSolution
 	 * @param changes
 	 */
 	public void firePersistsChanged(boolean realSolution, Collection<IPersist> changes)
+	{
+		firePersistsChanged(realSolution, changes, true);
+	}
+
+	/**
+	 * @param flushFlattenedForms false when the flattened forms of the changes are already flushed
+	 */
+	private void firePersistsChanged(boolean realSolution, Collection<IPersist> changes, boolean flushFlattenedForms)
 	{
 		if (changes.size() == 0 || isCollectingPersistChanges(realSolution, changes)) return;
 
-		flushFlattenedFormCache(realSolution);
+		if (flushFlattenedForms) flushFlattenedFormCache(realSolution, changes);
 		if (realSolution)
 		{
 			// we must clean the cache before editing solution listeners are called
@@ -2146,15 +2226,19 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 			FormElementHelper.INSTANCE.reload();
 			synchronized (fireRealPersistchangesJob)
 			{
-				realOutstandingChanges.addAll(changes);
+				for (IPersist persist : changes)
+				{
+					realOutstandingChanges.addChange(persist);
+				}
 				fireRealPersistchangesJob.cancel();
 				fireRealPersistchangesJob.schedule(100);// wait .1 sec for more changes before start firing
 			}
 		}
 		else
 		{
-			FormElementHelper.INSTANCE.flush(changes);
-			firePersistsChangedEx(false, changes);
+			PersistChangeBatch batch = PersistChangeBatch.of(changes);
+			FormElementHelper.INSTANCE.flush(batch);
+			firePersistsChangedEx(false, batch);
 		}
 	}
 
@@ -2162,7 +2246,7 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 	 * @param realSolution
 	 * @param changes
 	 */
-	private void firePersistsChangedEx(boolean realSolution, Collection<IPersist> changes)
+	private void firePersistsChangedEx(boolean realSolution, PersistChangeBatch changes)
 	{
 		List<IPersistChangeListener> listeners = realSolution ? realPersistChangeListeners : editingPersistChangeListeners;
 		for (IPersistChangeListener listener : listeners.toArray(new IPersistChangeListener[listeners.size()]))
@@ -2210,13 +2294,13 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 		}
 	}
 
-	private List<IPersist> getOutstandingRealPersistChanges()
+	private PersistChangeBatch getOutstandingRealPersistChanges()
 	{
-		List<IPersist> outstandingChanges;
+		PersistChangeBatch outstandingChanges;
 		synchronized (fireRealPersistchangesJob)
 		{
 			outstandingChanges = realOutstandingChanges;
-			realOutstandingChanges = new ArrayList<IPersist>();
+			realOutstandingChanges = new PersistChangeBatch();
 		}
 		return outstandingChanges;
 	}
@@ -2262,6 +2346,9 @@ public class ServoyModel extends AbstractServoyModel implements IDeveloperServoy
 
 	private void resourcesPostChanged(IResourceChangeEvent event)
 	{
+		// also at startup, the index must know about every change of the files it has
+		PersistReferenceIndex.getInstance().resourcesChanged(event.getDelta());
+
 		if (ApplicationServerRegistry.get().getDeveloperRepository() == null)
 		{
 			// change notification at startup, Activator has not finished yet
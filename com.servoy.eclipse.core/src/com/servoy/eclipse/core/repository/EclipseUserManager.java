@@ -297,10 +297,12 @@ public class EclipseUserManager extends WorkspaceUserManager
 			public void persistChanges(Collection<IPersist> changes)
 			{
 				Set<Form> formsToReload = null;
+				boolean formChanged = false;
 				for (IPersist persist : changes)
 				{
 					if (persist instanceof Form)
 					{
+						formChanged = true;
 						if (((Solution)persist.getRootObject()).getForm(persist.getID()) == null)
 						{
 							// this means the form was deleted; delete security file as well
@@ -396,6 +398,11 @@ public class EclipseUserManager extends WorkspaceUserManager
 						}
 					}
 				}
+				// a form could be added, deleted or moved to another module
+				if (formChanged)
+				{
+					securityAccessChanged();
+				}
 				// first make sure the security file is updated with all deletes, reload form at the end
 				if (formsToReload != null)
 				{
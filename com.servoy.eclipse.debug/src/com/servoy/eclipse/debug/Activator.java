@@ -36,6 +36,7 @@ import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
 
 import com.servoy.eclipse.core.ServoyModelManager;
+import com.servoy.eclipse.debug.script.TypeCreator;
 import com.servoy.eclipse.model.util.ModelUtils;
 import com.servoy.eclipse.model.util.ServoyLog;
 import com.servoy.j2db.util.Utils;
@@ -95,6 +96,7 @@ public class Activator extends AbstractUIPlugin implements IStartup
 	@Override
 	public void stop(BundleContext context) throws Exception
 	{
+		TypeCreator.saveDocCache();
 		plugin = null;
 		super.stop(context);
 		for (Image image : imageList)
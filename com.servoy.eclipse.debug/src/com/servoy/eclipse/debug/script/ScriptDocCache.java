@@ -0,0 +1,243 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.debug.script;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.framework.Bundle;
+
+import com.servoy.eclipse.debug.Activator;
+import com.servoy.eclipse.model.util.ServoyLog;
+
+/**
+ * Stores the generated docs of the java script api in the state location of the debug plugin, so that they are not generated again after a restart.
+ * The file is only used by the same set of bundles; every key also has the jar of the script object class, because client plugins are not bundles.
+ */
+class ScriptDocCache
+{
+	private static final String CACHE_FILE_NAME = "scriptDocs.bin";
+	private static final int STORAGE_VERSION = 1;
+
+	private static ScriptDocCache instance;
+
+	private final File storageFile;
+	private final String version;
+	private final Map<String, String> docs = new ConcurrentHashMap<String, String>();
+	private final Map<String, Boolean> used = new ConcurrentHashMap<String, Boolean>();
+	private final Map<Class< ? >, String> classStamps = new ConcurrentHashMap<Class< ? >, String>();
+	private volatile boolean changed;
+
+	private ScriptDocCache(File storageFile, String version)
+	{
+		this.storageFile = storageFile;
+		this.version = version;
+	}
+
+	/**
+	 * @return the cache, loaded the first time, or null if there is no state location to store it
+	 */
+	private static synchronized ScriptDocCache getInstance()
+	{
+		if (instance == null)
+		{
+			Activator activator = Activator.getDefault();
+			if (activator == null) return null;
+			instance = new ScriptDocCache(activator.getStateLocation().append(CACHE_FILE_NAME).toFile(), getVersion(activator));
+			instance.load();
+		}
+		return instance;
+	}
+
+	static String createKey(Class< ? > scriptObjectClass, String name, Class< ? >[] parameterTypes, Object clientType)
+	{
+		ScriptDocCache cache = getInstance();
+		if (cache == null) return null;
+		StringBuilder sb = new StringBuilder(128);
+		sb.append(cache.classStamps.computeIfAbsent(scriptObjectClass, ScriptDocCache::getClassStamp));
+		sb.append('|').append(clientType).append('|').append(scriptObjectClass.getName()).append('#').append(name);
+		if (parameterTypes != null)
+		{
+			sb.append('(');
+			for (Class< ? > parameterType : parameterTypes)
+			{
+				sb.append(parameterType != null ? parameterType.getName() : null).append(',');
+			}
+			sb.append(')');
+		}
+		return sb.toString();
+	}
+
+	static String get(String key)
+	{
+		ScriptDocCache cache = getInstance();
+		if (cache == null || key == null) return null;
+		String doc = cache.docs.get(key);
+		if (doc != null) cache.used.put(key, Boolean.TRUE);
+		return doc;
+	}
+
+	static void put(String key, String doc)
+	{
+		ScriptDocCache cache = getInstance();
+		if (cache == null || key == null || doc == null) return;
+		cache.docs.put(key, doc);
+		cache.used.put(key, Boolean.TRUE);
+		cache.changed = true;
+	}
+
+	/**
+	 * Writes the docs that where used in this session, if something changed.
+	 * The file is written next to the cache and then moved over it, so a failed or interrupted write never leaves a broken cache.
+	 */
+	static synchronized void save()
+	{
+		if (instance == null || !instance.changed) return;
+		instance.docs.keySet().retainAll(instance.used.keySet());
+		File tmpFile = new File(instance.storageFile.getParentFile(), instance.storageFile.getName() + ".tmp");
+		try
+		{
+			instance.write(tmpFile);
+			Files.move(tmpFile.toPath(), instance.storageFile.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			instance.changed = false;
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not write the script doc cache " + instance.storageFile, e);
+			tmpFile.delete();
+		}
+	}
+
+	private void write(File file) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			out.writeInt(STORAGE_VERSION);
+			out.writeUTF(version);
+			// docs can still be added while writing
+			Map<String, String> snapshot = new HashMap<String, String>(docs);
+			out.writeInt(snapshot.size());
+			for (Map.Entry<String, String> entry : snapshot.entrySet())
+			{
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+		}
+	}
+
+	private void load()
+	{
+		if (!storageFile.exists()) return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storageFile))))
+		{
+			if (in.readInt() == STORAGE_VERSION && version.equals(in.readUTF()))
+			{
+				int count = in.readInt();
+				for (int i = 0; i < count; i++)
+				{
+					docs.put(readString(in), readString(in));
+				}
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			ServoyLog.logError("Could not read the script doc cache " + storageFile, e);
+			docs.clear();
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException
+	{
+		// doc strings can be longer then writeUTF supports
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInputStream in) throws IOException
+	{
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The docs come from the script objects of all the bundles, so a cache of another set of bundles is never used.
+	 */
+	private static String getVersion(Activator activator)
+	{
+		Bundle[] bundles = activator.getBundle().getBundleContext().getBundles();
+		String[] names = new String[bundles.length];
+		for (int i = 0; i < bundles.length; i++)
+		{
+			names[i] = bundles[i].getSymbolicName() + '_' + bundles[i].getVersion();
+		}
+		Arrays.sort(names);
+		try
+		{
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(String.join(",", names).getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// every java platform must support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Client plugins are loaded from jars, so the jar (and its size and timestamp) is part of the key of their docs.
+	 */
+	private static String getClassStamp(Class< ? > cls)
+	{
+		try
+		{
+			CodeSource codeSource = cls.getProtectionDomain().getCodeSource();
+			URL location = codeSource != null ? codeSource.getLocation() : null;
+			if (location == null) return "";
+			if ("file".equals(location.getProtocol()))
+			{
+				File file = new File(location.toURI());
+				if (file.isFile()) return location + ":" + file.length() + ":" + file.lastModified();
+			}
+			return location.toString();
+		}
+		catch (Exception e)
+		{
+			// no stamp, the bundle versions should then be enough
+			return "";
+		}
+	}
+}
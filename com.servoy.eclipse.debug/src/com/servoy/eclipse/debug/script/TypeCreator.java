@@ -39,6 +39,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.Icon;
 
@@ -111,6 +112,7 @@ import com.servoy.base.util.DataSourceUtilsBase;
 import com.servoy.eclipse.core.IActiveProjectListener;
 import com.servoy.eclipse.core.ISolutionMetaDataChangeListener;
 import com.servoy.eclipse.core.JSDeveloperSolutionModel;
+import com.servoy.eclipse.core.PersistChangeBatch;
 import com.servoy.eclipse.core.ServoyModel;
 import com.servoy.eclipse.core.ServoyModelManager;
 import com.servoy.eclipse.core.util.UIUtils;
@@ -122,6 +124,7 @@ import com.servoy.eclipse.model.inmemory.MemServer;
 import com.servoy.eclipse.model.nature.ServoyProject;
 import com.servoy.eclipse.model.ngpackages.ILoadedNGPackagesListener;
 import com.servoy.eclipse.model.util.InMemServerWrapper;
+import com.servoy.eclipse.model.util.SerialRule;
 import com.servoy.eclipse.model.util.ServoyLog;
 import com.servoy.eclipse.model.util.ViewFoundsetServerWrapper;
 import com.servoy.eclipse.model.view.ViewFoundsetsServer;
@@ -169,9 +172,11 @@ import com.servoy.j2db.persistence.ColumnInfo;
 import com.servoy.j2db.persistence.Form;
 import com.servoy.j2db.persistence.FormElementGroup;
 import com.servoy.j2db.persistence.GraphicalComponent;
+import com.servoy.j2db.persistence.IColumn;
 import com.servoy.j2db.persistence.IColumnTypes;
 import com.servoy.j2db.persistence.IDataProvider;
 import com.servoy.j2db.persistence.IFormElement;
+import com.servoy.j2db.persistence.IItemChangeListener;
 import com.servoy.j2db.persistence.IPersist;
 import com.servoy.j2db.persistence.IPersistChangeListener;
 import com.servoy.j2db.persistence.IRepository;
@@ -419,6 +424,8 @@ public class TypeCreator extends TypeCache
 	public TypeCreator()
 	{
 		super("servoy", "javascript");
+		cacheEvictionJob.setRule(SerialRule.getNewSerialRule());
+		cacheEvictionJob.setSystem(true);
 		addType("JSDataSet", JSDataSet.class);
 		addType(IExecutingEnviroment.TOPLEVEL_SERVOY_EXCEPTION, ServoyException.class);
 		addType(DataException.class.getSimpleName(), DataException.class);
@@ -726,13 +733,26 @@ public class TypeCreator extends TypeCache
 	}
 
 
-	private void clearCache()
+	// what should be evicted by the next run of the cacheEvictionJob
+	private final AtomicBoolean clearAllTypes = new AtomicBoolean();
+	private final AtomicBoolean clearDataSourceTypes = new AtomicBoolean();
+	private final AtomicBoolean clearSolutionTypes = new AtomicBoolean();
+	private final Set<String> changedSolutions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Evicts the types that depend on what was changed, the changes of all the events since the last run are handled at once.
+	 * This doesn't need the workspace, it only has to run after the previous eviction, so no builder or save has to wait for it.
+	 */
+	private final Job cacheEvictionJob = new Job("clearing cache")
 	{
-		Job job = new Job("clearing cache")
+		@Override
+		public IStatus run(IProgressMonitor monitor)
 		{
-			@Override
-			public IStatus run(IProgressMonitor monitor)
+			if (clearAllTypes.getAndSet(false))
 			{
+				clearDataSourceTypes.set(false);
+				clearSolutionTypes.set(false);
+				changedSolutions.clear();
 				for (IScopeTypeCreator creator : scopeTypes.values())
 				{
 					creator.flush();
@@ -744,9 +764,105 @@ public class TypeCreator extends TypeCache
 				docCache.clear();
 				return Status.OK_STATUS;
 			}
-		};
-		job.setRule(ResourcesPlugin.getWorkspace().getRoot());
-		job.schedule();
+
+			boolean dataSources = clearDataSourceTypes.getAndSet(false);
+			boolean allSolutions = clearSolutionTypes.getAndSet(false) || dataSources;
+			Set<String> solutions = new HashSet<String>(changedSolutions);
+			changedSolutions.removeAll(solutions);
+			if (dataSources)
+			{
+				for (IScopeTypeCreator creator : scopeTypes.values())
+				{
+					creator.flush();
+				}
+				clearBucket(SCOPE_TABLES);
+			}
+			for (String bucket : buckets.keySet())
+			{
+				// the tables bucket only has the columns of the tables, no solution persists
+				if (!SCOPE_TABLES.equals(bucket) && (allSolutions || dependsOn(bucket, solutions)))
+				{
+					clearBucket(bucket);
+				}
+			}
+			if (allSolutions)
+			{
+				relationCache.clear();
+			}
+			else
+			{
+				relationCache.keySet().removeIf(relation -> relation.getRootObject() == null || solutions.contains(relation.getRootObject().getName()));
+			}
+			return Status.OK_STATUS;
+		}
+	};
+
+	private void clearCache()
+	{
+		clearAllTypes.set(true);
+		cacheEvictionJob.schedule();
+	}
+
+	/**
+	 * Evicts the types of the solutions that have the changed persists and of the solutions that have those as a module.
+	 */
+	private void persistsChanged(Collection<IPersist> changes)
+	{
+		if (changes instanceof PersistChangeBatch)
+		{
+			changedSolutions.addAll(((PersistChangeBatch)changes).getChangedSolutions());
+		}
+		else
+		{
+			for (IPersist persist : changes)
+			{
+				IRootObject rootObject = persist.getRootObject();
+				if (rootObject != null) changedSolutions.add(rootObject.getName());
+			}
+		}
+		cacheEvictionJob.schedule();
+	}
+
+	/**
+	 * Evicts the types of tables and the solution types that could use the tables, the java and web object spec types stay.
+	 */
+	private void dataSourcesChanged()
+	{
+		clearDataSourceTypes.set(true);
+		cacheEvictionJob.schedule();
+	}
+
+	private void clearBucket(String bucket)
+	{
+		clear(bucket);
+		buckets.remove(bucket);
+		bucketSolutions.remove(bucket);
+	}
+
+	private boolean dependsOn(String bucket, Set<String> solutions)
+	{
+		Set<String> dependencies = bucketSolutions.get(bucket);
+		return dependencies == null || !Collections.disjoint(dependencies, solutions);
+	}
+
+	/**
+	 * @return the solution and its modules, null if the solution is not active (then it is always evicted)
+	 */
+	private static Set<String> getSolutionDependencies(String solutionName)
+	{
+		FlattenedSolution fs = ElementResolver.getFlattenedSolution(solutionName);
+		if (fs == null) return null;
+		Set<String> dependencies = new HashSet<String>();
+		dependencies.add(solutionName);
+		Solution[] modules = fs.getModules();
+		if (modules != null)
+		{
+			for (Solution module : modules)
+			{
+				dependencies.add(module.getName());
+			}
+		}
+		return dependencies;
 	}
 
 	protected void initalize()
@@ -858,18 +974,7 @@ public class TypeCreator extends TypeCache
 
 						public void persistChanges(Collection<IPersist> changes)
 						{
-							Job job = new Job("clearing cache")
-							{
-
-								@Override
-								public IStatus run(IProgressMonitor monitor)
-								{
-									flushCache();
-									return Status.OK_STATUS;
-								}
-							};
-							job.setRule(ResourcesPlugin.getWorkspace().getRoot());
-							job.schedule();
+							persistsChanged(changes);
 						}
 					});
 					((ServoyModel)servoyModel).addSolutionMetaDataChangeListener(new ISolutionMetaDataChangeListener()
@@ -904,37 +1009,93 @@ public class TypeCreator extends TypeCache
 					@Override
 					public void ngPackagesChanged(CHANGE_REASON changeReason, boolean loadedPackagesAreTheSameAlthoughReferencingModulesChanged)
 					{
-						runClearCacheJob();
+						if (loadedPackagesAreTheSameAlthoughReferencingModulesChanged)
+						{
+							// the specs are the same, only the solution types can be different
+							clearSolutionTypes.set(true);
+							cacheEvictionJob.schedule();
+						}
+						else
+						{
+							// the web object spec types are in the static bucket
+							clearCache();
+						}
 					}
 
 				});
 
 				IServerManagerInternal serverManager = ApplicationServerRegistry.get().getServerManager();
+				IItemChangeListener<IColumn> columnListener = new IItemChangeListener<IColumn>()
+				{
+					public void itemChanged(IColumn column)
+					{
+						dataSourcesChanged();
+					}
+
+					public void itemChanged(Collection<IColumn> columns)
+					{
+						dataSourcesChanged();
+					}
+
+					public void itemCreated(IColumn column)
+					{
+						dataSourcesChanged();
+					}
+
+					public void itemRemoved(IColumn column)
+					{
+						dataSourcesChanged();
+					}
+				};
 				ITableListener tableListener = new ITableListener.TableListener()
 				{
 					@Override
 					public void tablesAdded(IServerInternal server, String[] tableNames)
 					{
-						runClearCacheJob();
+						dataSourcesChanged();
 					}
 
 					@Override
 					public void hiddenTableChanged(IServerInternal server, ITable table)
 					{
-						runClearCacheJob();
+						dataSourcesChanged();
 					}
 
 					@Override
 					public void tablesRemoved(IServerInternal server, ITable[] tables, boolean deleted)
 					{
-						runClearCacheJob();
+						dataSourcesChanged();
+					}
+
+					@Override
+					public void tableInitialized(Table t)
+					{
+						t.addIColumnListener(columnListener);
 					}
 				};
-				// add listeners to initial server list
+				// add listeners to initial server list and the tables that are already loaded
 				String[] array = serverManager.getServerNames(false, false, true, true);
 				for (String server_name : array)
 				{
-					((IServerInternal)serverManager.getServer(server_name, false, false)).addTableListener(tableListener);
+					IServerInternal server = (IServerInternal)serverManager.getServer(server_name, false, false);
+					server.addTableListener(tableListener);
+					if (server.getConfig().isEnabled() && server.isValid() && server.isTableListLoaded())
+					{
+						try
+						{
+							for (String tableName : server.getTableAndViewNames(false))
+							{
+								if (server.isTableLoaded(tableName))
+								{
+									server.getTable(tableName).addIColumnListener(columnListener);
+								}
+							}
+						}
+						catch (RepositoryException e)
+						{
+							ServoyLog.logError(e);
+						}
+					}
 				}
 				serverManager.addServerListener(new IServerListener()
 				{
@@ -2081,16 +2242,17 @@ public class TypeCreator extends TypeCache
 	}
 
 	private final ConcurrentMap<String, String> buckets = new ConcurrentHashMap<String, String>();
+	// solution bucket -> the solutions the types in it are created from
+	private final ConcurrentMap<String, Set<String>> bucketSolutions = new ConcurrentHashMap<String, Set<String>>();
 
 	/**
-	 *
+	 * Flushes all the solution and table buckets.
 	 */
 	protected void flushCache()
 	{
-		// TODO, maybe only flush solution buckets and SCOPE_TABLES only when a table change?
 		for (String bucket : buckets.keySet())
 		{
-			clear(bucket);
+			clearBucket(bucket);
 		}
 		relationCache.clear();
 	}
@@ -2105,6 +2267,7 @@ public class TypeCreator extends TypeCache
 		if (bucket != null && !bucket.equals(""))
 		{
 			buckets.put(bucket, bucket);
+			if (!SCOPE_TABLES.equals(bucket)) bucketSolutions.computeIfAbsent(bucket, TypeCreator::getSolutionDependencies);
 			type.setMetaType(ServoyDynamicMetaType.META_TYPE);
 //			Set<String> set = dynamicTypes.get(bucket);
 //			if (set == null)
@@ -2286,6 +2449,15 @@ public class TypeCreator extends TypeCache
 		String doc = docCache.get(cacheKey);
 		if (doc == null)
 		{
+			ClientSupport clientType = ServoyModelManager.getServoyModelManager().getServoyModel().getActiveSolutionClientType();
+			String storedKey = ScriptDocCache.createKey(scriptObjectClass, name, parameterTypes, clientType);
+			String storedDoc = ScriptDocCache.get(storedKey);
+			if (storedDoc != null)
+			{
+				docCache.putIfAbsent(cacheKey, storedDoc);
+				return storedDoc;
+			}
+
 			doc = name;
 			IScriptObject scriptObject = ScriptObjectRegistry.getScriptObjectForClass(scriptObjectClass);
 			if (scriptObject != null)
@@ -2294,7 +2466,6 @@ public class TypeCreator extends TypeCache
 				String sampleDoc = null;
 				IParameter[] parameters = null;
 				String returnText = null;
-				ClientSupport clientType = ServoyModelManager.getServoyModelManager().getServoyModel().getActiveSolutionClientType();
 
 				if (scriptObject instanceof ITypedScriptObject)
 				{
@@ -2394,12 +2565,22 @@ public class TypeCreator extends TypeCache
 					doc = Utils.stringReplace(docBuilder.toString(), "%%prefix%%", "");
 					doc = Utils.stringReplace(doc, "%%elementName%%", STANDARD_ELEMENT_NAME);
 				}
+				// the name is only a placeholder while the script object is not registered, that must not be reused by a next session
+				ScriptDocCache.put(storedKey, doc);
 			}
 			docCache.putIfAbsent(cacheKey, doc);
 		}
 		return doc;
 	}
 
+	/**
+	 * Stores the generated docs, so that they can be reused by a next session.
+	 */
+	public static void saveDocCache()
+	{
+		ScriptDocCache.save();
+	}
+
 	public static Class< ? > getReturnType(Object object)
 	{
 		Class< ? > returnType = null;
@@ -5323,23 +5504,6 @@ public class TypeCreator extends TypeCache
 	}
 
 
-	private void runClearCacheJob()
-	{
-		Job job = new Job("clearing cache")
-		{
-
-			@Override
-			public IStatus run(IProgressMonitor monitor)
-			{
-				clearCache();
-				return Status.OK_STATUS;
-			}
-		};
-		job.setRule(ResourcesPlugin.getWorkspace().getRoot());
-		job.schedule();
-	}
-
-
 	public static class TypeConfig
 	{
 		public final FlattenedSolution flattenedSolution;
@@ -0,0 +1,264 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.designer.editor.rfb;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Mirror of the components and layout containers that the (ng2) form editor of one {@link DesignerWebsocketSession} already has.
+ * The form data updates are turned into patches against this mirror: components and containers that did not change are left out,
+ * and of a component of which only model properties changed only those properties are sent (with "modelPatch" and "removedModel").
+ * <p>
+ * Every patch has a "version" and the "baseVersion" it applies to; when the editor sees a base version that is not the last version
+ * it got, it missed an update and loads the whole form again (which resets this mirror through getData).
+ */
+class DesignerModelMirror
+{
+	private static final String COMPONENT_PREFIX = "c:";
+	private static final String CONTAINER_PREFIX = "l:";
+
+	// the sections of the form data that only the old (angularjs) editor uses
+	private static final String[] OLD_EDITOR_SECTIONS = { "components", "componentSpecNames", "containers", "formcomponenttemplates" };
+
+	private final Map<String, JSONObject> sentElements = new HashMap<String, JSONObject>();
+	private long version;
+	private boolean ng2Editor;
+
+	/**
+	 * The editor got the whole form, nothing is known about what it has anymore.
+	 */
+	synchronized void reset(boolean ng2)
+	{
+		sentElements.clear();
+		ng2Editor = ng2;
+	}
+
+	/**
+	 * @return the form data update as patch against what the editor has, the mirror is updated to the new state
+	 */
+	synchronized String createPatch(String formDataUpdate)
+	{
+		if (!ng2Editor) return formDataUpdate;
+
+		JSONObject data = new JSONObject(formDataUpdate);
+		for (String section : OLD_EDITOR_SECTIONS)
+		{
+			data.remove(section);
+		}
+
+		removeDeleted(data.optJSONArray("deleted"), COMPONENT_PREFIX);
+		removeDeletedContainers(data.optJSONArray("deletedContainers"));
+
+		// form components update their children in ways that depend on the whole element, those are always sent completely
+		boolean formComponentsChanged = data.has("updatedFormComponentsDesignId") || data.has("formComponentsComponents");
+		JSONObject childParentMap = data.optJSONObject("childParentMap");
+
+		JSONArray components = data.optJSONArray("ng2components");
+		if (components != null)
+		{
+			JSONArray patchedComponents = new JSONArray();
+			for (int i = 0; i < components.length(); i++)
+			{
+				JSONObject component = components.getJSONObject(i);
+				String name = component.optString("name", null);
+				if (name == null)
+				{
+					patchedComponents.put(component);
+					continue;
+				}
+				JSONObject element = createElement(component, childParentMap, name);
+				JSONObject sent = sentElements.put(COMPONENT_PREFIX + name, element);
+				if (sent == null || formComponentsChanged)
+				{
+					patchedComponents.put(component);
+				}
+				else if (!isSame(sent, element))
+				{
+					patchedComponents.put(createModelPatch(sent, element, component));
+				}
+			}
+			putOrRemove(data, "ng2components", patchedComponents);
+		}
+
+		JSONArray containers = data.optJSONArray("ng2containers");
+		if (containers != null)
+		{
+			JSONArray patchedContainers = new JSONArray();
+			for (int i = 0; i < containers.length(); i++)
+			{
+				JSONObject container = containers.getJSONObject(i);
+				JSONObject attributes = container.optJSONObject("attributes");
+				String id = attributes != null ? attributes.optString("svy-id", null) : null;
+				if (id == null)
+				{
+					patchedContainers.put(container);
+					continue;
+				}
+				JSONObject element = createElement(container, childParentMap, id);
+				JSONObject sent = sentElements.put(CONTAINER_PREFIX + id, element);
+				if (sent == null || formComponentsChanged || !isSame(sent, element))
+				{
+					patchedContainers.put(container);
+				}
+			}
+			putOrRemove(data, "ng2containers", patchedContainers);
+		}
+
+		data.put("baseVersion", version);
+		data.put("version", ++version);
+		return data.toString();
+	}
+
+	private void removeDeleted(JSONArray deleted, String prefix)
+	{
+		if (deleted != null)
+		{
+			for (int i = 0; i < deleted.length(); i++)
+			{
+				sentElements.remove(prefix + deleted.optString(i));
+			}
+		}
+	}
+
+	/**
+	 * The editor also removes everything inside a deleted container, so the mirror drops all elements that have a deleted container as ancestor.
+	 */
+	private void removeDeletedContainers(JSONArray deleted)
+	{
+		if (deleted == null || deleted.length() == 0) return;
+
+		Set<String> deletedIds = new HashSet<String>();
+		for (int i = 0; i < deleted.length(); i++)
+		{
+			deletedIds.add(deleted.optString(i));
+		}
+		// first find them all, the parent chains go through the deleted containers
+		List<String> removed = new ArrayList<String>();
+		for (Map.Entry<String, JSONObject> entry : sentElements.entrySet())
+		{
+			String key = entry.getKey();
+			if ((key.startsWith(CONTAINER_PREFIX) && deletedIds.contains(key.substring(CONTAINER_PREFIX.length()))) ||
+				hasDeletedAncestor(entry.getValue(), deletedIds))
+			{
+				removed.add(key);
+			}
+		}
+		for (String key : removed)
+		{
+			sentElements.remove(key);
+		}
+	}
+
+	private boolean hasDeletedAncestor(JSONObject element, Set<String> deletedIds)
+	{
+		Set<String> visited = new HashSet<String>();
+		String parentId = getParentId(element);
+		while (parentId != null && visited.add(parentId))
+		{
+			if (deletedIds.contains(parentId)) return true;
+			JSONObject parent = sentElements.get(CONTAINER_PREFIX + parentId);
+			parentId = parent != null ? getParentId(parent) : null;
+		}
+		return false;
+	}
+
+	private static String getParentId(JSONObject element)
+	{
+		JSONObject parent = element.optJSONObject("parent");
+		return parent != null ? parent.optString("uuid", null) : null;
+	}
+
+	/**
+	 * The element as it is in the editor: the json of the element and its parent.
+	 */
+	private static JSONObject createElement(JSONObject json, JSONObject childParentMap, String id)
+	{
+		JSONObject element = new JSONObject();
+		element.put("json", json);
+		if (childParentMap != null && childParentMap.has(id)) element.put("parent", childParentMap.get(id));
+		return element;
+	}
+
+	/**
+	 * @return the component with only the changed model properties, or the component itself when more than the model changed
+	 */
+	private static JSONObject createModelPatch(JSONObject sent, JSONObject element, JSONObject component)
+	{
+		JSONObject sentComponent = sent.getJSONObject("json");
+		JSONObject sentModel = sentComponent.optJSONObject("model");
+		JSONObject model = component.optJSONObject("model");
+		JSONObject patch = withoutModel(component);
+		if (sentModel == null || model == null || !isSame(sent.opt("parent"), element.opt("parent")) || !isSame(withoutModel(sentComponent), patch))
+		{
+			return component;
+		}
+
+		JSONObject changedModel = new JSONObject();
+		Iterator<String> keys = model.keys();
+		while (keys.hasNext())
+		{
+			String key = keys.next();
+			if (!sentModel.has(key) || !isSame(sentModel.get(key), model.get(key))) changedModel.put(key, model.get(key));
+		}
+		JSONArray removedModel = new JSONArray();
+		keys = sentModel.keys();
+		while (keys.hasNext())
+		{
+			String key = keys.next();
+			if (!model.has(key)) removedModel.put(key);
+		}
+
+		patch.put("model", changedModel);
+		patch.put("modelPatch", true);
+		patch.put("removedModel", removedModel);
+		return patch;
+	}
+
+	private static JSONObject withoutModel(JSONObject component)
+	{
+		JSONObject copy = new JSONObject();
+		Iterator<String> keys = component.keys();
+		while (keys.hasNext())
+		{
+			String key = keys.next();
+			if (!"model".equals(key)) copy.put(key, component.get(key));
+		}
+		return copy;
+	}
+
+	private static boolean isSame(Object o1, Object o2)
+	{
+		if (o1 == null || o2 == null) return o1 == o2;
+		return o1.toString().equals(o2.toString());
+	}
+
+	private static void putOrRemove(JSONObject data, String key, JSONArray array)
+	{
+		if (array.length() > 0) data.put(key, array);
+		else data.remove(key);
+	}
+}
@@ -116,6 +116,8 @@ public class DesignerWebsocketSession extends BaseWebsocketSession implements IS
 
 	private final Set<String> clientSideSpecs = new HashSet<>();
 
+	private final DesignerModelMirror modelMirror = new DesignerModelMirror();
+
 	public DesignerWebsocketSession(WebsocketSessionKey sessionKey, BaseVisualFormEditor editor)
 	{
 		super(sessionKey);
@@ -199,6 +201,7 @@ public class DesignerWebsocketSession extends BaseWebsocketSession implements IS
 			case "getData" :
 			{
 				boolean isNG2 = args.optBoolean("ng2", false);
+				modelMirror.reset(isNG2);
 				Collection<IFormElement> baseComponents = new ArrayList<IFormElement>(wrapper.getBaseComponents());
 
 				// send any client-side-types that the form designer will neeed for this form's components
@@ -869,7 +872,7 @@ public class DesignerWebsocketSession extends BaseWebsocketSession implements IS
 		}
 
 		writer.endObject();
-		return writer.toString();
+		return modelMirror.createPatch(writer.toString());
 	}
 
 	private boolean checkFormComponents(Set<String> updatedFormComponentsDesignId, Set<IFormElement> formComponentsComponents, FormElement formElement,
@@ -1101,6 +1104,7 @@ public class DesignerWebsocketSession extends BaseWebsocketSession implements IS
 	public void handleBrowserWindowRefresh()
 	{
 		clientSideSpecs.clear();
+		modelMirror.reset(false);
 	}
 
 	@Override
@@ -41,6 +41,7 @@ public abstract class AbstractArgumentChest implements IArgumentChest
 	private boolean exportUsingDbiFileInfoOnly = false;
 	private boolean ignoreBuildErrors = false;
 	private boolean skipBuild = false;
+	private boolean buildProjectsOnce = false;
 	protected String MANDATORY_ARGS_INDENT = "   ";
 
 
@@ -65,6 +66,7 @@ public abstract class AbstractArgumentChest implements IArgumentChest
 			if (argsMap.containsKey("dbi") || argsMap.containsKey("dbd")) exportUsingDbiFileInfoOnly = true;
 			if (argsMap.containsKey("ie")) ignoreBuildErrors = true;
 			if (argsMap.containsKey("sb")) skipBuild = true;
+			if (argsMap.containsKey("ci")) buildProjectsOnce = true;
 
 			if (!mustShowHelp) parseArguments(argsMap);
 
@@ -200,6 +202,9 @@ public abstract class AbstractArgumentChest implements IArgumentChest
 			"        -ie ignore build errors.  CAUTION! the use of this flag is discouraged; it can cause\n" +
 			"             invalid solutions to be exported.\n" + "        -sb skip build. No build markers will be generated. This can greatly decrease\n" +
 			"             export time. CAUTION! the use of this flag is discouraged;\n" + "             it can cause invalid solutions to be exported.\n" +
+			"        -ci build each module only once when exporting multiple solutions. Modules that are\n" +
+			"             shared by the solutions are built and checked for markers in the context of the\n" +
+			"             first exported solution that uses them.\n" +
 			getHelpMessageDbi();
 		// @formatter:on
 	}
@@ -313,4 +318,10 @@ public abstract class AbstractArgumentChest implements IArgumentChest
 		return skipBuild;
 	}
 
+	@Override
+	public boolean shouldBuildProjectsOnce()
+	{
+		return buildProjectsOnce;
+	}
+
 }
\ No newline at end of file
@@ -20,7 +20,9 @@ package com.servoy.eclipse.exporter.apps.common;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.DirectoryFileFilter;
@@ -31,6 +33,7 @@ import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspaceDescription;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IExtension;
@@ -87,6 +90,9 @@ public abstract class AbstractWorkspaceExporter<T extends IArgumentChest> implem
 
 	private boolean initialAutoBuild = false;
 
+	// the projects that are already built for a previous solution of this export, when projects must be built only once
+	private final Set<String> builtProjects = new HashSet<String>();
+
 	public Object start(IApplicationContext context)
 	{
 		Activator.getDefault().addBundleStopListener(this);
@@ -319,7 +325,14 @@ public abstract class AbstractWorkspaceExporter<T extends IArgumentChest> implem
 							else
 							{
 								outputExtra("Checking for problem markers");
-								sm.buildActiveProjects(null, true);
+								if (configuration.shouldBuildProjectsOnce())
+								{
+									buildActiveProjectsOnce(sm, modules);
+								}
+								else
+								{
+									sm.buildActiveProjects(null, true);
+								}
 
 								checkProjectMarkers(modules, errors, warnings, configuration);
 
@@ -412,6 +425,50 @@ public abstract class AbstractWorkspaceExporter<T extends IArgumentChest> implem
 	}
 
 
+	/**
+	 * Like {@link ExportServoyModel#buildActiveProjects(org.eclipse.core.runtime.IProgressMonitor, boolean)}, but only builds the projects that were
+	 * not built for a previous solution; the markers of those are kept, so the shared modules are checked without building them again.
+	 */
+	private void buildActiveProjectsOnce(ExportServoyModel sm, ServoyProject[] modules)
+	{
+		if (builtProjects.isEmpty())
+		{
+			ServoyBuilder.deleteAllBuilderMarkers();
+		}
+		List<IProject> projects = new ArrayList<IProject>();
+		for (ServoyProject module : modules)
+		{
+			if (module.getProject() != null) projects.add(module.getProject());
+		}
+		if (sm.getActiveResourcesProject() != null) projects.add(sm.getActiveResourcesProject().getProject());
+
+		for (IProject project : projects)
+		{
+			if (mustStop) return;
+			if (!builtProjects.add(project.getName()))
+			{
+				outputExtra("Project '" + project.getName() + "' is already built for a previous solution.");
+				continue;
+			}
+			try
+			{
+				if (sm.getActiveResourcesProject() != null && project.equals(sm.getActiveResourcesProject().getProject()))
+				{
+					project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+				}
+				else
+				{
+					project.build(IncrementalProjectBuilder.FULL_BUILD, ServoyBuilder.BUILDER_ID, null, null);
+				}
+			}
+			catch (CoreException e)
+			{
+				ServoyLog.logError(e);
+				outputError("Building project '" + project.getName() + "' encountered a problem. Check workspace log.");
+			}
+		}
+	}
+
 	protected void importExistingAndOpenClosedProjects(File sourceFolder, IWorkspaceRoot workspaceRoot, List<IProject> importedProjects,
 		List<IProject> existingClosedProjects)
 	{
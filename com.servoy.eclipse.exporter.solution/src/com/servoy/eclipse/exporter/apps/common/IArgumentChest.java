@@ -52,4 +52,9 @@ public interface IArgumentChest
 	public String getExportFilePath();
 
 	public boolean skipBuild();
+
+	/**
+	 * @return true if each project should be built only once when exporting more solutions, so modules that the solutions share are validated once.
+	 */
+	public boolean shouldBuildProjectsOnce();
 }
\ No newline at end of file
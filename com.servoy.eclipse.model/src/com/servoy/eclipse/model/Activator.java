@@ -27,6 +27,7 @@ import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.dltk.javascript.parser.JavascriptParserPreferences;
 import org.osgi.framework.BundleContext;
 
+import com.servoy.eclipse.model.repository.SolutionDeserializer;
 import com.servoy.eclipse.model.util.ServoyLog;
 import com.servoy.j2db.IApplication;
 
@@ -84,6 +85,7 @@ public class Activator extends Plugin
 	@Override
 	public void stop(BundleContext context) throws Exception
 	{
+		SolutionDeserializer.shutdownParsePool();
 		plugin = null;
 		super.stop(context);
 	}
@@ -25,6 +25,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentMap;
 
 import com.servoy.base.persistence.IBaseColumn;
+import com.servoy.eclipse.model.repository.DataModelManager;
 import com.servoy.eclipse.model.util.TableDefinitionUtils;
 import com.servoy.j2db.persistence.Column;
 import com.servoy.j2db.persistence.IServer;
@@ -103,6 +104,12 @@ public class DBITableLoader implements ITableLoader
 		IServerInfoManager[] serverInfoManagers = sm.getServerInfoManagers();
 		if (serverInfoManagers != null && serverInfoManagers.length > 0)
 		{
+			if (serverInfoManagers[0] instanceof DataModelManager)
+			{
+				// reads all the dbi files of the server at once
+				((DataModelManager)serverInfoManagers[0]).loadAllColumnInfo(tables, server);
+				return;
+			}
 			for (Table table : tables)
 			{
 				serverInfoManagers[0].loadAllColumnInfo(table);
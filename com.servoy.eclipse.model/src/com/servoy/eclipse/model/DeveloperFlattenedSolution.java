@@ -19,18 +19,22 @@ package com.servoy.eclipse.model;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.servoy.eclipse.model.builder.ScriptingUtils;
 import com.servoy.j2db.FlattenedSolution;
 import com.servoy.j2db.ISolutionModelPersistIndex;
 import com.servoy.j2db.persistence.EnumDataProvider;
+import com.servoy.j2db.persistence.FlattenedForm;
 import com.servoy.j2db.persistence.Form;
 import com.servoy.j2db.persistence.IDataProvider;
 import com.servoy.j2db.persistence.IPersist;
+import com.servoy.j2db.persistence.IRepository;
 import com.servoy.j2db.persistence.IRootObject;
 import com.servoy.j2db.persistence.IServer;
 import com.servoy.j2db.persistence.ITable;
@@ -53,9 +57,56 @@ import com.servoy.j2db.util.Utils;
  */
 public class DeveloperFlattenedSolution extends FlattenedSolution
 {
+	private final boolean cacheFlattenedForms;
+	// flattened forms per form, kept here so that ServoyModel can flush only the forms that are changed, see flushFlattenedForms()
+	private final Map<Form, Form> flattenedForms = new ConcurrentHashMap<Form, Form>();
+
 	public DeveloperFlattenedSolution(boolean cacheFlattenedForms)
 	{
 		super(cacheFlattenedForms);
+		this.cacheFlattenedForms = cacheFlattenedForms;
+	}
+
+	@Override
+	public Form getFlattenedForm(IPersist persist)
+	{
+		return getFlattenedForm(persist, true);
+	}
+
+	@Override
+	public Form getFlattenedForm(IPersist persist, boolean useCached)
+	{
+		IPersist form = persist != null ? persist.getAncestor(IRepository.FORMS) : null;
+		if (!useCached || !cacheFlattenedForms || !(form instanceof Form) || form instanceof FlattenedForm)
+		{
+			return super.getFlattenedForm(persist, useCached);
+		}
+		Form flattenedForm = flattenedForms.get(form);
+		if (flattenedForm == null)
+		{
+			flattenedForm = super.getFlattenedForm(form, false);
+			if (flattenedForm != null) flattenedForms.put((Form)form, flattenedForm);
+		}
+		return flattenedForm;
+	}
+
+	@Override
+	public void flushFlattenedFormCache()
+	{
+		flattenedForms.clear();
+		super.flushFlattenedFormCache();
+	}
+
+	/**
+	 * Flushes the flattened forms of only the given forms, the caller must also give the forms that extend or embed them.
+	 * Changes to the form hierarchy itself need a full {@link #flushFlattenedFormCache()}.
+	 */
+	public void flushFlattenedForms(Collection<Form> forms)
+	{
+		for (Form form : forms)
+		{
+			flattenedForms.remove(form);
+		}
 	}
 
 
@@ -200,12 +251,12 @@ public class DeveloperFlattenedSolution extends FlattenedSolution
 		return ((DeveloperPersistIndex)getIndex()).getFormsByNamedFoundset(namedFoundset);
 	}
 
-	public Map<UUID, List<IPersist>> getDuplicateUUIDList()
+	public Map<UUID, ? extends List<IPersist>> getDuplicateUUIDList()
 	{
 		return ((DeveloperPersistIndex)getIndex()).getDuplicateUUIDList();
 	}
 
-	public Map<String, Map<String, List<IPersist>>> getDuplicateNamesList()
+	public Map<String, ? extends Map<String, ? extends List<IPersist>>> getDuplicateNamesList()
 	{
 		return ((DeveloperPersistIndex)getIndex()).getDuplicateNamesList();
 	}
@@ -17,9 +17,7 @@
 
 package com.servoy.eclipse.model;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +26,8 @@ import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.json.JSONObject;
 
@@ -57,17 +57,20 @@ import com.servoy.j2db.util.UUID;
 import com.servoy.j2db.util.Utils;
 
 /**
+ * The persist index of the developer, it is used at the same time by the builder, the editors and the solution explorer.
+ * All caches are concurrent and kept up to date by the change events, so a lookup never blocks and never needs a revisit of the solutions.
+ *
  * @author jcompagner
  * @since 8.4
  *
  */
 public class DeveloperPersistIndex extends PersistIndex implements ISolutionModelPersistIndex
 {
-	private final Map<String, Set<Form>> formCacheByDataSource = new HashMap<String, Set<Form>>();
-	private final ConcurrentMap<String, List<Form>> formCacheByNamedFoundset = new ConcurrentHashMap<>();
-	private final Map<UUID, List<IPersist>> duplicatesUUIDs = new HashMap<UUID, List<IPersist>>();
-	private final Map<String, Map<String, List<IPersist>>> duplicateNames = new HashMap<String, Map<String, List<IPersist>>>();
-	private final Map<Form, String> formToDataSource = new HashMap<>();
+	private final ConcurrentMap<String, Set<Form>> formCacheByDataSource = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, CopyOnWriteArrayList<Form>> formCacheByNamedFoundset = new ConcurrentHashMap<>();
+	private final ConcurrentMap<UUID, CopyOnWriteArrayList<IPersist>> duplicatesUUIDs = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ConcurrentMap<String, CopyOnWriteArrayList<IPersist>>> duplicateNames = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Form, String> formToDataSource = new ConcurrentHashMap<>();
 	private static final String ALL_FORMS = "";
 
 	public DeveloperPersistIndex(List<Solution> solutions)
@@ -82,42 +85,25 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 
 	private void createDatasources()
 	{
-		final Set<Form> allforms = new TreeSet<Form>(NameComparator.INSTANCE);
+		// this is the only full visit, after this the caches are updated by the change events
+		final Set<Form> allforms = getFormsByDatasource(null, false);
 
 		visit((persist) -> {
 			if (persist instanceof Form)
 			{
 				Form f = (Form)persist;
 				allforms.add(f);
-				formToDataSource.put(f, f.getDataSource() != null ? f.getDataSource() : Form.DATASOURCE_NONE);
+				String ds = f.getDataSource() != null ? f.getDataSource() : Form.DATASOURCE_NONE;
+				formToDataSource.put(f, ds);
+				getFormsByDatasource(ds, false).add(f);
 
-				String ds = f.getDataSource();
-				if (ds == null) ds = Form.DATASOURCE_NONE;
-				Set<Form> set = formCacheByDataSource.get(ds);
-				if (set == null)
+				if (f.getNamedFoundSet() != null)
 				{
-					set = new TreeSet<>(NameComparator.INSTANCE);
-					formCacheByDataSource.put(ds, set);
-				}
-				set.add(f);
-
-				String namedFoundset = f.getNamedFoundSet();
-				if (namedFoundset != null)
-				{
-					List<Form> list = formCacheByNamedFoundset.get(namedFoundset);
-					if (list == null)
-					{
-						list = new ArrayList<Form>();
-						formCacheByNamedFoundset.put(namedFoundset, list);
-					}
-					list.add(f);
+					getFormsByNamedFoundsetImpl(f.getNamedFoundSet(), true).add(f);
 				}
 			}
 			return IPersistVisitor.CONTINUE_TRAVERSAL;
 		});
-
-		formCacheByDataSource.put(ALL_FORMS, allforms);
-
 	}
 
 	@Override
@@ -145,9 +131,9 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 	{
 		String oldDataSource = formToDataSource.get(form);
 		String newDataSource = form.getDataSource() != null ? form.getDataSource() : Form.DATASOURCE_NONE;
-		if (oldDataSource != null && !oldDataSource.equals(newDataSource) || oldDataSource == null && newDataSource != null)
+		if (!newDataSource.equals(oldDataSource))
 		{
-			getFormsByDatasource(oldDataSource, false).remove(form);
+			if (oldDataSource != null) getFormsByDatasource(oldDataSource, false).remove(form);
 			getFormsByDatasource(newDataSource, false).add(form);
 			formToDataSource.put(form, newDataSource);
 
@@ -156,36 +142,27 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 				ServoyModelFinder.getServoyModel().fireFormComponentChanged();
 			}
 		}
-		for (String namedFoundset : formCacheByNamedFoundset.keySet())
+		for (List<Form> forms : formCacheByNamedFoundset.values())
 		{
-			if (formCacheByNamedFoundset.get(namedFoundset).remove(form))
+			if (forms.remove(form))
 			{
 				break;
 			}
 		}
 		if (form.getNamedFoundSet() != null)
 		{
-			getFormsByNamedFoundsetImpl(form.getNamedFoundSet(), true).add(form);
+			getFormsByNamedFoundsetImpl(form.getNamedFoundSet(), true).addIfAbsent(form);
 		}
 	}
 
 	Set<Form> getFormsByDatasource(String datasource, boolean includeNone)
 	{
-		String ds = datasource == null ? ALL_FORMS : datasource;
-		Set<Form> datasourceSet = formCacheByDataSource.get(ds);
-		if (datasourceSet == null)
-		{
-			datasourceSet = fillSet(datasource);
-			formCacheByDataSource.put(ds, datasourceSet);
-		}
+		// all forms are indexed when this index is created, so a datasource that is not in the cache yet has no forms
+		Set<Form> datasourceSet = formCacheByDataSource.computeIfAbsent(datasource == null ? ALL_FORMS : datasource,
+			ds -> new ConcurrentSkipListSet<Form>(NameComparator.INSTANCE));
 		if (includeNone)
 		{
-			Set<Form> datasourceNoneSet = formCacheByDataSource.get(Form.DATASOURCE_NONE);
-			if (datasourceNoneSet == null)
-			{
-				datasourceNoneSet = fillSet(Form.DATASOURCE_NONE);
-				formCacheByDataSource.put(Form.DATASOURCE_NONE, datasourceNoneSet);
-			}
+			Set<Form> datasourceNoneSet = getFormsByDatasource(Form.DATASOURCE_NONE, false);
 			Set<Form> result = new TreeSet<Form>(NameComparator.INSTANCE);
 			result.addAll(datasourceSet);
 			result.addAll(datasourceNoneSet);
@@ -201,40 +178,16 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 		return Collections.unmodifiableList(list);
 	}
 
-	private List<Form> getFormsByNamedFoundsetImpl(String namedFoundset, boolean create)
+	private CopyOnWriteArrayList<Form> getFormsByNamedFoundsetImpl(String namedFoundset, boolean create)
 	{
 		if (namedFoundset != null)
 		{
-			List<Form> namedFoundsetSet = formCacheByNamedFoundset.get(namedFoundset);
-			if (namedFoundsetSet == null && create)
-			{
-				namedFoundsetSet = new ArrayList<Form>(6);
-				formCacheByNamedFoundset.put(namedFoundset, namedFoundsetSet);
-			}
-			return namedFoundsetSet;
+			return create ? formCacheByNamedFoundset.computeIfAbsent(namedFoundset, key -> new CopyOnWriteArrayList<Form>())
+				: formCacheByNamedFoundset.get(namedFoundset);
 		}
 		return null;
 	}
 
-	/**
-	 * @param datasource
-	 * @return
-	 */
-	private Set<Form> fillSet(String datasource)
-	{
-		final Set<Form> result = new TreeSet<Form>(NameComparator.INSTANCE);
-		visit((persist) -> {
-			if (persist instanceof Form && Utils.equalObjects(datasource, ((Form)persist).getDataSource()))
-			{
-				Form f = (Form)persist;
-				result.add(f);
-				formToDataSource.put(f, f.getDataSource() != null ? f.getDataSource() : Form.DATASOURCE_NONE);
-			}
-			return IPersistVisitor.CONTINUE_TRAVERSAL_BUT_DONT_GO_DEEPER;
-		});
-		return result;
-	}
-
 	@Override
 	public void itemCreated(IPersist persist)
 	{
@@ -248,7 +201,7 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 			getFormsByDatasource(ds, false).add(form);
 			if (form.getNamedFoundSet() != null)
 			{
-				getFormsByNamedFoundsetImpl(form.getNamedFoundSet(), true).add(form);
+				getFormsByNamedFoundsetImpl(form.getNamedFoundSet(), true).addIfAbsent(form);
 			}
 		}
 	}
@@ -261,8 +214,8 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 		{
 			Form form = (Form)persist;
 			getFormsByDatasource(null, false).remove(form);
-			formToDataSource.remove(form);
-			getFormsByDatasource(form.getDataSource() != null ? form.getDataSource() : Form.DATASOURCE_NONE, false).remove(form);
+			String ds = formToDataSource.remove(form);
+			getFormsByDatasource(ds != null ? ds : form.getDataSource() != null ? form.getDataSource() : Form.DATASOURCE_NONE, false).remove(form);
 			if (form.getNamedFoundSet() != null)
 			{
 				List<Form> lst = getFormsByNamedFoundsetImpl(form.getNamedFoundSet(), false);
@@ -273,16 +226,13 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 				ServoyModelFinder.getServoyModel().fireFormComponentChanged();
 			}
 		}
-		if (duplicatesUUIDs.containsKey(persist.getUUID()))
+		CopyOnWriteArrayList<IPersist> duplicates = duplicatesUUIDs.get(persist.getUUID());
+		if (duplicates != null)
 		{
-			List<IPersist> duplicates = duplicatesUUIDs.get(persist.getUUID());
-			if (duplicates != null && duplicates.contains(persist))
+			duplicates.remove(persist);
+			if (duplicates.size() <= 1)
 			{
-				duplicates.remove(persist);
-			}
-			if (duplicates == null || duplicates.size() <= 1)
-			{
-				duplicatesUUIDs.remove(persist.getUUID());
+				duplicatesUUIDs.remove(persist.getUUID(), duplicates);
 				if (duplicates.size() == 1 && !uuidToPersist.containsKey(persist.getUUID().toString()))
 				{
 					// fix the cache, put the other one in
@@ -304,17 +254,11 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 			{
 				if (isDifferentPersist(existingPersist, persist))
 				{
-					List<IPersist> duplicates = duplicatesUUIDs.get(persist.getUUID());
-					if (duplicates == null)
-					{
-						duplicates = new ArrayList<IPersist>();
-						duplicatesUUIDs.put(persist.getUUID(), duplicates);
-						duplicates.add(persist);
-						duplicates.add(existingPersist);
-					}
-					else if (duplicates.stream().allMatch(duplicate -> this.isDifferentPersist(duplicate, persist)))
+					CopyOnWriteArrayList<IPersist> duplicates = duplicatesUUIDs.computeIfAbsent(persist.getUUID(),
+						uuid -> new CopyOnWriteArrayList<IPersist>(new IPersist[] { persist, existingPersist }));
+					if (duplicates.stream().allMatch(duplicate -> this.isDifferentPersist(duplicate, persist)))
 					{
-						duplicates.add(persist);
+						duplicates.addIfAbsent(persist);
 					}
 				}
 			}
@@ -386,32 +330,27 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 		return false;
 	}
 
-	public Map<UUID, List<IPersist>> getDuplicateUUIDList()
+	public Map<UUID, ? extends List<IPersist>> getDuplicateUUIDList()
 	{
 		// check if the uuids where not changed in the mean time..
-		Iterator<Entry<UUID, List<IPersist>>> mapIterator = duplicatesUUIDs.entrySet().iterator();
+		Iterator<Entry<UUID, CopyOnWriteArrayList<IPersist>>> mapIterator = duplicatesUUIDs.entrySet().iterator();
 		while (mapIterator.hasNext())
 		{
-			Entry<UUID, List<IPersist>> entry = mapIterator.next();
-			Iterator<IPersist> listIterator = entry.getValue().iterator();
-			while (listIterator.hasNext())
-			{
-				IPersist persist = listIterator.next();
+			Entry<UUID, CopyOnWriteArrayList<IPersist>> entry = mapIterator.next();
+			entry.getValue().removeIf(persist -> {
 				if (!persist.getUUID().equals(entry.getKey()))
 				{
-					listIterator.remove();
+					return true;
 				}
 				if (persist instanceof WebCustomType)
 				{
 					// many are generated, not sure if the one we have is up to date, check the model
 					JSONObject fullJSONInFrmFile = WebObjectImpl.getFullJSONInFrmFile((WebCustomType)persist, false);
-					if (fullJSONInFrmFile != null && fullJSONInFrmFile.has(IChildWebObject.UUID_KEY) &&
-						!Utils.equalObjects(entry.getKey(), fullJSONInFrmFile.get(IChildWebObject.UUID_KEY)))
-					{
-						listIterator.remove();
-					}
+					return fullJSONInFrmFile != null && fullJSONInFrmFile.has(IChildWebObject.UUID_KEY) &&
+						!Utils.equalObjects(entry.getKey(), fullJSONInFrmFile.get(IChildWebObject.UUID_KEY));
 				}
-			}
+				return false;
+			});
 			if (entry.getValue().size() <= 1)
 			{
 				mapIterator.remove();
@@ -440,24 +379,19 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 			IPersist duplicatePersist = cache.get(name);
 			if (duplicatePersist != null && !duplicatePersist.equals(persist))
 			{
-				Map<String, List<IPersist>> duplicates = duplicateNames.get(name);
-				if (duplicates == null)
-				{
-					duplicates = new HashMap<String, List<IPersist>>();
-					duplicateNames.put(name, duplicates);
-				}
-				List<IPersist> duplicatePersists = duplicates.get(cacheName);
-				if (duplicatePersists == null)
-				{
-					duplicatePersists = new ArrayList<>();
-					duplicates.put(cacheName, duplicatePersists);
-				}
-				if (!duplicatePersists.contains(persist)) duplicatePersists.add(persist);
-				if (!duplicatePersists.contains(duplicatePersist)) duplicatePersists.add(duplicatePersist);
+				CopyOnWriteArrayList<IPersist> duplicatePersists = getDuplicateNamePersists(name, cacheName);
+				duplicatePersists.addIfAbsent(persist);
+				duplicatePersists.addIfAbsent(duplicatePersist);
 			}
 		}
 	}
 
+	private CopyOnWriteArrayList<IPersist> getDuplicateNamePersists(String name, String cacheName)
+	{
+		return duplicateNames.computeIfAbsent(name, key -> new ConcurrentHashMap<String, CopyOnWriteArrayList<IPersist>>())
+			.computeIfAbsent(cacheName, key -> new CopyOnWriteArrayList<IPersist>());
+	}
+
 	@Override
 	protected void testNameCache(IPersist item, EventType type)
 	{
@@ -472,30 +406,18 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 						ConcurrentMap<String, IPersist> classToList = nameToPersist.get(item.getClass());
 						if (classToList != null && classToList.containsKey(name))
 						{
-							Map<String, List<IPersist>> duplicates = duplicateNames.get(name);
-							if (duplicates == null)
-							{
-								duplicates = new HashMap<String, List<IPersist>>();
-								duplicateNames.put(name, duplicates);
-							}
-							List<IPersist> duplicatePersists = duplicates.get(item.getClass().getName());
-							if (duplicatePersists == null)
-							{
-								duplicatePersists = new ArrayList<>();
-								duplicates.put(item.getClass().getName(), duplicatePersists);
-							}
-							duplicatePersists.add(item);
+							CopyOnWriteArrayList<IPersist> duplicatePersists = getDuplicateNamePersists(name, item.getClass().getName());
+							duplicatePersists.addIfAbsent(item);
 							IPersist duplicatePersist = classToList.get(name);
-							if (!duplicatePersists.contains(duplicatePersist)) duplicatePersists.add(duplicatePersist);
+							if (duplicatePersist != null) duplicatePersists.addIfAbsent(duplicatePersist);
 						}
 						break;
 					case REMOVED :
-						if (duplicateNames.containsKey(name))
 						{
-							Map<String, List<IPersist>> duplicates = duplicateNames.get(name);
+							ConcurrentMap<String, CopyOnWriteArrayList<IPersist>> duplicates = duplicateNames.get(name);
 							if (duplicates != null)
 							{
-								List<IPersist> duplicatePersists = duplicates.get(item.getClass().getName());
+								CopyOnWriteArrayList<IPersist> duplicatePersists = duplicates.get(item.getClass().getName());
 								if (duplicatePersists != null)
 								{
 									duplicatePersists.remove(item);
@@ -506,21 +428,20 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 								}
 								if (duplicates.size() == 0)
 								{
-									duplicateNames.remove(name);
+									duplicateNames.remove(name, duplicates);
 								}
 							}
 						}
 						break;
 					case UPDATED :
 						//maybe new name and duplicate is fixed?
-						for (String oldName : duplicateNames.keySet())
+						for (Entry<String, ConcurrentMap<String, CopyOnWriteArrayList<IPersist>>> entry : duplicateNames.entrySet())
 						{
-							Map<String, List<IPersist>> duplicates = duplicateNames.get(oldName);
-							List<IPersist> duplicatePersists = duplicates.get(item.getClass().getName());
-							if (duplicatePersists != null && duplicatePersists.contains(item) && !oldName.equals(name))
+							ConcurrentMap<String, CopyOnWriteArrayList<IPersist>> duplicates = entry.getValue();
+							CopyOnWriteArrayList<IPersist> duplicatePersists = duplicates.get(item.getClass().getName());
+							if (duplicatePersists != null && !entry.getKey().equals(name) && duplicatePersists.remove(item))
 							{
-								duplicatePersists.remove(item);
-								if (duplicatePersists != null && duplicatePersists.size() <= 1)
+								if (duplicatePersists.size() <= 1)
 								{
 									duplicates.remove(item.getClass().getName());
 								}
@@ -531,21 +452,10 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 						ConcurrentMap<String, IPersist> classToList2 = nameToPersist.get(item.getClass());
 						if (classToList2 != null && classToList2.containsKey(name))
 						{
-							Map<String, List<IPersist>> duplicates = duplicateNames.get(name);
-							if (duplicates == null)
-							{
-								duplicates = new HashMap<String, List<IPersist>>();
-								duplicateNames.put(name, duplicates);
-							}
-							List<IPersist> duplicatePersists = duplicates.get(item.getClass().getName());
-							if (duplicatePersists == null)
-							{
-								duplicatePersists = new ArrayList<>();
-								duplicates.put(item.getClass().getName(), duplicatePersists);
-							}
-							if (!duplicatePersists.contains(item)) duplicatePersists.add(item);
+							CopyOnWriteArrayList<IPersist> duplicatePersists = getDuplicateNamePersists(name, item.getClass().getName());
+							duplicatePersists.addIfAbsent(item);
 							IPersist duplicatePersist = classToList2.get(name);
-							if (!duplicatePersists.contains(duplicatePersist)) duplicatePersists.add(duplicatePersist);
+							if (duplicatePersist != null) duplicatePersists.addIfAbsent(duplicatePersist);
 						}
 				}
 			}
@@ -563,18 +473,10 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 			if (ds != null)
 			{
 				// remove all items of the datasource, it will be recreated
-				for (String name : duplicateNames.keySet())
+				final String datasource = ds;
+				for (ConcurrentMap<String, CopyOnWriteArrayList<IPersist>> duplicates : duplicateNames.values())
 				{
-					Map<String, List<IPersist>> duplicates = duplicateNames.get(name);
-					Iterator<String> it = duplicates.keySet().iterator();
-					while (it.hasNext())
-					{
-						String className = it.next();
-						if (className.startsWith(ds))
-						{
-							it.remove();
-						}
-					}
+					duplicates.keySet().removeIf(className -> className.startsWith(datasource));
 				}
 			}
 		}
@@ -603,22 +505,13 @@ public class DeveloperPersistIndex extends PersistIndex implements ISolutionMode
 	protected void cleanScopeCache()
 	{
 		super.cleanScopeCache();
-		for (String name : duplicateNames.keySet())
+		for (ConcurrentMap<String, CopyOnWriteArrayList<IPersist>> duplicates : duplicateNames.values())
 		{
-			Map<String, List<IPersist>> duplicates = duplicateNames.get(name);
-			Iterator<String> it = duplicates.keySet().iterator();
-			while (it.hasNext())
-			{
-				String className = it.next();
-				if (className.startsWith(ISupportScope.class.getName()))
-				{
-					it.remove();
-				}
-			}
+			duplicates.keySet().removeIf(className -> className.startsWith(ISupportScope.class.getName()));
 		}
 	}
 
-	public Map<String, Map<String, List<IPersist>>> getDuplicateNamesList()
+	public Map<String, ? extends Map<String, ? extends List<IPersist>>> getDuplicateNamesList()
 	{
 		initNameCache(Form.class);
 		initNameCache(ValueList.class);
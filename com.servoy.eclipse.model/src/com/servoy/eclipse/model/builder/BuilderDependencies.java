@@ -17,17 +17,43 @@
 
 package com.servoy.eclipse.model.builder;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+import com.servoy.eclipse.model.Activator;
+import com.servoy.eclipse.model.ServoyModelFinder;
+import com.servoy.eclipse.model.extensions.IServoyModel;
+import com.servoy.eclipse.model.nature.ServoyProject;
+import com.servoy.eclipse.model.util.ServoyLog;
 import com.servoy.j2db.persistence.Form;
 import com.servoy.j2db.persistence.IPersist;
+import com.servoy.j2db.persistence.IPersistVisitor;
+import com.servoy.j2db.persistence.IRootObject;
 import com.servoy.j2db.persistence.Media;
 import com.servoy.j2db.persistence.Relation;
+import com.servoy.j2db.persistence.Solution;
 import com.servoy.j2db.persistence.ValueList;
+import com.servoy.j2db.util.UUID;
 
 /**
  * @author lvostinar
@@ -37,6 +63,8 @@ public class BuilderDependencies
 {
 	// the cache contains real persists, not editing ones
 	private final static BuilderDependencies me = new BuilderDependencies();
+	private static final String STORAGE_FILE_NAME = "builderDependencies.bin";
+	private static final int STORAGE_VERSION = 3;
 	private Map<Media, List<Form>> mediaToForms;
 	private Map<ValueList, List<Form>> valuelistToForms;
 	private Map<Relation, List<IPersist>> relationToPersists;
@@ -46,6 +74,8 @@ public class BuilderDependencies
 	private Map<String, List<IPersist>> scopeToPersists;
 	private Map<String, List<IPersist>> datasourceToPersists;
 	private List<Form> variantlistToForms;
+	// modification time and size of the files of the active modules and resources project, taken when the builder started the last build that finished for them
+	private Map<String, FileStamp> fileStamps;
 
 	private BuilderDependencies()
 	{
@@ -56,18 +86,362 @@ public class BuilderDependencies
 		return me;
 	}
 
-	// same as settings, load/save from disk
-	public void save()
+	/**
+	 * Writes the dependency graph of the active solution to the workspace metadata, together with the stamps of the files of the active modules and resources project
+	 * as they were when the graph was built. Nothing is written when no build finished for the current graph.
+	 * Persists are stored by solution name and uuid, the reverse maps are recreated from the forward ones when loading.
+	 */
+	public synchronized void save()
 	{
-		//TODO
+		File storageFile = getStorageFile();
+		if (storageFile == null) return;
+		storageFile.delete();
+
+		IServoyModel servoyModel = ServoyModelFinder.getServoyModel();
+		if (!isInitialized() || fileStamps == null || servoyModel == null || servoyModel.getActiveProject() == null) return;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storageFile))))
+		{
+			out.writeInt(STORAGE_VERSION);
+			out.writeUTF(servoyModel.getActiveProject().getProject().getName());
+
+			out.writeInt(fileStamps.size());
+			for (Map.Entry<String, FileStamp> entry : fileStamps.entrySet())
+			{
+				out.writeUTF(entry.getKey());
+				out.writeLong(entry.getValue().lastModified);
+				out.writeLong(entry.getValue().length);
+			}
+
+			writePersistMap(out, mediaToForms);
+			writePersistMap(out, valuelistToForms);
+			writePersistMap(out, relationToPersists);
+			writePersistMap(out, formToFormsDependencies);
+			writeNameMap(out, scopeToPersists);
+			writeNameMap(out, datasourceToPersists);
+			writePersists(out, variantlistToForms);
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not save the builder dependencies", e);
+			storageFile.delete();
+		}
+	}
+
+	/**
+	 * Loads the dependency graph that was written by {@link #save()} for the current active solution. The stored file is removed, so an abnormal shutdown cannot leave a stale graph behind.
+	 *
+	 * @return the files that changed since the graph was built (these still have to be rebuilt), or null if there is no usable stored graph and a full build is needed
+	 */
+	public synchronized List<IFile> load()
+	{
+		File storageFile = getStorageFile();
+		if (storageFile == null || !storageFile.exists()) return null;
+
+		IServoyModel servoyModel = ServoyModelFinder.getServoyModel();
+		List<IFile> changedFiles = null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(storageFile))))
+		{
+			if (in.readInt() == STORAGE_VERSION && servoyModel.getActiveProject() != null &&
+				servoyModel.getActiveProject().getProject().getName().equals(in.readUTF()))
+			{
+				Map<String, FileStamp> currentStamps = computeFileStamps();
+				changedFiles = new ArrayList<IFile>();
+				int fileCount = in.readInt();
+				for (int i = 0; i < fileCount && changedFiles != null; i++)
+				{
+					String path = in.readUTF();
+					FileStamp storedStamp = new FileStamp(in.readLong(), in.readLong());
+					FileStamp currentStamp = currentStamps.remove(path);
+					if (currentStamp == null)
+					{
+						// file was deleted after the last build
+						changedFiles = null;
+					}
+					else if (!currentStamp.equals(storedStamp))
+					{
+						changedFiles.add(ResourcesPlugin.getWorkspace().getRoot().getFile(new Path(path)));
+					}
+				}
+				if (changedFiles != null && currentStamps.size() > 0)
+				{
+					// files were added after the last build
+					changedFiles = null;
+				}
+				if (changedFiles != null)
+				{
+					clear();
+					initialize();
+					PersistLookup lookup = new PersistLookup(servoyModel);
+					readPersistMap(in, lookup, (key, persist) -> {
+						if (key instanceof Media && persist instanceof Form) addDependency((Form)persist, (Media)key);
+					});
+					readPersistMap(in, lookup, (key, persist) -> {
+						if (key instanceof ValueList && persist instanceof Form) addDependency((Form)persist, (ValueList)key);
+					});
+					readPersistMap(in, lookup, (key, persist) -> {
+						if (key instanceof Relation) addDependency(persist, (Relation)key);
+					});
+					readPersistMap(in, lookup, (key, persist) -> {
+						if (key instanceof Form && persist instanceof Form) addDependency((Form)persist, (Form)key);
+					});
+					readNameMap(in, lookup, (name, persist) -> addDependency(name, persist));
+					readNameMap(in, lookup, (name, persist) -> addDatasourceDependency(name, persist));
+					for (IPersist persist : readPersists(in, lookup))
+					{
+						if (persist instanceof Form) addVariantDependency((Form)persist);
+					}
+				}
+			}
+		}
+		catch (IOException | CoreException | RuntimeException e)
+		{
+			ServoyLog.logError("Could not load the builder dependencies", e);
+			clear();
+			changedFiles = null;
+		}
+		finally
+		{
+			storageFile.delete();
+		}
+		return changedFiles;
+	}
+
+	private static File getStorageFile()
+	{
+		Activator activator = Activator.getDefault();
+		if (activator == null) return null;
+		return activator.getStateLocation().append(STORAGE_FILE_NAME).toFile();
+	}
+
+	/**
+	 * The builder takes the stamps when it starts a build, and gives them to {@link #setFileStamps(Map)} when the build finished;
+	 * a file that changes while the build runs, or after it without being built (autobuild off, cancelled build) has a different stamp when the graph is loaded again.
+	 *
+	 * @return the stamps (modification time and size) of all the files of the active modules and resources project
+	 */
+	public static Map<String, FileStamp> computeFileStamps() throws CoreException
+	{
+		IServoyModel servoyModel = ServoyModelFinder.getServoyModel();
+		final Map<String, FileStamp> stamps = new HashMap<String, FileStamp>();
+		List<IProject> projects = new ArrayList<IProject>();
+		for (ServoyProject module : servoyModel.getModulesOfActiveProject())
+		{
+			projects.add(module.getProject());
+		}
+		if (servoyModel.getActiveResourcesProject() != null)
+		{
+			projects.add(servoyModel.getActiveResourcesProject().getProject());
+		}
+		for (IProject project : projects)
+		{
+			if (!project.exists() || !project.isOpen()) continue;
+			project.accept((IResource resource) -> {
+				if (resource.getType() == IResource.FOLDER && resource.getName().startsWith(".")) return false;
+				if (resource.getType() == IResource.FILE)
+				{
+					FileStamp stamp = getFileStamp(resource);
+					if (stamp != null) stamps.put(resource.getFullPath().toString(), stamp);
+				}
+				return true;
+			});
+		}
+		return stamps;
+	}
+
+	/**
+	 * @return the stamps of the files of the delta, with a null stamp for the removed files
+	 */
+	public static Map<String, FileStamp> computeFileStamps(IResourceDelta delta) throws CoreException
+	{
+		final Map<String, FileStamp> stamps = new HashMap<String, FileStamp>();
+		delta.accept((IResourceDelta child) -> {
+			IResource resource = child.getResource();
+			if (resource.getType() == IResource.FOLDER && resource.getName().startsWith(".")) return false;
+			if (resource.getType() == IResource.FILE)
+			{
+				stamps.put(resource.getFullPath().toString(), child.getKind() == IResourceDelta.REMOVED ? null : getFileStamp(resource));
+			}
+			return true;
+		});
+		return stamps;
+	}
+
+	private static FileStamp getFileStamp(IResource resource)
+	{
+		IPath location = resource.getLocation();
+		if (location == null) return null;
+		File file = location.toFile();
+		return new FileStamp(file.lastModified(), file.length());
+	}
+
+	/**
+	 * Sets the stamps of all the files, after a full build finished.
+	 */
+	public synchronized void setFileStamps(Map<String, FileStamp> stamps)
+	{
+		fileStamps = isInitialized() ? stamps : null;
+	}
+
+	/**
+	 * Updates the stamps of the files that an incremental build handled, the files of other projects than the active modules and resources project are ignored.
+	 */
+	public synchronized void updateFileStamps(Map<String, FileStamp> stamps)
+	{
+		if (fileStamps == null) return;
+		IServoyModel servoyModel = ServoyModelFinder.getServoyModel();
+		List<String> projectNames = new ArrayList<String>();
+		for (ServoyProject module : servoyModel.getModulesOfActiveProject())
+		{
+			projectNames.add(module.getProject().getName());
+		}
+		if (servoyModel.getActiveResourcesProject() != null) projectNames.add(servoyModel.getActiveResourcesProject().getProject().getName());
+
+		for (Map.Entry<String, FileStamp> entry : stamps.entrySet())
+		{
+			if (!projectNames.contains(new Path(entry.getKey()).segment(0))) continue;
+			if (entry.getValue() == null) fileStamps.remove(entry.getKey());
+			else fileStamps.put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	private static void writePersist(DataOutputStream out, IPersist persist) throws IOException
+	{
+		IRootObject rootObject = persist.getRootObject();
+		out.writeUTF(rootObject != null ? rootObject.getName() : "");
+		out.writeUTF(persist.getUUID().toString());
+	}
+
+	private static void writePersists(DataOutputStream out, List< ? extends IPersist> persists) throws IOException
+	{
+		if (persists == null)
+		{
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(persists.size());
+		for (IPersist persist : persists)
+		{
+			writePersist(out, persist);
+		}
+	}
+
+	private static void writePersistMap(DataOutputStream out, Map< ? extends IPersist, ? extends List< ? extends IPersist>> map) throws IOException
+	{
+		if (map == null)
+		{
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(map.size());
+		for (Map.Entry< ? extends IPersist, ? extends List< ? extends IPersist>> entry : map.entrySet())
+		{
+			writePersist(out, entry.getKey());
+			writePersists(out, entry.getValue());
+		}
+	}
+
+	private static void writeNameMap(DataOutputStream out, Map<String, List<IPersist>> map) throws IOException
+	{
+		if (map == null)
+		{
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(map.size());
+		for (Map.Entry<String, List<IPersist>> entry : map.entrySet())
+		{
+			out.writeUTF(entry.getKey());
+			writePersists(out, entry.getValue());
+		}
+	}
+
+	private static IPersist readPersist(DataInputStream in, PersistLookup lookup) throws IOException
+	{
+		String solutionName = in.readUTF();
+		String uuid = in.readUTF();
+		return lookup.getPersist(solutionName, UUID.fromString(uuid));
+	}
+
+	private static List<IPersist> readPersists(DataInputStream in, PersistLookup lookup) throws IOException
+	{
+		int count = in.readInt();
+		List<IPersist> persists = new ArrayList<IPersist>(count);
+		for (int i = 0; i < count; i++)
+		{
+			IPersist persist = readPersist(in, lookup);
+			if (persist != null) persists.add(persist);
+		}
+		return persists;
+	}
+
+	private static void readPersistMap(DataInputStream in, PersistLookup lookup, IDependencyConsumer<IPersist> consumer) throws IOException
+	{
+		int count = in.readInt();
+		for (int i = 0; i < count; i++)
+		{
+			IPersist key = readPersist(in, lookup);
+			for (IPersist persist : readPersists(in, lookup))
+			{
+				if (key != null) consumer.accept(key, persist);
+			}
+		}
+	}
+
+	private static void readNameMap(DataInputStream in, PersistLookup lookup, IDependencyConsumer<String> consumer) throws IOException
+	{
+		int count = in.readInt();
+		for (int i = 0; i < count; i++)
+		{
+			String name = in.readUTF();
+			for (IPersist persist : readPersists(in, lookup))
+			{
+				consumer.accept(name, persist);
+			}
+		}
 	}
 
-	public void load()
+	private interface IDependencyConsumer<T>
 	{
-		//TODO
+		void accept(T key, IPersist persist);
 	}
 
-	public void clear()
+	/**
+	 * Finds the stored persists by uuid, the persists of a solution are indexed the first time one of them is needed.
+	 */
+	private static class PersistLookup
+	{
+		private final IServoyModel servoyModel;
+		private final Map<String, Map<UUID, IPersist>> solutionPersists = new HashMap<String, Map<UUID, IPersist>>();
+
+		PersistLookup(IServoyModel servoyModel)
+		{
+			this.servoyModel = servoyModel;
+		}
+
+		IPersist getPersist(String solutionName, UUID uuid)
+		{
+			Map<UUID, IPersist> persists = solutionPersists.get(solutionName);
+			if (persists == null)
+			{
+				final Map<UUID, IPersist> index = new HashMap<UUID, IPersist>();
+				ServoyProject servoyProject = servoyModel.getServoyProject(solutionName);
+				Solution solution = servoyProject != null ? servoyProject.getSolution() : null;
+				if (solution != null)
+				{
+					solution.acceptVisitor(persist -> {
+						index.put(persist.getUUID(), persist);
+						return IPersistVisitor.CONTINUE_TRAVERSAL;
+					});
+				}
+				persists = index;
+				solutionPersists.put(solutionName, persists);
+			}
+			return persists.get(uuid);
+		}
+	}
+
+	public synchronized void clear()
 	{
 		mediaToForms = null;
 		formDependencies = null;
@@ -77,19 +451,20 @@ public class BuilderDependencies
 		formToFormsDependencies = null;
 		datasourceToPersists = null;
 		variantlistToForms = null;
+		fileStamps = null;
 	}
 
-	public boolean isInitialized()
+	public synchronized boolean isInitialized()
 	{
 		return mediaToForms != null;
 	}
 
-	public void initialize()
+	public synchronized void initialize()
 	{
 		mediaToForms = new HashMap<Media, List<Form>>();
 	}
 
-	public void removeForm(Form form)
+	public synchronized void removeForm(Form form)
 	{
 		if (formDependencies != null)
 		{
@@ -162,7 +537,7 @@ public class BuilderDependencies
 		}
 	}
 
-	public void addVariantDependency(Form form)
+	public synchronized void addVariantDependency(Form form)
 	{
 		if (variantlistToForms == null)
 		{
@@ -174,7 +549,7 @@ public class BuilderDependencies
 		}
 	}
 
-	public void addDependency(Form form, ValueList valuelist)
+	public synchronized void addDependency(Form form, ValueList valuelist)
 	{
 		if (valuelistToForms == null)
 		{
@@ -201,7 +576,7 @@ public class BuilderDependencies
 		if (!dependecyPersists.contains(valuelist)) dependecyPersists.add(valuelist);
 	}
 
-	public void addDependency(IPersist persist, Relation relation)
+	public synchronized void addDependency(IPersist persist, Relation relation)
 	{
 		if (relationToPersists == null)
 		{
@@ -231,7 +606,7 @@ public class BuilderDependencies
 		}
 	}
 
-	public void addDependency(Form form, Media media)
+	public synchronized void addDependency(Form form, Media media)
 	{
 		if (mediaToForms == null)
 		{
@@ -258,7 +633,7 @@ public class BuilderDependencies
 		if (!dependecyPersists.contains(media)) dependecyPersists.add(media);
 	}
 
-	public void addDependency(String scopeName, IPersist persist)
+	public synchronized void addDependency(String scopeName, IPersist persist)
 	{
 		if (scopeName != null)
 		{
@@ -276,7 +651,7 @@ public class BuilderDependencies
 		}
 	}
 
-	public void addDatasourceDependency(String datasource, IPersist persist)
+	public synchronized void addDatasourceDependency(String datasource, IPersist persist)
 	{
 		if (datasource != null)
 		{
@@ -294,7 +669,7 @@ public class BuilderDependencies
 		}
 	}
 
-	public void addDependency(Form source, Form destination)
+	public synchronized void addDependency(Form source, Form destination)
 	{
 		if (formToFormsDependencies == null)
 		{
@@ -321,63 +696,112 @@ public class BuilderDependencies
 		if (!dependecyPersists.contains(destination)) dependecyPersists.add(destination);
 	}
 
-	public void removeScopeDependencies(String scopeName)
+	public synchronized void removeScopeDependencies(String scopeName)
 	{
 		if (scopeToPersists != null) scopeToPersists.remove(scopeName);
 	}
 
-	public void removeDatasourceDependencies(String datasource)
+	public synchronized void removeDatasourceDependencies(String datasource)
 	{
 		if (datasourceToPersists != null) datasourceToPersists.remove(datasource);
 	}
 
-	public List<Form> getFormDependencies(Form form)
+	/**
+	 * @return a copy of the forms that depend on the form, so it can be used while the builder changes the dependencies
+	 */
+	public synchronized List<Form> getFormDependencies(Form form)
 	{
 		if (formToFormsDependencies != null)
 		{
-			return formToFormsDependencies.get(form);
+			List<Form> dependencyForms = formToFormsDependencies.get(form);
+			if (dependencyForms != null) return new ArrayList<Form>(dependencyForms);
 		}
 		return null;
 	}
 
-	public List<IPersist> getScopeDependency(String scopeName)
+	public synchronized List<IPersist> getScopeDependency(String scopeName)
 	{
 		if (scopeToPersists != null)
 		{
-			return scopeToPersists.get(scopeName);
+			List<IPersist> persists = scopeToPersists.get(scopeName);
+			if (persists != null) return new ArrayList<IPersist>(persists);
 		}
 		return null;
 	}
 
-	public List<IPersist> getDatasourceDependency(String datasource)
+	public synchronized List<IPersist> getDatasourceDependency(String datasource)
 	{
 		if (datasourceToPersists != null)
 		{
-			return datasourceToPersists.get(datasource);
+			List<IPersist> persists = datasourceToPersists.get(datasource);
+			if (persists != null) return new ArrayList<IPersist>(persists);
 		}
 		return null;
 	}
 
-	public List<Form> getMediaDependencies(Media media)
+	public synchronized List<Form> getMediaDependencies(Media media)
 	{
-		if (mediaToForms != null) return mediaToForms.get(media);
+		if (mediaToForms != null)
+		{
+			List<Form> forms = mediaToForms.get(media);
+			if (forms != null) return new ArrayList<Form>(forms);
+		}
 		return null;
 	}
 
-	public List<Form> getValuelistDependencies(ValueList valuelist)
+	public synchronized List<Form> getValuelistDependencies(ValueList valuelist)
 	{
-		if (valuelistToForms != null) return valuelistToForms.get(valuelist);
+		if (valuelistToForms != null)
+		{
+			List<Form> forms = valuelistToForms.get(valuelist);
+			if (forms != null) return new ArrayList<Form>(forms);
+		}
+		return null;
+	}
+
+	public synchronized List<IPersist> getRelationDependencies(Relation relation)
+	{
+		if (relationToPersists != null)
+		{
+			List<IPersist> persists = relationToPersists.get(relation);
+			if (persists != null) return new ArrayList<IPersist>(persists);
+		}
 		return null;
 	}
 
-	public List<IPersist> getRelationDependencies(Relation relation)
+	public synchronized List<Form> getVariantDependencies()
 	{
-		if (relationToPersists != null) return relationToPersists.get(relation);
+		if (variantlistToForms != null) return new ArrayList<Form>(variantlistToForms);
 		return null;
 	}
 
-	public List<Form> getVariantDependencies()
+	/**
+	 * Modification time and size of a file, both are compared so two different files states cannot end up with the same stamp.
+	 */
+	public static final class FileStamp
 	{
-		return variantlistToForms;
+		private final long lastModified;
+		private final long length;
+
+		FileStamp(long lastModified, long length)
+		{
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Long.hashCode(lastModified) * 31 + Long.hashCode(length);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (this == obj) return true;
+			if (!(obj instanceof FileStamp)) return false;
+			FileStamp other = (FileStamp)obj;
+			return lastModified == other.lastModified && length == other.length;
+		}
 	}
 }
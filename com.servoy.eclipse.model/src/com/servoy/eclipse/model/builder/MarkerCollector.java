@@ -0,0 +1,539 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.model.builder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Platform;
+
+import com.servoy.eclipse.model.util.ServoyLog;
+
+/**
+ * Records the marker operations of builder checks instead of executing them on the workspace, afterwards they are applied
+ * in the order they were made, so that a rebuild only changes the markers that are really different.
+ * That is why the builders create and delete their markers through {@link ServoyBuilder#addMarker} and {@link ServoyBuilder#deleteMarkers}
+ * and never directly on the resource: a delete followed by the same markers again is then no change at all.
+ */
+class MarkerCollector
+{
+	private static final ThreadLocal<MarkerCollector> CURRENT = new ThreadLocal<MarkerCollector>();
+	private static final Map<String, Set<String>> SUPER_TYPES = new ConcurrentHashMap<String, Set<String>>();
+
+	// either a DeleteOperation or a DeferredMarker, in the order the checks did them
+	private final List<Object> operations = new ArrayList<Object>();
+	// the deferred markers that were deleted again before they were created
+	private final Set<DeferredMarker> deletedMarkers = Collections.newSetFromMap(new IdentityHashMap<DeferredMarker, Boolean>());
+
+	/**
+	 * @return the collector installed on the current thread, null if markers should be created directly
+	 */
+	static MarkerCollector getCurrent()
+	{
+		return CURRENT.get();
+	}
+
+	/**
+	 * Runs the given check on the current thread, collecting all its marker operations in this collector.
+	 */
+	void collect(Runnable check)
+	{
+		MarkerCollector previous = CURRENT.get();
+		CURRENT.set(this);
+		try
+		{
+			check.run();
+		}
+		finally
+		{
+			if (previous == null) CURRENT.remove();
+			else CURRENT.set(previous);
+		}
+	}
+
+	IMarker createMarker(IResource resource, String type)
+	{
+		DeferredMarker marker = new DeferredMarker(this, resource, type);
+		operations.add(marker);
+		return marker;
+	}
+
+	void deleteMarkers(IResource resource, String... types)
+	{
+		// the markers to delete are taken now, markers created directly by others until this collector is applied are left alone
+		operations.add(new DeleteOperation(resource, types, findMarkers(resource, types)));
+	}
+
+	/**
+	 * @return the markers of the given types, the markers of the resource are read once for all of the types
+	 */
+	private static IMarker[] findMarkers(IResource resource, String[] types)
+	{
+		try
+		{
+			// same conditions as ServoyBuilder.deleteMarkers
+			if (resource.getProject().isOpen() && resource.exists())
+			{
+				IMarker[] markers = resource.findMarkers(types.length == 1 ? types[0] : null, true, IResource.DEPTH_INFINITE);
+				if (types.length == 1) return markers;
+
+				List<IMarker> found = new ArrayList<IMarker>();
+				for (IMarker marker : markers)
+				{
+					if (isSubtype(marker.getType(), types)) found.add(marker);
+				}
+				return found.toArray(new IMarker[found.size()]);
+			}
+		}
+		catch (CoreException e)
+		{
+			ServoyLog.logWarning("Cannot read problem markers", e);
+		}
+		return new IMarker[0];
+	}
+
+	/**
+	 * Executes the recorded operations, this must be called from the thread that is allowed to change markers.
+	 * If that thread collects markers itself, the operations are handed over to its collector instead.<br/>
+	 * Markers are not deleted and recreated blindly: the markers that would be deleted are compared with the ones that are created afterwards
+	 * (by resource, type, message, location, line and severity), existing markers that are still valid are kept, so only real changes cause resource deltas.
+	 */
+	void apply()
+	{
+		MarkerCollector outer = getCurrent();
+		if (outer != null && outer != this)
+		{
+			for (Object operation : operations)
+			{
+				if (operation instanceof DeferredMarker) ((DeferredMarker)operation).collector = outer;
+			}
+			outer.operations.addAll(operations);
+			outer.deletedMarkers.addAll(deletedMarkers);
+			operations.clear();
+			deletedMarkers.clear();
+			return;
+		}
+
+		// existing markers in the scope of a delete, mapped to the new marker that replaces it (null if it should be deleted)
+		Map<IMarker, DeferredMarker> existingMarkers = new LinkedHashMap<IMarker, DeferredMarker>();
+		Map<List<Object>, List<IMarker>> unmatchedMarkers = new HashMap<List<Object>, List<IMarker>>();
+		// the planned markers and the existing markers that have a replacement, by resource, so a delete only has to look at the resources it covers
+		Map<IPath, List<DeferredMarker>> newMarkers = new LinkedHashMap<IPath, List<DeferredMarker>>();
+		Map<IPath, List<IMarker>> replacedMarkers = new HashMap<IPath, List<IMarker>>();
+		for (Object operation : operations)
+		{
+			if (operation instanceof DeleteOperation)
+			{
+				DeleteOperation delete = (DeleteOperation)operation;
+				// what was planned before in this scope is deleted again, just like a direct delete would do
+				for (IPath path : delete.getCoveredPaths(newMarkers.keySet()))
+				{
+					List<DeferredMarker> markers = newMarkers.get(path);
+					markers.removeIf(marker -> isSubtype(marker.type, delete.types));
+					if (markers.isEmpty()) newMarkers.remove(path);
+				}
+				for (IPath path : delete.getCoveredPaths(replacedMarkers.keySet()))
+				{
+					List<IMarker> markers = replacedMarkers.get(path);
+					markers.removeIf(marker -> {
+						DeferredMarker replacement = existingMarkers.get(marker);
+						if (!isSubtype(replacement.type, delete.types)) return false;
+						unmatchedMarkers.computeIfAbsent(replacement.getKey(), key -> new ArrayList<IMarker>()).add(marker);
+						existingMarkers.put(marker, null);
+						return true;
+					});
+					if (markers.isEmpty()) replacedMarkers.remove(path);
+				}
+				for (IMarker marker : delete.markers)
+				{
+					if (!existingMarkers.containsKey(marker))
+					{
+						existingMarkers.put(marker, null);
+						unmatchedMarkers.computeIfAbsent(getKey(marker), key -> new ArrayList<IMarker>()).add(marker);
+					}
+				}
+			}
+			else
+			{
+				DeferredMarker deferred = (DeferredMarker)operation;
+				deferred.collector = null;
+				if (deletedMarkers.contains(deferred)) continue;
+				List<IMarker> candidates = unmatchedMarkers.get(deferred.getKey());
+				if (candidates != null && candidates.size() > 0)
+				{
+					IMarker marker = candidates.remove(candidates.size() - 1);
+					existingMarkers.put(marker, deferred);
+					replacedMarkers.computeIfAbsent(deferred.resource.getFullPath(), path -> new ArrayList<IMarker>()).add(marker);
+				}
+				else
+				{
+					newMarkers.computeIfAbsent(deferred.resource.getFullPath(), path -> new ArrayList<DeferredMarker>()).add(deferred);
+				}
+			}
+		}
+		operations.clear();
+		deletedMarkers.clear();
+
+		List<IMarker> toDelete = new ArrayList<IMarker>();
+		for (Map.Entry<IMarker, DeferredMarker> entry : existingMarkers.entrySet())
+		{
+			IMarker marker = entry.getKey();
+			DeferredMarker replacement = entry.getValue();
+			try
+			{
+				if (replacement == null)
+				{
+					toDelete.add(marker);
+				}
+				else if (!marker.exists())
+				{
+					// the marker was removed in the meantime, the problem is still there
+					createMarker(replacement);
+				}
+				else
+				{
+					if (!replacement.attributes.equals(marker.getAttributes())) marker.setAttributes(replacement.attributes);
+					replacement.marker = marker;
+				}
+			}
+			catch (CoreException e)
+			{
+				ServoyLog.logWarning("Cannot update problem marker", e);
+			}
+		}
+		if (toDelete.size() > 0)
+		{
+			try
+			{
+				ResourcesPlugin.getWorkspace().deleteMarkers(toDelete.toArray(new IMarker[toDelete.size()]));
+			}
+			catch (CoreException e)
+			{
+				ServoyLog.logWarning("Cannot delete problem marker", e);
+			}
+		}
+		for (List<DeferredMarker> markers : newMarkers.values())
+		{
+			for (DeferredMarker deferred : markers)
+			{
+				try
+				{
+					createMarker(deferred);
+				}
+				catch (CoreException e)
+				{
+					ServoyLog.logWarning("Cannot create problem marker", e);
+				}
+			}
+		}
+	}
+
+	private static void createMarker(DeferredMarker deferred) throws CoreException
+	{
+		if (deferred.resource.exists())
+		{
+			deferred.marker = deferred.resource.createMarker(deferred.type);
+			deferred.marker.setAttributes(deferred.attributes);
+		}
+	}
+
+	private static List<Object> getKey(IMarker marker)
+	{
+		String type = null;
+		try
+		{
+			type = marker.getType();
+		}
+		catch (CoreException e)
+		{
+			// marker doesn't exist anymore, key will not match anything
+		}
+		return createKey(marker.getResource(), type, marker.getAttribute(IMarker.MESSAGE, null), marker.getAttribute(IMarker.LOCATION, null),
+			marker.getAttribute(IMarker.LINE_NUMBER, -1), marker.getAttribute(IMarker.CHAR_START, -1), marker.getAttribute(IMarker.SEVERITY, -1));
+	}
+
+	private static List<Object> createKey(IResource resource, String type, String message, String location, int line, int charStart, int severity)
+	{
+		return Arrays.asList(resource.getFullPath(), type, message, location, Integer.valueOf(line), Integer.valueOf(charStart), Integer.valueOf(severity));
+	}
+
+	private static boolean isSubtype(String type, String[] superTypes)
+	{
+		for (String superType : superTypes)
+		{
+			if (isSubtype(type, superType)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the marker type hierarchy as declared in the org.eclipse.core.resources.markers extensions.
+	 */
+	static boolean isSubtype(String type, String superType)
+	{
+		if (type == null) return false;
+		if (type.equals(superType)) return true;
+		for (String parent : getSuperTypes(type))
+		{
+			if (isSubtype(parent, superType)) return true;
+		}
+		return false;
+	}
+
+	private static Set<String> getSuperTypes(String type)
+	{
+		return SUPER_TYPES.computeIfAbsent(type, t -> {
+			Set<String> superTypes = new HashSet<String>();
+			IExtensionPoint point = Platform.getExtensionRegistry().getExtensionPoint(ResourcesPlugin.PI_RESOURCES, ResourcesPlugin.PT_MARKERS);
+			if (point != null)
+			{
+				for (IExtension extension : point.getExtensions())
+				{
+					if (t.equals(extension.getUniqueIdentifier()))
+					{
+						for (IConfigurationElement element : extension.getConfigurationElements())
+						{
+							if ("super".equals(element.getName()) && element.getAttribute("type") != null) superTypes.add(element.getAttribute("type"));
+						}
+					}
+				}
+			}
+			return superTypes;
+		});
+	}
+
+	private static class DeleteOperation
+	{
+		private final IResource resource;
+		private final String[] types;
+
+		private final IMarker[] markers;
+
+		DeleteOperation(IResource resource, String[] types, IMarker[] markers)
+		{
+			this.resource = resource;
+			this.types = types;
+			this.markers = markers;
+		}
+
+		/**
+		 * @return the paths of the given resource paths that are in the scope of this delete
+		 */
+		List<IPath> getCoveredPaths(Set<IPath> paths)
+		{
+			IPath path = resource.getFullPath();
+			List<IPath> covered = new ArrayList<IPath>();
+			if (resource.getType() == IResource.FILE)
+			{
+				if (paths.contains(path)) covered.add(path);
+			}
+			else
+			{
+				for (IPath p : paths)
+				{
+					if (path.isPrefixOf(p)) covered.add(p);
+				}
+			}
+			return covered;
+		}
+
+	}
+
+	/**
+	 * Marker that only keeps its attributes in memory until the collector creates the real one.
+	 */
+	static class DeferredMarker implements IMarker
+	{
+		private final IResource resource;
+		private final String type;
+		private final Map<String, Object> attributes = new HashMap<String, Object>();
+		private final long creationTime = System.currentTimeMillis();
+		// the collector that will create this marker, null when it is applied already
+		private MarkerCollector collector;
+		// the real marker once the collector is applied, null if it was not created
+		private IMarker marker;
+		private boolean deleted;
+
+		DeferredMarker(MarkerCollector collector, IResource resource, String type)
+		{
+			this.collector = collector;
+			this.resource = resource;
+			this.type = type;
+		}
+
+		List<Object> getKey()
+		{
+			return createKey(resource, type, getAttribute(IMarker.MESSAGE, (String)null), getAttribute(IMarker.LOCATION, (String)null),
+				getAttribute(IMarker.LINE_NUMBER, -1), getAttribute(IMarker.CHAR_START, -1), getAttribute(IMarker.SEVERITY, -1));
+		}
+
+		@Override
+		public <T> T getAdapter(Class<T> adapter)
+		{
+			return null;
+		}
+
+		@Override
+		public void delete() throws CoreException
+		{
+			if (marker != null)
+			{
+				marker.delete();
+			}
+			else if (!deleted)
+			{
+				// the marker is not created yet, so it is just not created anymore
+				deleted = true;
+				if (collector != null) collector.deletedMarkers.add(this);
+			}
+		}
+
+		@Override
+		public boolean exists()
+		{
+			if (marker != null) return marker.exists();
+			return !deleted && collector != null;
+		}
+
+		@Override
+		public Object getAttribute(String attributeName) throws CoreException
+		{
+			return attributes.get(attributeName);
+		}
+
+		@Override
+		public int getAttribute(String attributeName, int defaultValue)
+		{
+			Object value = attributes.get(attributeName);
+			return value instanceof Integer ? ((Integer)value).intValue() : defaultValue;
+		}
+
+		@Override
+		public String getAttribute(String attributeName, String defaultValue)
+		{
+			Object value = attributes.get(attributeName);
+			return value instanceof String ? (String)value : defaultValue;
+		}
+
+		@Override
+		public boolean getAttribute(String attributeName, boolean defaultValue)
+		{
+			Object value = attributes.get(attributeName);
+			return value instanceof Boolean ? ((Boolean)value).booleanValue() : defaultValue;
+		}
+
+		@Override
+		public Map<String, Object> getAttributes() throws CoreException
+		{
+			return new HashMap<String, Object>(attributes);
+		}
+
+		@Override
+		public Object[] getAttributes(String[] attributeNames) throws CoreException
+		{
+			Object[] values = new Object[attributeNames.length];
+			for (int i = 0; i < attributeNames.length; i++)
+			{
+				values[i] = attributes.get(attributeNames[i]);
+			}
+			return values;
+		}
+
+		@Override
+		public long getCreationTime() throws CoreException
+		{
+			return creationTime;
+		}
+
+		@Override
+		public long getId()
+		{
+			return -1;
+		}
+
+		@Override
+		public IResource getResource()
+		{
+			return resource;
+		}
+
+		@Override
+		public String getType() throws CoreException
+		{
+			return type;
+		}
+
+		@Override
+		public boolean isSubtypeOf(String superType) throws CoreException
+		{
+			return isSubtype(type, superType);
+		}
+
+		@Override
+		public void setAttribute(String attributeName, int value) throws CoreException
+		{
+			attributes.put(attributeName, Integer.valueOf(value));
+		}
+
+		@Override
+		public void setAttribute(String attributeName, Object value) throws CoreException
+		{
+			if (value == null) attributes.remove(attributeName);
+			else attributes.put(attributeName, value);
+		}
+
+		@Override
+		public void setAttribute(String attributeName, boolean value) throws CoreException
+		{
+			attributes.put(attributeName, Boolean.valueOf(value));
+		}
+
+		@Override
+		public void setAttributes(String[] attributeNames, Object[] values) throws CoreException
+		{
+			for (int i = 0; i < attributeNames.length; i++)
+			{
+				setAttribute(attributeNames[i], values[i]);
+			}
+		}
+
+		@Override
+		public void setAttributes(Map<String, ? extends Object> values) throws CoreException
+		{
+			attributes.clear();
+			if (values != null) attributes.putAll(values);
+		}
+	}
+}
@@ -30,6 +30,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -44,6 +45,7 @@ import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.IResourceVisitor;
 import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.resources.ProjectScope;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -164,7 +166,7 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 	public static int MAX_EXCEPTIONS = 25;
 	public static int MIN_FIELD_LENGTH = 1000;
 
-	public static int exceptionCount = 0;
+	public static final AtomicInteger exceptionCount = new AtomicInteger();
 
 	public static final int LIMIT_FOR_PORTAL_TABPANEL_COUNT_ON_FORM = 3;
 	public static final int LIMIT_FOR_FIELD_COUNT_ON_TABLEVIEW_FORM = 20;
@@ -707,17 +709,28 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 		}
 		if (!BuilderDependencies.getInstance().isInitialized() && servoyModel.getActiveProject() != null)
 		{
-			// cache is empty we need a full build on all active solutions
-			// this will also delete all markers and create them on accurate file
-			BuilderDependencies.getInstance().initialize();
-			for (ServoyProject project : servoyModel.getModulesOfActiveProject())
+			// the stamps are taken before building, so files that change during the build are seen as changed in the next session
+			Map<String, BuilderDependencies.FileStamp> fileStamps = BuilderDependencies.computeFileStamps();
+			// try to reuse the dependencies of the previous session, only the files that changed since then need to be rebuilt
+			List<IFile> changedFiles = BuilderDependencies.getInstance().load();
+			if (changedFiles == null || !rebuildChangedFiles(changedFiles, progressMonitor))
 			{
-				fullBuild(project.getProject(), progressMonitor);
+				// cache is empty we need a full build on all active solutions
+				// this will also delete all markers and create them on accurate file
+				BuilderDependencies.getInstance().clear();
+				BuilderDependencies.getInstance().initialize();
+				for (ServoyProject project : servoyModel.getModulesOfActiveProject())
+				{
+					fullBuild(project.getProject(), progressMonitor);
+				}
 			}
+			BuilderDependencies.getInstance().setFileStamps(fileStamps);
 		}
 		else if (kind == FULL_BUILD)
 		{
+			Map<String, BuilderDependencies.FileStamp> fileStamps = BuilderDependencies.computeFileStamps();
 			fullBuild(getProject(), progressMonitor);
+			BuilderDependencies.getInstance().setFileStamps(fileStamps);
 		}
 		else
 		{
@@ -752,14 +765,18 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 				}
 				if (needFullBuild)
 				{
+					Map<String, BuilderDependencies.FileStamp> fileStamps = BuilderDependencies.computeFileStamps();
 					fullBuild(getProject(), progressMonitor);
+					BuilderDependencies.getInstance().setFileStamps(fileStamps);
 				}
 				else
 				{
 					IResourceDelta delta = getDelta(getProject());
 					if (delta != null)
 					{
+						Map<String, BuilderDependencies.FileStamp> fileStamps = BuilderDependencies.computeFileStamps(delta);
 						incrementalBuild(delta, progressMonitor);
+						BuilderDependencies.getInstance().updateFileStamps(fileStamps);
 					}
 					// servoy builder is not called on resources project, so, if we can do an incremental build, do it when main active project is checked
 					if (resourcesProjectDelta != null)
@@ -767,7 +784,9 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 						ServoyProject activeProject = getServoyModel().getActiveProject();
 						if (activeProject != null && activeProject.getProject().getName().equals(getProject().getName()))
 						{
+							Map<String, BuilderDependencies.FileStamp> fileStamps = BuilderDependencies.computeFileStamps(resourcesProjectDelta);
 							incrementalBuild(resourcesProjectDelta, progressMonitor);
+							BuilderDependencies.getInstance().updateFileStamps(fileStamps);
 						}
 					}
 				}
@@ -1199,7 +1218,7 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 		FlattenedSolution fs = ServoyModelFinder.getServoyModel().getFlattenedSolution();
 		if (fs instanceof DeveloperFlattenedSolution)
 		{
-			Map<UUID, List<IPersist>> duplicates = ((DeveloperFlattenedSolution)fs).getDuplicateUUIDList();
+			Map<UUID, ? extends List<IPersist>> duplicates = ((DeveloperFlattenedSolution)fs).getDuplicateUUIDList();
 			if (duplicates != null)
 			{
 				for (UUID uuid : duplicates.keySet())
@@ -1241,12 +1260,12 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 			IProject activeProject = ServoyModelFinder.getServoyModel().getActiveProject().getProject();
 			if (fs instanceof DeveloperFlattenedSolution)
 			{
-				Map<String, Map<String, List<IPersist>>> duplicates = ((DeveloperFlattenedSolution)fs).getDuplicateNamesList();
+				Map<String, ? extends Map<String, ? extends List<IPersist>>> duplicates = ((DeveloperFlattenedSolution)fs).getDuplicateNamesList();
 				if (duplicates != null)
 				{
 					for (String name : duplicates.keySet())
 					{
-						Map<String, List<IPersist>> duplicateMap = duplicates.get(name);
+						Map<String, ? extends List<IPersist>> duplicateMap = duplicates.get(name);
 						for (String key : duplicateMap.keySet())
 						{
 							List<IPersist> lst = duplicateMap.get(key);
@@ -1808,9 +1827,14 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 	private boolean hasDeletedMarkers = false;
 
 	private void checkServoyProject(final IProject project, final SpecProviderState componentsSpecProviderState)
+	{
+		applyMarkerChanges(() -> addServoyProjectMarkers(project, componentsSpecProviderState));
+	}
+
+	private void addServoyProjectMarkers(final IProject project, final SpecProviderState componentsSpecProviderState)
 	{
 		// only log exceptions to max count
-		exceptionCount = 0;
+		exceptionCount.set(0);
 		deleteMarkers(project, PROJECT_DESERIALIZE_MARKER_TYPE);
 		deleteMarkers(project, SOLUTION_PROBLEM_MARKER_TYPE);
 		deleteMarkers(project, PROJECT_RELATION_MARKER_TYPE);
@@ -2285,6 +2309,37 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 		}
 	}
 
+	/**
+	 * Runs builder checks with their marker changes collected; afterwards the markers are diffed against the existing ones and
+	 * only the differences are applied, in one workspace operation. Nested calls hand their changes to the outermost one.
+	 */
+	static void applyMarkerChanges(Runnable checks)
+	{
+		final MarkerCollector collector = new MarkerCollector();
+		try
+		{
+			collector.collect(checks);
+		}
+		finally
+		{
+			if (MarkerCollector.getCurrent() != null)
+			{
+				collector.apply();
+			}
+			else
+			{
+				try
+				{
+					ResourcesPlugin.getWorkspace().run((IWorkspaceRunnable)m -> collector.apply(), null, IWorkspace.AVOID_UPDATE, null);
+				}
+				catch (CoreException e)
+				{
+					ServoyLog.logError(e);
+				}
+			}
+		}
+	}
+
 	public static int getTranslatedSeverity(String severity, ProblemSeverity problemSeverity)
 	{
 		if (severity.equals(ProblemSeverity.WARNING.name())) return IMarker.SEVERITY_WARNING;
@@ -3326,18 +3381,18 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 				}
 				if (file.exists())
 				{
-					marker = file.createMarker(type);
+					marker = createMarker(file, type);
 				}
 				else if (persist.getParent() instanceof WebComponent)
 				{
 					pathPair = SolutionSerializer.getFilePath(persist.getParent(), true);
 					path = new Path(pathPair.getLeft() + pathPair.getRight());
 					file = ResourcesPlugin.getWorkspace().getRoot().getFile(path);
-					marker = file.exists() ? file.createMarker(type) : resource.createMarker(type);
+					marker = file.exists() ? createMarker(file, type) : createMarker(resource, type);
 				}
 				else
 				{
-					marker = resource.createMarker(type);
+					marker = createMarker(resource, type);
 				}
 				if (location == null)
 				{
@@ -3346,7 +3401,7 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 			}
 			else
 			{
-				marker = resource.createMarker(type);
+				marker = createMarker(resource, type);
 			}
 			marker.setAttribute(IMarker.MESSAGE, message);
 			marker.setAttribute(IMarker.SEVERITY, severity);
@@ -3416,16 +3471,20 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 	// Extensions that want to add marker attributes based on persists will do that here (for example preferred editor to open).
 	private static void addExtensionMarkerAttributes(IMarker marker, IPersist persist)
 	{
-		if (markerContributors == null)
+		for (IMarkerAttributeContributor markerContributor : getMarkerContributors())
 		{
-			List<IMarkerAttributeContributor> contributors = ModelUtils.getExtensions(IMarkerAttributeContributor.EXTENSION_ID);
-			markerContributors = contributors.toArray(new IMarkerAttributeContributor[contributors.size()]);
+			markerContributor.contributeToMarker(marker, persist);
 		}
+	}
 
-		for (IMarkerAttributeContributor markerContributor : markerContributors)
+	private static synchronized IMarkerAttributeContributor[] getMarkerContributors()
+	{
+		if (markerContributors == null)
 		{
-			markerContributor.contributeToMarker(marker, persist);
+			List<IMarkerAttributeContributor> contributors = ModelUtils.getExtensions(IMarkerAttributeContributor.EXTENSION_ID);
+			markerContributors = contributors.toArray(new IMarkerAttributeContributor[contributors.size()]);
 		}
+		return markerContributors;
 	}
 
 	public static IMarker addMarker(IResource resource, String type, String message, int charNumber, Pair<String, ProblemSeverity> problemSeverity,
@@ -3444,7 +3503,7 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 	{
 		try
 		{
-			IMarker marker = resource.createMarker(type);
+			IMarker marker = createMarker(resource, type);
 			marker.setAttribute(IMarker.MESSAGE, message);
 			marker.setAttribute(IMarker.SEVERITY, severity);
 			marker.setAttribute(IMarker.PRIORITY, priority);
@@ -3470,11 +3529,29 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 		return null;
 	}
 
-	public static void deleteMarkers(IResource file, String type)
+	private static IMarker createMarker(IResource resource, String type) throws CoreException
 	{
+		MarkerCollector collector = MarkerCollector.getCurrent();
+		return collector != null ? collector.createMarker(resource, type) : resource.createMarker(type);
+	}
+
+	public static void deleteMarkers(IResource file, String... types)
+	{
+		MarkerCollector collector = MarkerCollector.getCurrent();
+		if (collector != null)
+		{
+			collector.deleteMarkers(file, types);
+			return;
+		}
 		try
 		{
-			if (file.getProject().isOpen() && file.exists()) file.deleteMarkers(type, true, IResource.DEPTH_INFINITE);
+			if (file.getProject().isOpen() && file.exists())
+			{
+				for (String type : types)
+				{
+					file.deleteMarkers(type, true, IResource.DEPTH_INFINITE);
+				}
+			}
 		}
 		catch (CoreException e)
 		{
@@ -3534,16 +3611,62 @@ public class ServoyBuilder extends IncrementalProjectBuilder
 		// the visitor does the work.
 		this.monitor = progressMonitor;
 
-		ServoyDeltaVisitor visitor = new ServoyDeltaVisitor();
+		final ServoyDeltaVisitor visitor = new ServoyDeltaVisitor();
 		delta.accept(visitor);
-		if (!ServoyBuilderUtils.checkIncrementalBuild(visitor.resources))
+		applyMarkerChanges(() -> {
+			if (!ServoyBuilderUtils.checkIncrementalBuild(visitor.resources))
+			{
+				for (IResource resource : visitor.resources)
+				{
+					checkResource(resource);
+				}
+			}
+		});
+		this.monitor = null;
+	}
+
+	/**
+	 * Rebuilds the files that changed while the loaded builder dependencies were stored on disk.
+	 *
+	 * @return false if one of the files cannot be handled incrementally, so a full build is needed
+	 */
+	private boolean rebuildChangedFiles(List<IFile> changedFiles, IProgressMonitor progressMonitor)
+	{
+		List<List<IResource>> changedResources = new ArrayList<List<IResource>>();
+		for (IFile file : changedFiles)
 		{
-			for (IResource resource : visitor.resources)
+			// same resource chain (project first) as the one the delta visitor builds
+			List<IResource> resources = new ArrayList<IResource>();
+			IResource resource = file;
+			while (resource != null && resource.getType() != IResource.ROOT)
 			{
-				checkResource(resource);
+				resources.add(0, resource);
+				resource = resource.getParent();
 			}
+			if (!ServoyBuilderUtils.canBuildIncremental(resources)) return false;
+			changedResources.add(resources);
 		}
-		this.monitor = null;
+		this.monitor = progressMonitor;
+		try
+		{
+			applyMarkerChanges(() -> {
+				for (List<IResource> resources : changedResources)
+				{
+					if (!ServoyBuilderUtils.checkIncrementalBuild(resources))
+					{
+						for (IResource resource : resources)
+						{
+							checkResource(resource);
+						}
+					}
+				}
+			});
+		}
+		finally
+		{
+			this.monitor = null;
+		}
+		return true;
 	}
 
 	protected void checkCancel()
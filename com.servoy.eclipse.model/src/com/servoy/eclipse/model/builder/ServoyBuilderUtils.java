@@ -210,17 +210,7 @@ public class ServoyBuilderUtils
 			ServoyBuilder.checkPersistDuplicateUUID();
 			ServoyBuilder.checkDuplicateScopes(file);
 
-			try
-			{
-				if (file.exists())
-				{
-					file.deleteMarkers(ServoyBuilder.SCRIPT_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				}
-			}
-			catch (CoreException e)
-			{
-				ServoyLog.logError(e);
-			}
+			ServoyBuilder.deleteMarkers(file, ServoyBuilder.SCRIPT_MARKER_TYPE);
 			Iterator<ScriptMethod> it = servoyModel.getFlattenedSolution().getScriptMethods(scopeName, false);
 			while (it.hasNext())
 			{
@@ -292,14 +282,7 @@ public class ServoyBuilderUtils
 
 	public static void checkServiceSolutionMustAuthenticate(IServoyModel servoyModel, Solution solution, IProject project)
 	{
-		try
-		{
-			project.deleteMarkers(ServoyBuilder.SERVICE_MUST_AUTHENTICATE_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-		}
-		catch (CoreException e)
-		{
-			ServoyLog.logError(e);
-		}
+		ServoyBuilder.deleteMarkers(project, ServoyBuilder.SERVICE_MUST_AUTHENTICATE_MARKER_TYPE);
 		if (servoyModel.getActiveProject().getSolution().getName().equals(solution.getName()))
 		{
 			//skipping modules when checking for web service solutions
@@ -550,9 +533,8 @@ public class ServoyBuilderUtils
 		Map<IPersist, Boolean> methodsReferences)
 	{
 		if (BaseComponent.isEventProperty(element.getName()) && !"onOpenMethodID".equals(element.getName()) &&
-			(foundPersist instanceof ScriptMethod) && !methodsParsed.contains(foundPersist.getUUID()))
+			(foundPersist instanceof ScriptMethod) && methodsParsed.add(foundPersist.getUUID()))
 		{
-			methodsParsed.add(foundPersist.getUUID());
 			ScriptMethod eventMethod = (ScriptMethod)foundPersist;
 
 			if (eventMethod != null && (eventMethod.getRuntimeProperty(IScriptProvider.METHOD_ARGUMENTS) == null ||
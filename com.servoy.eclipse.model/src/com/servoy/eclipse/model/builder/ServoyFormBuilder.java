@@ -2567,64 +2567,27 @@ public class ServoyFormBuilder
 	public static void deleteMarkers(Form form)
 	{
 		IResource markerResource = ServoyBuilderUtils.getPersistResource(form);
-		try
+		if (markerResource.exists())
 		{
-			if (markerResource.exists())
-			{
-				markerResource.deleteMarkers(ServoyBuilder.PROJECT_FORM_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.DEPRECATED_SCRIPT_ELEMENT_USAGE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.EVENT_METHOD_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.MULTIPLE_METHODS_ON_SAME_ELEMENT, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.METHOD_NUMBER_OF_ARGUMENTS_MISMATCH_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.PARAMETERS_MISMATCH, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.INVALID_DATAPROVIDERID, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.INVALID_EVENT_METHOD, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.SOLUTION_PROBLEM_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.HIDDEN_TABLE_STILL_IN_USE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.INVALID_SORT_OPTION, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.FORM_DUPLICATE_PART_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.UNRESOLVED_RELATION_UUID, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.PORTAL_DIFFERENT_RELATION_NAME_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.LABEL_FOR_ELEMENT_NOT_FOUND_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.MEDIA_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.MISSING_SPEC, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.MISSING_PROPERTY_FROM_SPEC, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.DEPRECATED_SPEC, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.OBSOLETE_ELEMENT, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.DEPRECATED_ELEMENT_USAGE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.DEPRECATED_PROPERTY_USAGE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.ELEMENT_EXTENDS_DELETED_ELEMENT_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.MISSING_STYLE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.FORM_WITH_DATASOURCE_IN_LOGIN_SOLUTION, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.NAMED_FOUNDSET_DATASOURCE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.DUPLICATE_SIBLING_UUID, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.METHOD_OVERRIDE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.WRONG_OVERRIDE_PARENT, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.DUPLICATE_NAME_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.SUPERFORM_PROBLEM_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.VARIANT_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-			}
-		}
-		catch (CoreException e)
-		{
-			ServoyLog.logError(e);
+			ServoyBuilder.deleteMarkers(markerResource, ServoyBuilder.PROJECT_FORM_MARKER_TYPE, ServoyBuilder.DEPRECATED_SCRIPT_ELEMENT_USAGE,
+				ServoyBuilder.EVENT_METHOD_MARKER_TYPE, ServoyBuilder.MULTIPLE_METHODS_ON_SAME_ELEMENT,
+				ServoyBuilder.METHOD_NUMBER_OF_ARGUMENTS_MISMATCH_TYPE, ServoyBuilder.PARAMETERS_MISMATCH, ServoyBuilder.INVALID_DATAPROVIDERID,
+				ServoyBuilder.INVALID_EVENT_METHOD, ServoyBuilder.SOLUTION_PROBLEM_MARKER_TYPE, ServoyBuilder.HIDDEN_TABLE_STILL_IN_USE,
+				ServoyBuilder.INVALID_SORT_OPTION, ServoyBuilder.FORM_DUPLICATE_PART_MARKER_TYPE, ServoyBuilder.UNRESOLVED_RELATION_UUID,
+				ServoyBuilder.PORTAL_DIFFERENT_RELATION_NAME_MARKER_TYPE, ServoyBuilder.LABEL_FOR_ELEMENT_NOT_FOUND_MARKER_TYPE,
+				ServoyBuilder.MEDIA_MARKER_TYPE, ServoyBuilder.MISSING_SPEC, ServoyBuilder.MISSING_PROPERTY_FROM_SPEC, ServoyBuilder.DEPRECATED_SPEC,
+				ServoyBuilder.OBSOLETE_ELEMENT, ServoyBuilder.DEPRECATED_ELEMENT_USAGE, ServoyBuilder.DEPRECATED_PROPERTY_USAGE,
+				ServoyBuilder.ELEMENT_EXTENDS_DELETED_ELEMENT_TYPE, ServoyBuilder.MISSING_STYLE,
+				ServoyBuilder.FORM_WITH_DATASOURCE_IN_LOGIN_SOLUTION, ServoyBuilder.NAMED_FOUNDSET_DATASOURCE, ServoyBuilder.DUPLICATE_SIBLING_UUID,
+				ServoyBuilder.METHOD_OVERRIDE, ServoyBuilder.WRONG_OVERRIDE_PARENT, ServoyBuilder.DUPLICATE_NAME_MARKER_TYPE,
+				ServoyBuilder.SUPERFORM_PROBLEM_TYPE, ServoyBuilder.VARIANT_MARKER_TYPE);
 		}
 		markerResource = ResourcesPlugin.getWorkspace().getRoot()
 			.getFile(new Path(SolutionSerializer.getScriptPath(form, false)));
-		try
+		if (markerResource.exists())
 		{
-			if (markerResource.exists())
-			{
-				markerResource.deleteMarkers(ServoyBuilder.RESERVED_WINDOW_OBJECT_USAGE_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.PROJECT_FORM_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.SCRIPT_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-				markerResource.deleteMarkers(ServoyBuilder.METHOD_OVERRIDE, true, IResource.DEPTH_INFINITE);
-			}
-		}
-		catch (CoreException e)
-		{
-			ServoyLog.logError(e);
+			ServoyBuilder.deleteMarkers(markerResource, ServoyBuilder.RESERVED_WINDOW_OBJECT_USAGE_TYPE, ServoyBuilder.PROJECT_FORM_MARKER_TYPE,
+				ServoyBuilder.SCRIPT_MARKER_TYPE, ServoyBuilder.METHOD_OVERRIDE);
 		}
-
 	}
 }
@@ -27,14 +27,12 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
 
 import com.servoy.eclipse.model.ServoyModelFinder;
 import com.servoy.eclipse.model.builder.MarkerMessages.ServoyMarker;
 import com.servoy.eclipse.model.extensions.IServoyModel;
 import com.servoy.eclipse.model.nature.ServoyProject;
 import com.servoy.eclipse.model.repository.SolutionSerializer;
-import com.servoy.eclipse.model.util.ServoyLog;
 import com.servoy.j2db.FlattenedSolution;
 import com.servoy.j2db.persistence.Form;
 import com.servoy.j2db.persistence.Media;
@@ -108,14 +106,6 @@ public class ServoyMediaBuilder
 	public static void deleteMarkers(Media media)
 	{
 		IResource markerResource = ServoyBuilderUtils.getPersistResource(media);
-		try
-		{
-			markerResource.deleteMarkers(ServoyBuilder.MEDIA_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-		}
-		catch (CoreException e)
-		{
-			ServoyLog.logError(e);
-		}
-
+		ServoyBuilder.deleteMarkers(markerResource, ServoyBuilder.MEDIA_MARKER_TYPE);
 	}
 }
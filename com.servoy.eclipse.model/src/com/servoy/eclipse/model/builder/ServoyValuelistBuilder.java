@@ -29,7 +29,6 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.CoreException;
 import org.eclipse.dltk.compiler.problem.ProblemSeverity;
 
 import com.servoy.base.persistence.constants.IValueListConstants;
@@ -104,19 +103,8 @@ public class ServoyValuelistBuilder
 	public static void deleteMarkers(ValueList valuelist)
 	{
 		IResource markerResource = ServoyBuilderUtils.getPersistResource(valuelist);
-		try
-		{
-			markerResource.deleteMarkers(ServoyBuilder.PROJECT_VALUELIST_MARKER_TYPE, true, IResource.DEPTH_INFINITE);
-			markerResource.deleteMarkers(ServoyBuilder.DEPRECATED_ELEMENT_USAGE, true, IResource.DEPTH_INFINITE);
-			markerResource.deleteMarkers(ServoyBuilder.DEPRECATED_SCRIPT_ELEMENT_USAGE, true, IResource.DEPTH_INFINITE);
-			markerResource.deleteMarkers(ServoyBuilder.HIDDEN_TABLE_STILL_IN_USE, true, IResource.DEPTH_INFINITE);
-			markerResource.deleteMarkers(ServoyBuilder.INVALID_SORT_OPTION, true, IResource.DEPTH_INFINITE);
-		}
-		catch (CoreException e)
-		{
-			ServoyLog.logError(e);
-		}
-
+		ServoyBuilder.deleteMarkers(markerResource, ServoyBuilder.PROJECT_VALUELIST_MARKER_TYPE, ServoyBuilder.DEPRECATED_ELEMENT_USAGE,
+			ServoyBuilder.DEPRECATED_SCRIPT_ELEMENT_USAGE, ServoyBuilder.HIDDEN_TABLE_STILL_IN_USE, ServoyBuilder.INVALID_SORT_OPTION);
 	}
 
 	/**
@@ -594,8 +582,7 @@ public class ServoyValuelistBuilder
 		}
 		catch (Exception ex)
 		{
-			ServoyBuilder.exceptionCount++;
-			if (ServoyBuilder.exceptionCount < ServoyBuilder.MAX_EXCEPTIONS) ServoyLog.logError(ex);
+			if (ServoyBuilder.exceptionCount.incrementAndGet() < ServoyBuilder.MAX_EXCEPTIONS) ServoyLog.logError(ex);
 			String customSeverity = ServoyBuilder.getSeverity(ServoyBuilder.VALUELIST_GENERIC_ERROR.getLeft(),
 				ServoyBuilder.VALUELIST_GENERIC_ERROR.getRight().name(), vl);
 			if (!customSeverity.equals(ProblemSeverity.IGNORE.name()))
@@ -28,10 +28,15 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -110,6 +115,17 @@ public class DataModelManager implements IServerInfoManager
 	public static final String TABLE_DATA_FILE_EXTENSION_WITH_DOT = ".data";
 	public static final String TEMP_UPPERCASE_PREFIX = "TEMP_"; // tables that are not considered as being 'real'
 
+	private static final int DBI_READ_THREADS = Integer.getInteger("servoy.dbi.threads", Runtime.getRuntime().availableProcessors()).intValue();
+	/**
+	 * Pool that reads and parses the dbi files of a server, the column info is still applied to the tables by the calling thread.
+	 */
+	private static final ForkJoinPool DBI_READ_POOL = new ForkJoinPool(Math.max(1, DBI_READ_THREADS), pool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("DBI reader " + thread.getPoolIndex());
+		thread.setContextClassLoader(DataModelManager.class.getClassLoader());
+		return thread;
+	}, null, false);
+
 	private final IProject resourceProject;
 	private final IServerManagerInternal sm;
 
@@ -246,7 +262,7 @@ public class DataModelManager implements IServerInfoManager
 				IServerInternal s = (IServerInternal)sm.getServer(t.getServerName());
 				if (s != null && s.getConfig().isEnabled() && s.isValid() && json_table != null)
 				{
-					deserializeTable(s, t, json_table);
+					applyTableInfo(s, t, DatabaseUtils.deserializeTableInfo(json_table));
 				}
 			}
 			catch (JSONException e)
@@ -278,23 +294,144 @@ public class DataModelManager implements IServerInfoManager
 		}
 		else
 		{
-			boolean clonedServerWithoutTableDbiInDeveloper = false;
-			if (ApplicationServerRegistry.get().isDeveloperStartup())
+			loadMissingColumnInfo(t);
+		}
+	}
+
+	/**
+	 * Loads the column info of many tables of one server at once. The dbi folder of the server is listed once and the dbi files are read and parsed in parallel,
+	 * then the column info is applied to the tables one by one in the calling thread; the problem markers of all the tables are added after that by the markers job.
+	 * When the column info of a table can't be loaded the other tables are still loaded, the first error is thrown at the end.
+	 */
+	public void loadAllColumnInfo(Collection<Table> tables, IServerInternal server) throws RepositoryException
+	{
+		IFolder serverFolder = getServerInformationFolder(server.getName());
+		if (tables.size() < 2 || DBI_READ_THREADS < 2 || serverFolder == null)
+		{
+			for (Table table : tables)
 			{
-				IServerInternal s = (IServerInternal)sm.getServer(t.getServerName());
-				// checking if the server is a clone
-				if (s != null && s.getConfig() != null && s.getConfig().getDataModelCloneFrom() != null && s.getConfig().getDataModelCloneFrom().length() != 0)
-					clonedServerWithoutTableDbiInDeveloper = true;
+				loadAllColumnInfo(table);
+			}
+			return;
+		}
+
+		Map<String, IFile> dbiFiles = new HashMap<String, IFile>();
+		try
+		{
+			if (serverFolder.exists())
+			{
+				for (IResource member : serverFolder.members())
+				{
+					if (member.getType() == IResource.FILE && COLUMN_INFO_FILE_EXTENSION.equals(member.getFileExtension()))
+					{
+						dbiFiles.put(member.getName(), (IFile)member);
+					}
+				}
+			}
+		}
+		catch (CoreException e)
+		{
+			throw new RepositoryException(e);
+		}
+
+		boolean deserialize = server.getConfig().isEnabled() && server.isValid();
+		Map<Table, Future<TableDef>> parsedTables = new LinkedHashMap<Table, Future<TableDef>>();
+		for (Table table : tables)
+		{
+			if (table == null || !table.getExistInDB()) continue;
+			IFile file = dbiFiles.get(getDBIFileName(table.getName()));
+			parsedTables.put(table, file != null && deserialize ? DBI_READ_POOL.submit(() -> readTableInfo(file)) : null);
+		}
+
+		RepositoryException firstError = null;
+		for (Map.Entry<Table, Future<TableDef>> entry : parsedTables.entrySet())
+		{
+			Table t = entry.getKey();
+			removeErrorMarker(t.getServerName(), t.getName());
+			for (Column element : t.getColumns())
+			{
+				element.removeColumnInfo();
+			}
+			if (!dbiFiles.containsKey(getDBIFileName(t.getName())))
+			{
+				loadMissingColumnInfo(t);
+				continue;
+			}
+			if (entry.getValue() == null) continue;
+			try
+			{
+				TableDef tableInfo = getParsedTableInfo(entry.getValue());
+				if (tableInfo != null) applyTableInfo(server, t, tableInfo);
 			}
-			if (!clonedServerWithoutTableDbiInDeveloper)
+			catch (JSONException | CoreException e)
 			{
-				addMissingDBIMarker(t.getServerName(), t.getName(), false);
+				// maybe the .dbi file content is corrupt... add an error marker
+				addTableDeserializeErrorMarker(t.getServerName(), t.getName(), e.getMessage());
+				if (firstError == null) firstError = new RepositoryException(e);
 			}
-			for (Column c : t.getColumns())
+			catch (RepositoryException e)
 			{
-				createNewColumnInfo(c, t.getPKColumnTypeRowIdentCount() == 1);//was missing - create automatic sequences if missing
+				addTableDeserializeErrorMarker(t.getServerName(), t.getName(), e.getMessage());
+				if (firstError == null) firstError = e;
 			}
 		}
+		if (firstError != null) throw firstError;
+	}
+
+	/**
+	 * Runs in the dbi read pool.
+	 */
+	private static TableDef readTableInfo(IFile file) throws CoreException, JSONException
+	{
+		InputStream is = file.getContents(true);
+		try
+		{
+			String json_table = Utils.getTXTFileContent(is, Charset.forName("UTF8"));
+			return json_table != null ? DatabaseUtils.deserializeTableInfo(json_table) : null;
+		}
+		finally
+		{
+			Utils.closeInputStream(is);
+		}
+	}
+
+	private static TableDef getParsedTableInfo(Future<TableDef> parsed) throws CoreException, JSONException, RepositoryException
+	{
+		try
+		{
+			return parsed.get();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof CoreException) throw (CoreException)e.getCause();
+			if (e.getCause() instanceof JSONException) throw (JSONException)e.getCause();
+			throw new RepositoryException(e.getCause());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RepositoryException(e);
+		}
+	}
+
+	private void loadMissingColumnInfo(ITable t)
+	{
+		boolean clonedServerWithoutTableDbiInDeveloper = false;
+		if (ApplicationServerRegistry.get().isDeveloperStartup())
+		{
+			IServerInternal s = (IServerInternal)sm.getServer(t.getServerName());
+			// checking if the server is a clone
+			if (s != null && s.getConfig() != null && s.getConfig().getDataModelCloneFrom() != null && s.getConfig().getDataModelCloneFrom().length() != 0)
+				clonedServerWithoutTableDbiInDeveloper = true;
+		}
+		if (!clonedServerWithoutTableDbiInDeveloper)
+		{
+			addMissingDBIMarker(t.getServerName(), t.getName(), false);
+		}
+		for (Column c : t.getColumns())
+		{
+			createNewColumnInfo(c, t.getPKColumnTypeRowIdentCount() == 1);//was missing - create automatic sequences if missing
+		}
 	}
 
 	public TableMetaInfo getTableMetainfo(IServerInternal server, String tableName)
@@ -744,10 +881,9 @@ public class DataModelManager implements IServerInfoManager
 		return file.equals(writingMarkerFreeDBIFile);
 	}
 
-	private void deserializeTable(IServerInternal s, ITable t, String json_table) throws RepositoryException, JSONException
+	private void applyTableInfo(IServerInternal s, ITable t, TableDef tableInfo) throws RepositoryException
 	{
 		int existingColumnInfo = 0;
-		TableDef tableInfo = DatabaseUtils.deserializeTableInfo(json_table);
 		if (!t.getName().equals(tableInfo.name))
 		{
 			throw new RepositoryException("Table name does not match dbi file name for " + t.getName());
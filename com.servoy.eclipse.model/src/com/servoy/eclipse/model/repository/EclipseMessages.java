@@ -18,10 +18,14 @@ package com.servoy.eclipse.model.repository;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -30,8 +34,10 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceVisitor;
@@ -80,6 +86,21 @@ public class EclipseMessages implements ICustomMessageLoader
 	private final HashMap<String, TreeMap<String, I18NUtil.MessageEntry>> i18nDatasourceMessages = new HashMap<String, TreeMap<String, I18NUtil.MessageEntry>>();
 	private final HashMap<String, Boolean> hasI18nDatasourceUnsavedMessages = new HashMap<String, Boolean>();
 
+	private static final int MAX_MESSAGE_FILE_SNAPSHOTS = Integer.getInteger("servoy.i18n.cachedMessageFiles", 64).intValue();
+	// the contents of the last used message files (one file per language) as last read or written, a file is only parsed again when it changed
+	private static final Map<IPath, MessageFileSnapshot> messageFileSnapshots = Collections.synchronizedMap(
+		new LinkedHashMap<IPath, MessageFileSnapshot>(16, 0.75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<IPath, MessageFileSnapshot> eldest)
+			{
+				return size() > MAX_MESSAGE_FILE_SNAPSHOTS;
+			}
+		});
+	private static final Object writingI18NJobLock = new Object();
+	// one lock per i18n table, so the messages of different tables can be read and written at the same time
+	private static final Map<String, Object> i18nTableLocks = new ConcurrentHashMap<String, Object>();
+
 	private static AvoidMultipleExecutionsWorkspaceJob writingI18NJobForAllActiveSolutionAndModules;
 	private static String writingI18NJobForAllActiveSolutionAndModules_lastProjectName;
 	private static boolean writingI18NJobForAllActiveSolutionAndModules_lastOverwriteExisting;
@@ -309,6 +330,7 @@ public class EclipseMessages implements ICustomMessageLoader
 		if (i18nDatasource != null && key != null && key.startsWith("i18n:")) //$NON-NLS-1$
 		{
 			key = key.substring(5);
+			// the table is loaded once and then kept, a lookup should not have to check the files
 			TreeMap<String, I18NUtil.MessageEntry> messages = getDatasourceMessages(i18nDatasource);
 			if (messages != null)
 			{
@@ -324,63 +346,68 @@ public class EclipseMessages implements ICustomMessageLoader
 	}
 
 	// write project solution & its modules i18n files to the resource project
-	public synchronized static void writeProjectI18NFiles(final ServoyProject servoyProject, final boolean overwriteExisting,
+	public static void writeProjectI18NFiles(final ServoyProject servoyProject, final boolean overwriteExisting,
 		final boolean deleteNonExistingKeys)
 	{
 		String projectName = null;
 		if (servoyProject != null) projectName = servoyProject.getProject().getName();
 
-		if (writingI18NJobForAllActiveSolutionAndModules == null ||
-			!Utils.stringSafeEquals(writingI18NJobForAllActiveSolutionAndModules_lastProjectName, projectName) ||
-			overwriteExisting != writingI18NJobForAllActiveSolutionAndModules_lastOverwriteExisting ||
-			deleteNonExistingKeys != writingI18NJobForAllActiveSolutionAndModules_lastDeleteNonExistingKeys)
+		// the files are written with the locks of the i18n tables, this lock is only for the reuse of the job
+		synchronized (writingI18NJobLock)
 		{
-			writingI18NJobForAllActiveSolutionAndModules_lastProjectName = projectName;
-			writingI18NJobForAllActiveSolutionAndModules_lastOverwriteExisting = overwriteExisting;
-			writingI18NJobForAllActiveSolutionAndModules_lastDeleteNonExistingKeys = deleteNonExistingKeys;
-			writingI18NJobForAllActiveSolutionAndModules = new AvoidMultipleExecutionsWorkspaceJob("Writing I18N files for active solution & modules...")
+			if (writingI18NJobForAllActiveSolutionAndModules == null ||
+				!Utils.stringSafeEquals(writingI18NJobForAllActiveSolutionAndModules_lastProjectName, projectName) ||
+				overwriteExisting != writingI18NJobForAllActiveSolutionAndModules_lastOverwriteExisting ||
+				deleteNonExistingKeys != writingI18NJobForAllActiveSolutionAndModules_lastDeleteNonExistingKeys)
 			{
-
-				@Override
-				protected IStatus runInWWorkspaceAvoidingMultipleExecutions(IProgressMonitor monitor)
+				writingI18NJobForAllActiveSolutionAndModules_lastProjectName = projectName;
+				writingI18NJobForAllActiveSolutionAndModules_lastOverwriteExisting = overwriteExisting;
+				writingI18NJobForAllActiveSolutionAndModules_lastDeleteNonExistingKeys = deleteNonExistingKeys;
+				writingI18NJobForAllActiveSolutionAndModules = new AvoidMultipleExecutionsWorkspaceJob("Writing I18N files for active solution & modules...")
 				{
-					Solution[] modules = servoyProject.getModules();
-					Solution[] allSolutions = new Solution[modules.length + 1];
-					allSolutions[0] = servoyProject.getSolution();
-					System.arraycopy(modules, 0, allSolutions, 1, modules.length);
 
-					try
+					@Override
+					protected IStatus runInWWorkspaceAvoidingMultipleExecutions(IProgressMonitor monitor)
 					{
-						for (Solution s : allSolutions)
+						Solution[] modules = servoyProject.getModules();
+						Solution[] allSolutions = new Solution[modules.length + 1];
+						allSolutions[0] = servoyProject.getSolution();
+						System.arraycopy(modules, 0, allSolutions, 1, modules.length);
+
+						try
 						{
-							String i18nDataSource = s.getI18nDataSource();
-							if (i18nDataSource != null)
+							for (Solution s : allSolutions)
 							{
-								ServoyResourcesProject resourceProject = servoyProject.getResourcesProject();
-								if (resourceProject != null)
+								String i18nDataSource = s.getI18nDataSource();
+								if (i18nDataSource != null)
 								{
-									String[] serverTableNames = DataSourceUtils.getDBServernameTablename(i18nDataSource);
-									TreeMap<String, I18NUtil.MessageEntry> messages = I18NUtil.loadSortedMessagesFromRepository(
-										ApplicationServerRegistry.get().getDeveloperRepository(), ApplicationServerRegistry.get().getDataServer(),
-										ApplicationServerRegistry.get().getClientId(), serverTableNames[0], serverTableNames[1], null, null, null);
-									writeMessages(serverTableNames[0], serverTableNames[1], messages, new WorkspaceFileAccess(ResourcesPlugin.getWorkspace()),
-										resourceProject.getProject(), false, overwriteExisting, deleteNonExistingKeys);
+									ServoyResourcesProject resourceProject = servoyProject.getResourcesProject();
+									if (resourceProject != null)
+									{
+										String[] serverTableNames = DataSourceUtils.getDBServernameTablename(i18nDataSource);
+										TreeMap<String, I18NUtil.MessageEntry> messages = I18NUtil.loadSortedMessagesFromRepository(
+											ApplicationServerRegistry.get().getDeveloperRepository(), ApplicationServerRegistry.get().getDataServer(),
+											ApplicationServerRegistry.get().getClientId(), serverTableNames[0], serverTableNames[1], null, null, null);
+										writeMessages(serverTableNames[0], serverTableNames[1], messages,
+											new WorkspaceFileAccess(ResourcesPlugin.getWorkspace()), resourceProject.getProject(), false, overwriteExisting,
+											deleteNonExistingKeys);
+									}
 								}
 							}
 						}
+						catch (final Exception ex)
+						{
+							ServoyLog.logError(ex);
+							ModelUtils.getUnexpectedSituationHandler().cannotWriteI18NFiles(ex);
+						}
+						return Status.OK_STATUS;
 					}
-					catch (final Exception ex)
-					{
-						ServoyLog.logError(ex);
-						ModelUtils.getUnexpectedSituationHandler().cannotWriteI18NFiles(ex);
-					}
-					return Status.OK_STATUS;
-				}
-			};
-			writingI18NJobForAllActiveSolutionAndModules.setUser(false);
-			writingI18NJobForAllActiveSolutionAndModules.setRule(ResourcesPlugin.getWorkspace().getRoot()); // prevent from running at the same time as builder that may be reading the messages
+				};
+				writingI18NJobForAllActiveSolutionAndModules.setUser(false);
+				writingI18NJobForAllActiveSolutionAndModules.setRule(ResourcesPlugin.getWorkspace().getRoot()); // prevent from running at the same time as builder that may be reading the messages
+			}
+			writingI18NJobForAllActiveSolutionAndModules.schedule();
 		}
-		writingI18NJobForAllActiveSolutionAndModules.schedule();
 	}
 
 	public static void writeMessages(String i18nServer, String i18nTable, TreeMap<String, I18NUtil.MessageEntry> messages, final IFileAccess workspaceDir)
@@ -396,9 +423,18 @@ public class EclipseMessages implements ICustomMessageLoader
 		writeMessages(i18nServer, i18nTable, messages, workspaceDir, resourceProject, true, true, true);
 	}
 
-	private synchronized static void writeMessages(String i18nServer, String i18nTable, TreeMap<String, I18NUtil.MessageEntry> messages,
-		final IFileAccess workspaceDir, IProject resourceProject, boolean bDeleteUnnecessaryI18NFiles, boolean overwriteExisting, boolean deleteNonExistingKeys)
-		throws RepositoryException
+	private static void writeMessages(String i18nServer, String i18nTable, TreeMap<String, I18NUtil.MessageEntry> messages, final IFileAccess workspaceDir,
+		IProject resourceProject, boolean bDeleteUnnecessaryI18NFiles, boolean overwriteExisting, boolean deleteNonExistingKeys) throws RepositoryException
+	{
+		synchronized (getI18NTableLock(i18nServer, i18nTable))
+		{
+			writeMessagesImpl(i18nServer, i18nTable, messages, workspaceDir, resourceProject, bDeleteUnnecessaryI18NFiles, overwriteExisting,
+				deleteNonExistingKeys);
+		}
+	}
+
+	private static void writeMessagesImpl(String i18nServer, String i18nTable, TreeMap<String, I18NUtil.MessageEntry> messages, final IFileAccess workspaceDir,
+		IProject resourceProject, boolean bDeleteUnnecessaryI18NFiles, boolean overwriteExisting, boolean deleteNonExistingKeys) throws RepositoryException
 	{
 		final HashMap<String, Properties> languagesOutput = new HashMap<String, Properties>();
 
@@ -433,20 +469,16 @@ public class EclipseMessages implements ICustomMessageLoader
 				if (!langExt.equals("")) langExt = "." + langExt;
 				messageFilePath = resourceProject.getFullPath().append(MESSAGES_DIR).append(i18nServer + "." + i18nTable + langExt + MESSAGES_EXTENSION);
 
-				String relativeFilePath = messageFilePath.toOSString();
-				if (!workspaceDir.exists(relativeFilePath))
+				IFile messageFile = ResourcesPlugin.getWorkspace().getRoot().getFile(messageFilePath);
+				// only the languages of which the messages changed are written, the old messages are parsed only when the file changed since the last read
+				Properties oldMessages = getMessageFileContents(messageFile, workspaceDir);
+				if (oldMessages == null)
 				{
-					ByteArrayOutputStream bos = new ByteArrayOutputStream();
-					languageOutputEntry.getValue().store(bos, null);
-					// cut first line conaining current date
-					workspaceDir.setContents(relativeFilePath, cutFirstLine(bos.toByteArray()));
-					bos.close();
+					setMessageFileContents(messageFile, languageOutputEntry.getValue(), workspaceDir);
 				}
 				else
 				{
 					Properties newMessages = languageOutputEntry.getValue();
-					Properties oldMessages = new Properties();
-					oldMessages.load(new ByteArrayInputStream(workspaceDir.getContents(relativeFilePath)));
 					if (!oldMessages.equals(newMessages))
 					{
 						if (!overwriteExisting || !deleteNonExistingKeys)
@@ -468,11 +500,7 @@ public class EclipseMessages implements ICustomMessageLoader
 							}
 						}
 
-						ByteArrayOutputStream bos = new ByteArrayOutputStream();
-						newMessages.store(bos, null);
-						// cut first line conaining current date
-						workspaceDir.setContents(relativeFilePath, cutFirstLine(bos.toByteArray()));
-						bos.close();
+						if (!oldMessages.equals(newMessages)) setMessageFileContents(messageFile, newMessages, workspaceDir);
 					}
 				}
 			}
@@ -505,6 +533,7 @@ public class EclipseMessages implements ICustomMessageLoader
 									if (!languagesOutput.containsKey(language))
 									{
 										workspaceDir.delete(resource.getFullPath().toOSString());
+										messageFileSnapshots.remove(resource.getFullPath());
 									}
 								}
 								catch (Exception ex)
@@ -527,7 +556,16 @@ public class EclipseMessages implements ICustomMessageLoader
 		}
 	}
 
-	public synchronized static TreeMap<String, I18NUtil.MessageEntry> readMessages(String i18nServer, String i18nTable, final IFileAccess workspaceDir)
+	public static TreeMap<String, I18NUtil.MessageEntry> readMessages(String i18nServer, String i18nTable, final IFileAccess workspaceDir)
+		throws RepositoryException
+	{
+		synchronized (getI18NTableLock(i18nServer, i18nTable))
+		{
+			return readMessagesImpl(i18nServer, i18nTable, workspaceDir);
+		}
+	}
+
+	private static TreeMap<String, I18NUtil.MessageEntry> readMessagesImpl(String i18nServer, String i18nTable, final IFileAccess workspaceDir)
 		throws RepositoryException
 	{
 		try
@@ -546,7 +584,7 @@ public class EclipseMessages implements ICustomMessageLoader
 						public boolean visit(IResource resource) throws CoreException
 						{
 							String resourceName = resource.getName();
-							if (resourceName.startsWith(messageFileName) && resourceName.endsWith(MESSAGES_EXTENSION))
+							if (resource.getType() == IResource.FILE && resourceName.startsWith(messageFileName) && resourceName.endsWith(MESSAGES_EXTENSION))
 							{
 								try
 								{
@@ -558,9 +596,8 @@ public class EclipseMessages implements ICustomMessageLoader
 										language = language.substring(1);
 									}
 
-									byte[] messages = workspaceDir.getContents(resource.getFullPath().toOSString());
-									Properties messagesProp = new Properties();
-									messagesProp.load(new ByteArrayInputStream(messages));
+									Properties messagesProp = getMessageFileContents((IFile)resource, workspaceDir);
+									if (messagesProp == null) return true;
 
 									Iterator<Map.Entry<Object, Object>> messagesPropIte = messagesProp.entrySet().iterator();
 									Map.Entry<Object, Object> messagesPropEntry;
@@ -593,7 +630,15 @@ public class EclipseMessages implements ICustomMessageLoader
 		}
 	}
 
-	public synchronized static void deleteMessageFileNames(String i18nServer, String i18nTable)
+	public static void deleteMessageFileNames(String i18nServer, String i18nTable)
+	{
+		synchronized (getI18NTableLock(i18nServer, i18nTable))
+		{
+			deleteMessageFileNamesImpl(i18nServer, i18nTable);
+		}
+	}
+
+	private static void deleteMessageFileNamesImpl(String i18nServer, String i18nTable)
 	{
 		String[] messageFileNames = getMessageFileNames(i18nServer, i18nTable, false);
 		if (messageFileNames.length > 0)
@@ -612,6 +657,7 @@ public class EclipseMessages implements ICustomMessageLoader
 							try
 							{
 								i18nResource.delete(true, null);
+								messageFileSnapshots.remove(i18nResource.getFullPath());
 							}
 							catch (Exception ex)
 							{
@@ -634,7 +680,7 @@ public class EclipseMessages implements ICustomMessageLoader
 		return getMessageFileNames(i18nServer, i18nTable, false);
 	}
 
-	private synchronized static String[] getMessageFileNames(String i18nServer, String i18nTable, final boolean onlyDefaults)
+	private static String[] getMessageFileNames(String i18nServer, String i18nTable, final boolean onlyDefaults)
 	{
 		try
 		{
@@ -689,7 +735,7 @@ public class EclipseMessages implements ICustomMessageLoader
 		}
 	}
 
-	public synchronized static String getMessageFileContent(String messageFileName, final IFileAccess workspaceDir)
+	public static String getMessageFileContent(String messageFileName, final IFileAccess workspaceDir)
 	{
 		try
 		{
@@ -713,6 +759,79 @@ public class EclipseMessages implements ICustomMessageLoader
 		return null;
 	}
 
+	private static Object getI18NTableLock(String i18nServer, String i18nTable)
+	{
+		return i18nTableLocks.computeIfAbsent(i18nServer + "." + i18nTable, key -> new Object());
+	}
+
+	/**
+	 * Must be called with the lock of the i18n table, the returned messages must not be changed.
+	 *
+	 * @return the messages of the file, null when it doesn't exist
+	 */
+	private static Properties getMessageFileContents(IFile file, IFileAccess workspaceDir) throws IOException
+	{
+		String relativeFilePath = file.getFullPath().toOSString();
+		if (!workspaceDir.exists(relativeFilePath))
+		{
+			messageFileSnapshots.remove(file.getFullPath());
+			return null;
+		}
+		MessageFileSnapshot snapshot = messageFileSnapshots.get(file.getFullPath());
+		if (snapshot != null && snapshot.isCurrent(file)) return snapshot.messages;
+
+		Properties messages = new Properties();
+		messages.load(new ByteArrayInputStream(workspaceDir.getContents(relativeFilePath)));
+		messageFileSnapshots.put(file.getFullPath(), new MessageFileSnapshot(file, messages));
+		return messages;
+	}
+
+	/**
+	 * Must be called with the lock of the i18n table, the messages must not be changed afterwards.
+	 */
+	private static void setMessageFileContents(IFile file, Properties messages, IFileAccess workspaceDir) throws IOException
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		messages.store(bos, null);
+		// cut first line conaining current date
+		workspaceDir.setContents(file.getFullPath().toOSString(), cutFirstLine(bos.toByteArray()));
+		bos.close();
+		messageFileSnapshots.put(file.getFullPath(), new MessageFileSnapshot(file, messages));
+	}
+
+	private static final class MessageFileSnapshot
+	{
+		private final long modificationStamp;
+		private final long lastModified;
+		private final long length;
+		private final Properties messages;
+
+		private MessageFileSnapshot(IFile file, Properties messages)
+		{
+			this.modificationStamp = file.getModificationStamp();
+			File localFile = getLocalFile(file);
+			this.lastModified = localFile != null ? localFile.lastModified() : 0;
+			this.length = localFile != null ? localFile.length() : -1;
+			this.messages = messages;
+		}
+
+		/**
+		 * The resource tree is not refreshed when the file is changed outside of eclipse, so the file on disk is compared as well.
+		 */
+		private boolean isCurrent(IFile file)
+		{
+			if (modificationStamp == IResource.NULL_STAMP || modificationStamp != file.getModificationStamp()) return false;
+			File localFile = getLocalFile(file);
+			return localFile != null && localFile.lastModified() == lastModified && localFile.length() == length;
+		}
+
+		private static File getLocalFile(IFile file)
+		{
+			IPath location = file.getLocation();
+			return location != null ? location.toFile() : null;
+		}
+	}
+
 	private static byte[] cutFirstLine(byte[] output)
 	{
 		int newLineIdx = -1;
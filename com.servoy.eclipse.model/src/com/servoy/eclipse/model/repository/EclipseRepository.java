@@ -267,8 +267,14 @@ public class EclipseRepository extends AbstractRepository implements IRepository
 
 					ServoyProject sp = ServoyModelFinder.getServoyModel().getServoyProject(romd.getName());
 					SolutionDeserializer sd = new SolutionDeserializer(this, sp);
+					ParsedScriptCache parsedScriptCache = ParsedScriptCache.load(romd.getName());
+					sd.setParsedScriptCache(parsedScriptCache);
 					long time = System.currentTimeMillis();
 					rootObject = sd.readSolution(wsa.getProjectFile(romd.getName()), (SolutionMetaData)romd, null, false);
+					if (rootObject != null && parsedScriptCache != null)
+					{
+						parsedScriptCache.save();
+					}
 					if (rootObject == null)
 					{
 						ServoyLog.logError("Could not read solution " + romd.getName(), null);
@@ -914,4 +920,4 @@ public class EclipseRepository extends AbstractRepository implements IRepository
 
 		return repositoryUUID;
 	}
-}
\ No newline at end of file
+}
\ No newline at end of file
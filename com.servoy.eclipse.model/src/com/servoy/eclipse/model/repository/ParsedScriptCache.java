@@ -0,0 +1,221 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.model.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.servoy.eclipse.model.Activator;
+import com.servoy.eclipse.model.util.ServoyLog;
+import com.servoy.j2db.util.ServoyJSONObject;
+
+/**
+ * Binary snapshot of the parsed js files of one solution, stored in the state location of the model plugin.
+ * A file is only parsed again when its size or last modified timestamp differs from the snapshot, so activating an unchanged solution skips the javascript parser.
+ * The cache is filled and consulted concurrently by the parse pool of the {@link SolutionDeserializer}.
+ */
+class ParsedScriptCache
+{
+	private static final String CACHE_DIR_NAME = "parsedScripts";
+	private static final int STORAGE_VERSION = 1;
+
+	private final File storageFile;
+	private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final Map<String, Boolean> used = new ConcurrentHashMap<String, Boolean>();
+	private volatile boolean changed;
+
+	private ParsedScriptCache(File storageFile)
+	{
+		this.storageFile = storageFile;
+	}
+
+	/**
+	 * Reads the snapshot of the given solution, an unusable or missing snapshot results in an empty cache.
+	 *
+	 * @return the cache or null if there is no state location to store it
+	 */
+	static ParsedScriptCache load(String solutionName)
+	{
+		Activator activator = Activator.getDefault();
+		if (activator == null || solutionName == null) return null;
+		File dir = activator.getStateLocation().append(CACHE_DIR_NAME).toFile();
+		if (!dir.exists() && !dir.mkdirs()) return null;
+
+		ParsedScriptCache cache = new ParsedScriptCache(new File(dir, solutionName + ".bin"));
+		if (cache.storageFile.exists())
+		{
+			try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache.storageFile))))
+			{
+				if (in.readInt() == STORAGE_VERSION && getVersion().equals(in.readUTF()))
+				{
+					int count = in.readInt();
+					for (int i = 0; i < count; i++)
+					{
+						String path = in.readUTF();
+						long lastModified = in.readLong();
+						long length = in.readLong();
+						String[] objects = new String[in.readInt()];
+						for (int j = 0; j < objects.length; j++)
+						{
+							byte[] bytes = new byte[in.readInt()];
+							in.readFully(bytes);
+							objects[j] = new String(bytes, StandardCharsets.UTF_8);
+						}
+						cache.entries.put(path, new Entry(lastModified, length, objects));
+					}
+				}
+			}
+			catch (IOException | RuntimeException e)
+			{
+				ServoyLog.logError("Could not read the parsed scripts cache of solution " + solutionName, e);
+				cache.entries.clear();
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Get the parse result of the file when the snapshot is still valid for it.
+	 *
+	 * @param changedAttribute name of the changed attribute, this is not part of the snapshot
+	 * @param markAsChanged value for the changed attribute of the returned objects
+	 * @return fresh json objects (the caller may modify them) or null when the file has to be parsed
+	 */
+	List<JSONObject> get(File file, String changedAttribute, boolean markAsChanged)
+	{
+		String path = file.getAbsolutePath();
+		Entry entry = entries.get(path);
+		if (entry == null || entry.lastModified != file.lastModified() || entry.length != file.length()) return null;
+		try
+		{
+			List<JSONObject> jsonObjects = new ArrayList<JSONObject>(entry.objects.length);
+			for (String object : entry.objects)
+			{
+				JSONObject json = new ServoyJSONObject(object, false);
+				json.put(changedAttribute, markAsChanged);
+				jsonObjects.add(json);
+			}
+			used.put(path, Boolean.TRUE);
+			return jsonObjects;
+		}
+		catch (JSONException e)
+		{
+			ServoyLog.logError("Invalid parsed scripts cache entry for " + path, e);
+			entries.remove(path);
+			changed = true;
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the parse result of the file, the objects must only contain json values.
+	 */
+	void put(File file, List<JSONObject> jsonObjects)
+	{
+		String path = file.getAbsolutePath();
+		String[] objects = new String[jsonObjects.size()];
+		for (int i = 0; i < objects.length; i++)
+		{
+			objects[i] = jsonObjects.get(i).toString();
+		}
+		entries.put(path, new Entry(file.lastModified(), file.length(), objects));
+		used.put(path, Boolean.TRUE);
+		changed = true;
+	}
+
+	/**
+	 * Writes the snapshot back to disk, entries of files that where not read (deleted or renamed files) are dropped.
+	 */
+	void save()
+	{
+		Iterator<String> it = entries.keySet().iterator();
+		while (it.hasNext())
+		{
+			if (!used.containsKey(it.next()))
+			{
+				it.remove();
+				changed = true;
+			}
+		}
+		if (!changed) return;
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(storageFile))))
+		{
+			out.writeInt(STORAGE_VERSION);
+			out.writeUTF(getVersion());
+			out.writeInt(entries.size());
+			for (Map.Entry<String, Entry> mapEntry : entries.entrySet())
+			{
+				Entry entry = mapEntry.getValue();
+				out.writeUTF(mapEntry.getKey());
+				out.writeLong(entry.lastModified);
+				out.writeLong(entry.length);
+				out.writeInt(entry.objects.length);
+				for (String object : entry.objects)
+				{
+					byte[] bytes = object.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+			}
+			changed = false;
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not write the parsed scripts cache " + storageFile, e);
+			storageFile.delete();
+		}
+	}
+
+	/**
+	 * The parse result depends on the deserializer code, so a snapshot of another build is never used.
+	 */
+	private static String getVersion()
+	{
+		return Activator.getDefault().getBundle().getVersion().toString();
+	}
+
+	private static class Entry
+	{
+		private final long lastModified;
+		private final long length;
+		private final String[] objects;
+
+		private Entry(long lastModified, long length, String[] objects)
+		{
+			this.lastModified = lastModified;
+			this.length = length;
+			this.objects = objects;
+		}
+	}
+}
@@ -33,6 +33,11 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProjectNature;
@@ -144,12 +149,22 @@ public class SolutionDeserializer
 	};
 	private final IDeveloperRepository repository;
 	private final ErrorKeeper<File, String> errorKeeper;
-	private static final Map<UUID, HashSet<UUID>> alreadyUsedUUID = new HashMap<UUID, HashSet<UUID>>(16, 0.9f);
-	private static final Map<UUID, UUID> childToContainerUUID = new HashMap<UUID, UUID>(16, 0.9f);
+	private static final Map<UUID, Set<UUID>> alreadyUsedUUID = new ConcurrentHashMap<UUID, Set<UUID>>(16, 0.9f);
+	private static final Map<UUID, UUID> childToContainerUUID = new ConcurrentHashMap<UUID, UUID>(16, 0.9f);
+	/**
+	 * Pool that parses the json and js files of a solution directory, the persists are still created by the calling thread in the file order.
+	 * It is shut down by {@link #shutdownParsePool()} when the model plugin stops.
+	 */
+	private static final ForkJoinPool PARSE_POOL = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors()), pool -> {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName("Solution deserializer " + thread.getPoolIndex());
+		thread.setContextClassLoader(SolutionDeserializer.class.getClassLoader());
+		return thread;
+	}, null, false);
 	private final File jsFile;
 	private final String jsContent;
 	private ICalculationTypeInferencerProvider calculationTypeInferencerProvider;
-	private ICalculationTypeInferencer calculationTypeInferencer;
+	private ParsedScriptCache parsedScriptCache;
 
 	public SolutionDeserializer(IDeveloperRepository repository, ErrorKeeper<File, String> errorKeeper)
 	{
@@ -167,6 +182,14 @@ public class SolutionDeserializer
 		this.jsContent = jsContent;
 	}
 
+	/**
+	 * Use a snapshot of earlier parse results, js files that did not change since then are not parsed again.
+	 */
+	void setParsedScriptCache(ParsedScriptCache parsedScriptCache)
+	{
+		this.parsedScriptCache = parsedScriptCache;
+	}
+
 	public static JSONObject getJSONObject(String content)
 	{
 		try
@@ -193,16 +216,23 @@ public class SolutionDeserializer
 		return null;
 	}
 
-	private static HashSet<UUID> getAlreadyUsedUUIDsForSolution(UUID solutionUUID)
+	private static Set<UUID> getAlreadyUsedUUIDsForSolution(UUID solutionUUID)
+	{
+		return alreadyUsedUUID.computeIfAbsent(solutionUUID, uuid -> ConcurrentHashMap.newKeySet(512));
+	}
+
+	/**
+	 * Error keepers are not required to be thread safe, but js files can be parsed concurrently.
+	 */
+	private void addError(File file, String error)
 	{
-		HashSet<UUID> solutionUUIDs = alreadyUsedUUID.get(solutionUUID);
-		if (solutionUUIDs == null)
+		if (errorKeeper != null)
 		{
-			solutionUUIDs = new HashSet<UUID>(512, 0.9f);
-			alreadyUsedUUID.put(solutionUUID, solutionUUIDs);
+			synchronized (errorKeeper)
+			{
+				errorKeeper.addError(file, error);
+			}
 		}
-
-		return solutionUUIDs;
 	}
 
 	public Solution readSolution(File projectDir, SolutionMetaData smd, List<File> changedFiles, boolean useFilesForDirtyMark) throws RepositoryException
@@ -220,7 +250,7 @@ public class SolutionDeserializer
 			public void itemRemoved(IPersist item)
 			{
 				UUID uuid = item.getUUID();
-				HashSet<UUID> solutionUUIDs = alreadyUsedUUID.get(solution.getUUID());
+				Set<UUID> solutionUUIDs = alreadyUsedUUID.get(solution.getUUID());
 				if (solutionUUIDs != null)
 				{
 					solutionUUIDs.remove(uuid);
@@ -246,7 +276,7 @@ public class SolutionDeserializer
 
 			}
 		});
-		HashSet<UUID> solutionUUIDs = getAlreadyUsedUUIDsForSolution(solution.getUUID());
+		Set<UUID> solutionUUIDs = getAlreadyUsedUUIDsForSolution(solution.getUUID());
 		solutionUUIDs.clear();
 
 		updateSolution(projectDir, solution, changedFiles, null, true, useFilesForDirtyMark, false, false, false);
@@ -326,11 +356,8 @@ public class SolutionDeserializer
 		}
 		catch (Exception e)
 		{
-			if (errorKeeper != null)
-			{
-				// get the innermost exception - the most relevant one for the user
-				errorKeeper.addError(solutionDir, "Please check the .log file for more info.");
-			}
+			// get the innermost exception - the most relevant one for the user
+			addError(solutionDir, "Please check the .log file for more info.");
 			if (e instanceof RepositoryException)
 			{
 				throw (RepositoryException)e;
@@ -362,101 +389,116 @@ public class SolutionDeserializer
 			Arrays.sort(files, new ObjBeforeJSExtensionComparator());
 			Map<File, List<JSONObject>> childrenJSObjectMap = new HashMap<File, List<JSONObject>>(); // js objects from Form & TableNode
 			Map<File, ISupportChilds> jsParentFileMap = new HashMap<File, ISupportChilds>(); // keep which js files belong to which parent
-
-			for (final String file : files)
+			Map<String, Future< ? >> parsedFiles = readAll ? parseFiles(solutionDir, dir, files, changedFiles, doCleanup) : Collections.emptyMap();
+			try
 			{
-				File f = null;
-				try
+				for (final String file : files)
 				{
-					// root metadata and medias are read elsewhere
-					if (dir.equals(solutionDir) && (file.equals(SolutionSerializer.MEDIAS_DIR) || file.equals(SolutionSerializer.MEDIAS_FILE) ||
-						file.equals(SolutionSerializer.ROOT_METADATA)))
+					File f = null;
+					try
 					{
-						continue;
-					}
+						// root metadata and medias are read elsewhere
+						if (isSkippedSolutionDirEntry(solutionDir, dir, file))
+						{
+							continue;
+						}
 
-					f = new File(dir, file);
-					if (f.isDirectory())
-					{
-						subdirs.add(f);
-					}
-					else
-					{
-						boolean changed = isChangedFile(solutionDir, f, changedFiles);
-						if (readAll || changed || hasSubEntries(f, changedFiles) || hasRelatedEntries(f, changedFiles))
+						f = new File(dir, file);
+						if (f.isDirectory())
 						{
-							boolean recognized = false;
-							if (SolutionSerializer.isJSONFile(file))
-							{
-								JSONObject json_obj = new ServoyJSONObject(Utils.getTXTFileContent(f, Charset.forName("UTF8")), true);
-								if (json_obj.length() == 0)
-								{
-									// empty file just skip this one.
-									continue;
-								}
-								json_obj.put(CHANGED_JSON_ATTRIBUTE, changed);
-								jsonObjects.add(json_obj);
-								fileMap.put(json_obj, f);
-								recognized = true;
-							}
-							else if (file.endsWith(SolutionSerializer.JS_FILE_EXTENSION))
+							subdirs.add(f);
+						}
+						else
+						{
+							boolean changed = isChangedFile(solutionDir, f, changedFiles);
+							if (readAll || changed || hasSubEntries(f, changedFiles) || hasRelatedEntries(f, changedFiles))
 							{
-								List<JSONObject> scriptObjects = parseJSFile(f, changed, doCleanup);
-								if (dir.equals(solutionDir))
+								boolean recognized = false;
+								if (SolutionSerializer.isJSONFile(file))
 								{
-									// the scope name for global methods/variables is based on the filename
-									String scopeName = file.substring(0, file.length() - SolutionSerializer.JS_FILE_EXTENSION.length());
-									for (JSONObject so : scriptObjects)
+									Future< ? > parsed = parsedFiles.get(file);
+									JSONObject json_obj = parsed != null ? (JSONObject)getParseResult(parsed)
+										: new ServoyJSONObject(Utils.getTXTFileContent(f, Charset.forName("UTF8")), true);
+									if (json_obj.length() == 0)
 									{
-										so.put(StaticContentSpecLoader.PROPERTY_SCOPENAME.getPropertyName(), scopeName);
+										// empty file just skip this one.
+										continue;
 									}
+									json_obj.put(CHANGED_JSON_ATTRIBUTE, changed);
+									jsonObjects.add(json_obj);
+									fileMap.put(json_obj, f);
+									recognized = true;
 								}
-								File parentFile = f.getParentFile();
-								if (parentFile.getName().equals(SolutionSerializer.FORMS_DIR) || (parentFile.getParentFile() != null &&
-									parentFile.getParentFile().getName().equals(SolutionSerializer.DATASOURCES_DIR_NAME)))
+								else if (file.endsWith(SolutionSerializer.JS_FILE_EXTENSION))
 								{
-									childrenJSObjectMap.put(f, scriptObjects);
-								}
-								else
-								{
-									// old structure parsing
-									if (!readAll)
+									Future< ? > parsed = parsedFiles.get(file);
+									@SuppressWarnings("unchecked")
+									List<JSONObject> scriptObjects = parsed != null ? (List<JSONObject>)getParseResult(parsed)
+										: parseJSFile(f, changed, doCleanup);
+									if (dir.equals(solutionDir))
 									{
-										testDuplicates(f, parent, scriptObjects);
+										// the scope name for global methods/variables is based on the filename
+										String scopeName = file.substring(0, file.length() - SolutionSerializer.JS_FILE_EXTENSION.length());
+										for (JSONObject so : scriptObjects)
+										{
+											so.put(StaticContentSpecLoader.PROPERTY_SCOPENAME.getPropertyName(), scopeName);
+										}
 									}
-									if (scriptObjects != null)
+									File parentFile = f.getParentFile();
+									if (parentFile.getName().equals(SolutionSerializer.FORMS_DIR) || (parentFile.getParentFile() != null &&
+										parentFile.getParentFile().getName().equals(SolutionSerializer.DATASOURCES_DIR_NAME)))
 									{
-										jsonObjects.addAll(scriptObjects);
-										scriptFiles.add(f);
-										jsParentFileMap.put(f, parent);
+										childrenJSObjectMap.put(f, scriptObjects);
 									}
-									if (scriptObjects != null)
+									else
 									{
-										for (JSONObject object : scriptObjects)
+										// old structure parsing
+										if (!readAll)
+										{
+											testDuplicates(f, parent, scriptObjects);
+										}
+										if (scriptObjects != null)
+										{
+											jsonObjects.addAll(scriptObjects);
+											scriptFiles.add(f);
+											jsParentFileMap.put(f, parent);
+										}
+										if (scriptObjects != null)
 										{
-											fileMap.put(object, f);
+											for (JSONObject object : scriptObjects)
+											{
+												fileMap.put(object, f);
+											}
 										}
 									}
+									recognized = true;
+								}
+								if (changedFiles != null && recognized)
+								{
+									changedFiles.remove(f);
 								}
-								recognized = true;
-							}
-							if (changedFiles != null && recognized)
-							{
-								changedFiles.remove(f);
 							}
 						}
+						// skip all other files
+					}
+					catch (JSONException e)
+					{
+						// skip this file
+						if (f != null) addError(f, e.getMessage());
+						ServoyLog.logError("Invalid JSON syntax in file " + f, e);
+					}
+					catch (Exception e)
+					{
+						ServoyLog.logError("Error reading file " + f, e);
 					}
-					// skip all other files
-				}
-				catch (JSONException e)
-				{
-					// skip this file
-					if (f != null && errorKeeper != null) errorKeeper.addError(f, e.getMessage());
-					ServoyLog.logError("Invalid JSON syntax in file " + f, e);
 				}
-				catch (Exception e)
+			}
+			finally
+			{
+				// files that are not read anymore (an error that stopped the loop) should not keep the pool busy
+				for (Future< ? > parsed : parsedFiles.values())
 				{
-					ServoyLog.logError("Error reading file " + f, e);
+					parsed.cancel(true);
 				}
 			}
 
@@ -505,7 +547,7 @@ public class SolutionDeserializer
 						jsonFile = tmp.getLeft();
 						if (jsonFile == null)
 						{
-							errorKeeper.addError(jsFile, "Unrecognized javascript file name '" + jsFile.getName() + "'.");
+							addError(jsFile, "Unrecognized javascript file name '" + jsFile.getName() + "'.");
 							continue;
 						}
 						ISupportChilds scriptParent = tmp.getRight();
@@ -553,13 +595,13 @@ public class SolutionDeserializer
 						}
 						else
 						{
-							errorKeeper.addError(jsFile, "Invalid javascript file name '" + jsFile.getName() + "', doesn't have a corresponding object.");
+							addError(jsFile, "Invalid javascript file name '" + jsFile.getName() + "', doesn't have a corresponding object.");
 						}
 					}
 				}
 				catch (Exception e)
 				{
-					errorKeeper.addError(jsFile, "Error reading file " + jsFile);
+					addError(jsFile, "Error reading file " + jsFile);
 					ServoyLog.logError("Error reading file " + jsFile, e);
 				}
 			}
@@ -601,6 +643,62 @@ public class SolutionDeserializer
 		}
 	}
 
+	private static boolean isSkippedSolutionDirEntry(File solutionDir, File dir, String file)
+	{
+		return dir.equals(solutionDir) &&
+			(file.equals(SolutionSerializer.MEDIAS_DIR) || file.equals(SolutionSerializer.MEDIAS_FILE) || file.equals(SolutionSerializer.ROOT_METADATA));
+	}
+
+	/**
+	 * Starts parsing all json and js files of a directory on the parse pool. Calculation files are left to the calling thread,
+	 * their type inferencing works on the workspace model.
+	 *
+	 * @return the pending parse results by file name
+	 */
+	private Map<String, Future< ? >> parseFiles(File solutionDir, File dir, String[] files, List<File> changedFiles, boolean doCleanup)
+	{
+		Map<String, Future< ? >> parsedFiles = new HashMap<String, Future< ? >>();
+		for (String file : files)
+		{
+			if (isSkippedSolutionDirEntry(solutionDir, dir, file)) continue;
+			final File f = new File(dir, file);
+			if (SolutionSerializer.isJSONFile(file))
+			{
+				parsedFiles.put(file, PARSE_POOL.submit(() -> {
+					if (f.isDirectory()) return null;
+					return new ServoyJSONObject(Utils.getTXTFileContent(f, Charset.forName("UTF8")), true);
+				}));
+			}
+			else if (file.endsWith(SolutionSerializer.JS_FILE_EXTENSION) && !file.endsWith(SolutionSerializer.CALCULATIONS_POSTFIX))
+			{
+				final boolean changed = isChangedFile(solutionDir, f, changedFiles);
+				parsedFiles.put(file, PARSE_POOL.submit(() -> f.isDirectory() ? null : parseJSFile(f, changed, doCleanup)));
+			}
+		}
+		return parsedFiles;
+	}
+
+	/**
+	 * Stops the threads of the parse pool, called when the model plugin stops.
+	 */
+	public static void shutdownParsePool()
+	{
+		PARSE_POOL.shutdownNow();
+	}
+
+	private static Object getParseResult(Future< ? > parsed) throws Exception
+	{
+		try
+		{
+			return parsed.get();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof Exception) throw (Exception)e.getCause();
+			throw e;
+		}
+	}
+
 	public static Pair<File, ISupportChilds> getJSONFileFromJS(File jsFile, String jsFileName, ISupportChilds parent) throws RepositoryException
 	{
 		File jsonFile = null;
@@ -979,7 +1077,7 @@ public class SolutionDeserializer
 				}
 				catch (JSONException jsonex)
 				{
-					if (fmediasobjects != null && errorKeeper != null) errorKeeper.addError(fmediasobjects, jsonex.getMessage());
+					if (fmediasobjects != null) addError(fmediasobjects, jsonex.getMessage());
 					ServoyLog.logError("Could not read medias.obj file " + fmediasobjects, jsonex);
 					return;
 				}
@@ -1002,6 +1100,68 @@ public class SolutionDeserializer
 	}
 
 	private List<JSONObject> parseJSFile(final File file, boolean markAsChanged, boolean doCleanup) throws JSONException
+	{
+		// calculations are typed using the inferencer and editor content is not on disk yet, those are always parsed
+		if (parsedScriptCache == null || doCleanup || jsFile == file || file.getName().endsWith(SolutionSerializer.CALCULATIONS_POSTFIX))
+		{
+			return parseJSFileContent(file, markAsChanged, doCleanup);
+		}
+
+		List<JSONObject> jsonObjects = parsedScriptCache.get(file, CHANGED_JSON_ATTRIBUTE, markAsChanged);
+		if (jsonObjects == null)
+		{
+			jsonObjects = parseJSFileContent(file, markAsChanged, doCleanup);
+			// files with parse errors are not cached, so the errors are reported again next time
+			if (jsonObjects != null && jsonObjects.size() > 0)
+			{
+				List<JSONObject> snapshot = new ArrayList<JSONObject>(jsonObjects.size());
+				for (JSONObject json : jsonObjects)
+				{
+					JSONObject copy = new ServoyJSONObject();
+					for (String key : JSONObject.getNames(json))
+					{
+						if (ARGUMENTS_JSON_ATTRIBUTE.equals(key))
+						{
+							copy.put(key, new JSONArray(getArgumentNames(json.get(key))));
+						}
+						else if (!CHANGED_JSON_ATTRIBUTE.equals(key))
+						{
+							copy.put(key, json.get(key));
+						}
+					}
+					snapshot.add(copy);
+				}
+				parsedScriptCache.put(file, snapshot);
+			}
+		}
+		return jsonObjects;
+	}
+
+	/**
+	 * The arguments of a method are the parsed arguments or, when read from the {@link ParsedScriptCache}, an array of the argument names.
+	 */
+	private static List<String> getArgumentNames(Object arguments) throws JSONException
+	{
+		List<String> names = new ArrayList<String>();
+		if (arguments instanceof JSONArray)
+		{
+			JSONArray array = (JSONArray)arguments;
+			for (int i = 0; i < array.length(); i++)
+			{
+				names.add(array.getString(i));
+			}
+		}
+		else if (arguments instanceof List< ? >)
+		{
+			for (Object argument : (List< ? >)arguments)
+			{
+				names.add(((Argument)argument).getArgumentName());
+			}
+		}
+		return names;
+	}
+
+	private List<JSONObject> parseJSFileContent(final File file, boolean markAsChanged, boolean doCleanup) throws JSONException
 	{
 		String fileContent = jsContent;
 		if (jsFile != file)
@@ -1032,6 +1192,8 @@ public class SolutionDeserializer
 		try
 		{
 			List<JSONObject> jsonObjects = new ArrayList<JSONObject>();
+			// local, files can be parsed concurrently
+			ICalculationTypeInferencer calculationTypeInferencer = null;
 			final List<IProblem> problems = new ArrayList<IProblem>();
 			IProblemReporter reporter = new IProblemReporter()
 			{
@@ -1040,7 +1202,7 @@ public class SolutionDeserializer
 					if (problem.isError())
 					{
 						problems.add(problem);
-						errorKeeper.addError(file, problem.getMessage());
+						addError(file, problem.getMessage());
 					}
 				}
 			};
@@ -1547,7 +1709,6 @@ public class SolutionDeserializer
 				json.put(CHANGED_JSON_ATTRIBUTE, markAsChanged);
 				jsonObjects.add(json);
 			}
-			calculationTypeInferencer = null;//clear
 			if (jsonObjects.size() > 0)
 			{
 				JSONArray array = new JSONArray();
@@ -1613,7 +1774,7 @@ public class SolutionDeserializer
 	}
 
 	// cache for expensive UUID->string creation.
-	private static final Map<IPersist, String> persistFileNameCache = new HashMap<IPersist, String>(512, 0.9f);
+	private static final Map<IPersist, String> persistFileNameCache = new ConcurrentHashMap<IPersist, String>(512, 0.9f);
 
 	private static String getFileName(IPersist persist)
 	{
@@ -1652,7 +1813,7 @@ public class SolutionDeserializer
 			return null;
 		}
 
-		HashSet<UUID> solutionUUIDs = getAlreadyUsedUUIDsForSolution(parent.getRootObject().getUUID());
+		Set<UUID> solutionUUIDs = getAlreadyUsedUUIDsForSolution(parent.getRootObject().getUUID());
 
 		IPersist existingNode = null;
 		UUID uuid;
@@ -1822,7 +1983,9 @@ public class SolutionDeserializer
 		}
 
 		solutionUUIDs.add(retval.getUUID());
-		childToContainerUUID.put(retval.getUUID(), getContainerUUID(retval));
+		UUID containerUUID = getContainerUUID(retval);
+		if (containerUUID != null) childToContainerUUID.put(retval.getUUID(), containerUUID);
+		else childToContainerUUID.remove(retval.getUUID());
 
 		if (file != null)
 		{
@@ -2013,8 +2176,7 @@ public class SolutionDeserializer
 				MethodArgument[] methodArguments = NULL;
 				if (obj.has(ARGUMENTS_JSON_ATTRIBUTE))
 				{
-					@SuppressWarnings("unchecked")
-					List<Argument> arguments = (List<Argument>)obj.remove(ARGUMENTS_JSON_ATTRIBUTE);
+					List<String> arguments = getArgumentNames(obj.remove(ARGUMENTS_JSON_ATTRIBUTE));
 					if (arguments.size() > 0)
 					{
 						methodArguments = new MethodArgument[arguments.size()];
@@ -2022,8 +2184,7 @@ public class SolutionDeserializer
 //						MethodArgument[] jsDocArguments = parseJSDocArguments(comment);
 						for (int i = 0; i < arguments.size(); i++)
 						{
-							Argument argument = arguments.get(i);
-							String name = argument.getArgumentName();
+							String name = arguments.get(i);
 //							for (int j = 0; j < jsDocArguments.length; j++)
 //							{
 //								if (jsDocArguments[j].getName().equals(name))
@@ -2421,7 +2582,7 @@ public class SolutionDeserializer
 		}
 	}
 
-	private ICalculationTypeInferencer getCalculationTypeInferencer(Script script, IFile resource)
+	private synchronized ICalculationTypeInferencer getCalculationTypeInferencer(Script script, IFile resource)
 	{
 		if (calculationTypeInferencerProvider == null)
 		{
@@ -35,6 +35,7 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -295,6 +296,10 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 
 	private final ArrayList<IUserGroupChangeListener> userGroupChangedChangeListeners = new ArrayList<IUserGroupChangeListener>();
 
+	// solution ids, releases and groups -> security access
+	private final Map<String, SecurityAccess> securityAccessCache = new ConcurrentHashMap<String, SecurityAccess>();
+	private final AtomicLong securityAccessVersion = new AtomicLong();
+
 	/**
 	 * Creates a new user manager using a copy of the in-memory data of the given userManager.
 	 * @param userManager the userManager for initial population.
@@ -327,6 +332,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		writingResources = false;
 		writeMode = WRITE_MODE_MANUAL;
 		readingAllTableInfo = false;
+		securityAccessChanged();
 	}
 
 	public void addUserGroupChangeListener(IUserGroupChangeListener listener)
@@ -467,6 +473,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		}
 
 		securityInfo.add(new SecurityInfo(element_uid, accessMask));
+		securityAccessChanged();
 		return replaced;
 	}
 
@@ -1373,141 +1380,146 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 
 	public Pair<Map<Object, Integer>, Set<Object>> getSecurityAccess(String clientId, int[] solution_ids, int[] releaseNumbers, String[] groups)
 	{
-		Map<Object, Integer> retval = new HashMap<Object, Integer>();
-		Set<Object> implicitRights = new HashSet<>();
-		Map<Object, Integer> groupsWithNonDefaultAccess = new HashMap<>();
+		IRootObject[] solutions = new IRootObject[solution_ids.length];
 		for (int i = 0; i < solution_ids.length; i++)
 		{
 			int solution_id = solution_ids[i];
 			int releaseNumber = releaseNumbers[i];
 
-			IRootObject solution = null;
 			if (solution_id >= 0)
 			{
 				try
 				{
-					solution = ApplicationServerRegistry.get().getDeveloperRepository().getRootObject(solution_id, releaseNumber);
+					solutions[i] = ApplicationServerRegistry.get().getDeveloperRepository().getRootObject(solution_id, releaseNumber);
 				}
 				catch (RepositoryException e)
 				{
 					ServoyLog.logError("Cannot get security access for solution with id, release = " + solution_id + ", " + releaseNumber, e);
-					return new Pair<Map<Object, Integer>, Set<Object>>(retval, implicitRights);
+					return createSecurityAccess(Arrays.copyOf(solutions, i), groups, false).toPair();
 				}
-				if (solution == null)
+				if (solutions[i] == null)
 				{
 					ServoyLog.logError("Cannot get security access because of missing solution with id, release = " + solution_id + ", " + releaseNumber, null);
-					return new Pair<Map<Object, Integer>, Set<Object>>(retval, implicitRights);
+					return createSecurityAccess(Arrays.copyOf(solutions, i), groups, false).toPair();
 				}
 			}
+		}
+
+		// the order of the groups doesn't matter for the access
+		String[] sortedGroups = groups != null ? groups.clone() : new String[0];
+		Arrays.sort(sortedGroups);
+		String key = Arrays.toString(solution_ids) + Arrays.toString(releaseNumbers) + Arrays.toString(sortedGroups);
+		long version = securityAccessVersion.get();
+		SecurityAccess securityAccess = securityAccessCache.get(key);
+		if (securityAccess == null || !securityAccess.isValid(version, solutions))
+		{
+			securityAccess = createSecurityAccess(solutions, groups, true);
+			securityAccess.version = version;
+			// don't cache it if the security did change while it was created
+			if (securityAccessVersion.get() == version) securityAccessCache.put(key, securityAccess);
+		}
+		return securityAccess.toPair();
+	}
+
+	/**
+	 * Must be called when the security information or the forms of a solution are changed, the cached security access is then created again.
+	 */
+	protected void securityAccessChanged()
+	{
+		securityAccessVersion.incrementAndGet();
+		securityAccessCache.clear();
+	}
 
-			if (groups != null)
+	private SecurityAccess createSecurityAccess(IRootObject[] solutions, String[] groups, boolean includeTables)
+	{
+		// element uuid or server.table.column -> { access, number of groups with access for it }
+		Map<Object, int[]> access = new HashMap<Object, int[]>();
+		if (groups != null)
+		{
+			Map<UUID, Integer> formOwners = getFormOwners(solutions);
+			for (String group : groups)
 			{
-				for (String group : groups)
+				GroupSecurityInfo gsi = getGroupSecurityInfo(group);
+				for (Entry<UUID, List<SecurityInfo>> formSecurityEntry : gsi.formSecurity.entrySet())
 				{
-					GroupSecurityInfo gsi = getGroupSecurityInfo(group);
-					if (solution != null)
+					if (formOwners.containsKey(formSecurityEntry.getKey()))
 					{
-						for (Entry<UUID, List<SecurityInfo>> formSecurityEntry : gsi.formSecurity.entrySet())
+						for (SecurityInfo si : formSecurityEntry.getValue())
 						{
-							UUID formUUID = formSecurityEntry.getKey();
-							if (formIsChildOfPersist(solution, formUUID))
-							{
-								List<SecurityInfo> lsi = formSecurityEntry.getValue();
-								for (SecurityInfo si : lsi)
-								{
-									UUID uuid = UUID.fromString(si.element_uid);
-									Object value = retval.get(uuid);
-									if (value instanceof Integer)
-									{
-										value = new Integer(((Integer)value).intValue() | si.access);
-									}
-									else
-									{
-										value = new Integer(si.access);
-									}
-									Integer old = groupsWithNonDefaultAccess.get(uuid);
-									if (old == null)
-									{
-										groupsWithNonDefaultAccess.put(uuid, Integer.valueOf(1));
-									}
-									else
-									{
-										groupsWithNonDefaultAccess.put(uuid, Integer.valueOf(old.intValue() + 1));
-									}
-									retval.put(uuid, (Integer)value);
-								}
-							}
+							addAccess(access, UUID.fromString(si.element_uid), si.access);
 						}
 					}
 				}
 			}
-		}
-		for (String group : groups)
-		{
-			GroupSecurityInfo gsi = getGroupSecurityInfo(group);
-			for (Entry<String, List<SecurityInfo>> entry : gsi.tableSecurity.entrySet())
+			if (includeTables)
 			{
-				String s_t = entry.getKey();
-				List<SecurityInfo> lsi = entry.getValue();
-				for (SecurityInfo si : lsi)
+				for (String group : groups)
 				{
-					String cid = Utils.getDotQualitfied(s_t, si.element_uid);
-					Object value = retval.get(cid);
-					if (value instanceof Integer)
-					{
-						value = new Integer(((Integer)value).intValue() | si.access);
-					}
-					else
-					{
-						value = new Integer(si.access);
-					}
-					Integer old = groupsWithNonDefaultAccess.get(cid);
-					if (old == null)
-					{
-						groupsWithNonDefaultAccess.put(cid, Integer.valueOf(1));
-					}
-					else
+					GroupSecurityInfo gsi = getGroupSecurityInfo(group);
+					for (Entry<String, List<SecurityInfo>> entry : gsi.tableSecurity.entrySet())
 					{
-						groupsWithNonDefaultAccess.put(cid, Integer.valueOf(old.intValue() + 1));
+						String s_t = entry.getKey();
+						for (SecurityInfo si : entry.getValue())
+						{
+							addAccess(access, Utils.getDotQualitfied(s_t, si.element_uid), si.access); //server.table.column -> int
+						}
 					}
-					retval.put(cid, (Integer)value); //server.table.column -> int
 				}
 			}
 		}
-		if (groups.length > 1)
+
+		SecurityAccess securityAccess = new SecurityAccess(solutions, access.size());
+		int i = 0;
+		for (Entry<Object, int[]> entry : access.entrySet())
 		{
+			securityAccess.elements[i] = entry.getKey();
+			securityAccess.access[i] = entry.getValue()[0];
 			// implicit values for all values that are in the map that are not already VIEWABLE|ACCESSIBLE must be looked at if they would have that implicit value
-			for (Entry<Object, Integer> entry : retval.entrySet())
-			{
-				Integer gwnda = groupsWithNonDefaultAccess.get(entry.getKey());
-				if (gwnda.intValue() < groups.length)
-				{
-					implicitRights.add(entry.getKey());
-				}
-			}
+			securityAccess.implicit[i] = groups.length > 1 && entry.getValue()[1] < groups.length;
+			i++;
 		}
-		return new Pair<Map<Object, Integer>, Set<Object>>(retval, implicitRights);
+		return securityAccess;
 	}
 
-	private boolean formIsChildOfPersist(IPersist persist, final UUID formUUID)
+	private static void addAccess(Map<Object, int[]> access, Object element, int accessMask)
 	{
-		Object result = null;
-		result = persist.acceptVisitor(new IPersistVisitor()
+		int[] value = access.get(element);
+		if (value == null)
 		{
-			public Object visit(IPersist o)
+			access.put(element, new int[] { accessMask, 1 });
+		}
+		else
+		{
+			value[0] |= accessMask;
+			value[1]++;
+		}
+	}
+
+	/**
+	 * @return form uuid -> index of the solution it belongs to
+	 */
+	private static Map<UUID, Integer> getFormOwners(IRootObject[] solutions)
+	{
+		Map<UUID, Integer> formOwners = new HashMap<UUID, Integer>();
+		for (int i = 0; i < solutions.length; i++)
+		{
+			if (solutions[i] == null) continue;
+			Integer owner = Integer.valueOf(i);
+			solutions[i].acceptVisitor(new IPersistVisitor()
 			{
-				if (formUUID.equals(o.getUUID()))
+				public Object visit(IPersist o)
 				{
-					return o.getTypeID() == IRepository.FORMS ? Boolean.TRUE : Boolean.FALSE;
+					if (o.getTypeID() == IRepository.FORMS)
+					{
+						formOwners.put(o.getUUID(), owner);
+						// forms don't have forms as children
+						return CONTINUE_TRAVERSAL_BUT_DONT_GO_DEEPER;
+					}
+					return CONTINUE_TRAVERSAL;
 				}
-				return CONTINUE_TRAVERSAL;
-			}
-		});
-		if (result instanceof Boolean)
-		{
-			return ((Boolean)result).booleanValue();
+			});
 		}
-		return false;
+		return formOwners;
 	}
 
 	public String[] getUserGroups(String clientId, String userUID)
@@ -1740,6 +1752,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		// create the group
 		userGroups.put(groupName, new SortedList<String>(StringComparator.INSTANCE));
 		groupInfos.add(new GroupSecurityInfo(groupName));
+		securityAccessChanged();
 
 		return true;
 	}
@@ -2095,6 +2108,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 				}
 			}
 			userGroups.remove(oldName);
+			securityAccessChanged();
 			if (writeMode == WRITE_MODE_AUTOMATIC)
 			{
 				writeUserAndGroupInfo(false);
@@ -2175,6 +2189,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 					if (deleteGroup) it.remove();
 				}
 			}
+			securityAccessChanged();
 			if (writeMode == WRITE_MODE_AUTOMATIC)
 			{
 				try
@@ -2451,6 +2466,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		{
 			gsi.formSecurity.clear();
 		}
+		securityAccessChanged();
 	}
 
 	/**
@@ -2464,6 +2480,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		{
 			gsi.tableSecurity.remove(Utils.getDotQualitfied(serverName, tableName));
 		}
+		securityAccessChanged();
 	}
 
 	/**
@@ -2477,6 +2494,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		{
 			gsi.formSecurity.remove(f.getUUID());
 		}
+		securityAccessChanged();
 	}
 
 	/**
@@ -2746,6 +2764,7 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		idCounter = 1;
 		idToUUID.clear();
 		UUIDToId.clear();
+		securityAccessChanged();
 	}
 
 	/**
@@ -2808,4 +2827,49 @@ public class WorkspaceUserManager implements IUserManager, IUserManagerInternal
 		}
 		return destination;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The security access for a set of solutions and groups, the access masks are stored as primitives until a client asks for them.
+	 */
+	private static class SecurityAccess
+	{
+		private final IRootObject[] solutions;
+		private final Object[] elements;
+		private final int[] access;
+		private final boolean[] implicit;
+		private long version = -1;
+
+		private SecurityAccess(IRootObject[] solutions, int size)
+		{
+			this.solutions = solutions;
+			this.elements = new Object[size];
+			this.access = new int[size];
+			this.implicit = new boolean[size];
+		}
+
+		/**
+		 * A solution that is read again (for example after an update from the team repository) is a new root object.
+		 */
+		private boolean isValid(long currentVersion, IRootObject[] currentSolutions)
+		{
+			if (version != currentVersion || solutions.length != currentSolutions.length) return false;
+			for (int i = 0; i < solutions.length; i++)
+			{
+				if (solutions[i] != currentSolutions[i]) return false;
+			}
+			return true;
+		}
+
+		private Pair<Map<Object, Integer>, Set<Object>> toPair()
+		{
+			Map<Object, Integer> retval = new HashMap<Object, Integer>(elements.length * 2);
+			Set<Object> implicitRights = new HashSet<>();
+			for (int i = 0; i < elements.length; i++)
+			{
+				retval.put(elements[i], Integer.valueOf(access[i]));
+				if (implicit[i]) implicitRights.add(elements[i]);
+			}
+			return new Pair<Map<Object, Integer>, Set<Object>>(retval, implicitRights);
+		}
+	}
+}
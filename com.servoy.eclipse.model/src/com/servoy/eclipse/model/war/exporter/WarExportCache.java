@@ -0,0 +1,280 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.model.war.exporter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+
+import com.servoy.eclipse.model.Activator;
+import com.servoy.eclipse.model.util.ServoyLog;
+import com.servoy.j2db.util.Pair;
+
+/**
+ * Cache of intermediate war export results, stored in the state location of the model plugin so that a next export can reuse them.
+ * Entries are keyed on a hash of everything the result depends on, so a changed input just results in a new entry; entries that are not used for a while are removed.
+ * The jar information is keyed on the path of the jar instead, and is removed when the jar is changed or gone.
+ */
+class WarExportCache
+{
+	private static final String CACHE_DIR_NAME = "warExportCache";
+	private static final String JARS_FILE_NAME = "jars.properties";
+	private static final long MAX_UNUSED_TIME = TimeUnit.DAYS.toMillis(30);
+
+	private final File cacheDir;
+	private final Properties jars = new Properties();
+	private boolean jarsChanged;
+
+	private WarExportCache(File cacheDir)
+	{
+		this.cacheDir = cacheDir;
+		File jarsFile = new File(cacheDir, JARS_FILE_NAME);
+		if (jarsFile.exists())
+		{
+			try (FileInputStream fis = new FileInputStream(jarsFile))
+			{
+				jars.load(fis);
+			}
+			catch (IOException e)
+			{
+				ServoyLog.logError("Could not read the war export cache of the jars", e);
+				jars.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return the cache or null if there is no state location to store it.
+	 */
+	static WarExportCache create()
+	{
+		Activator activator = Activator.getDefault();
+		if (activator == null) return null;
+		File cacheDir = activator.getStateLocation().append(CACHE_DIR_NAME).toFile();
+		if (!cacheDir.exists() && !cacheDir.mkdirs()) return null;
+		return new WarExportCache(cacheDir);
+	}
+
+	/**
+	 * Creates a key of all the given parts, a part can be a String, a byte[] or a File (the name, size and last modified time of the file are used).
+	 */
+	static String createKey(Object... parts)
+	{
+		try
+		{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (Object part : parts)
+			{
+				if (part instanceof byte[])
+				{
+					digest.update((byte[])part);
+				}
+				else if (part instanceof File)
+				{
+					File file = (File)part;
+					digest.update((file.getName() + ':' + file.length() + ':' + file.lastModified()).getBytes(StandardCharsets.UTF_8));
+				}
+				else if (part != null)
+				{
+					digest.update(part.toString().getBytes(StandardCharsets.UTF_8));
+				}
+				digest.update((byte)0);
+			}
+			StringBuilder sb = new StringBuilder();
+			for (byte b : digest.digest())
+			{
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// every java platform must support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return the compiled css that was stored for the key or null
+	 */
+	String getCompiledLess(String key)
+	{
+		File file = touch(new File(cacheDir, "less/" + key + ".css"));
+		if (file != null)
+		{
+			try
+			{
+				return Files.readString(file.toPath());
+			}
+			catch (IOException e)
+			{
+				ServoyLog.logError("Could not read the cached css " + file, e);
+			}
+		}
+		return null;
+	}
+
+	void putCompiledLess(String key, String css)
+	{
+		File file = new File(cacheDir, "less/" + key + ".css");
+		try
+		{
+			FileUtils.writeStringToFile(file, css, StandardCharsets.UTF_8);
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not cache the css " + file, e);
+			file.delete();
+		}
+	}
+
+	/**
+	 * Copies the files that were extracted for the key to the destination.
+	 * @return true if they where in the cache
+	 */
+	boolean copyExtractedPackage(String key, File destDir)
+	{
+		File dir = touch(new File(cacheDir, "packages/" + key));
+		if (dir != null && dir.isDirectory())
+		{
+			try
+			{
+				FileUtils.copyDirectory(dir, destDir, false);
+				return true;
+			}
+			catch (IOException e)
+			{
+				ServoyLog.logError("Could not copy the cached package " + dir + " to " + destDir, e);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stores the files that were extracted for the key.
+	 */
+	void putExtractedPackage(String key, File extractedDir)
+	{
+		File dir = new File(cacheDir, "packages/" + key);
+		File tmpDir = new File(cacheDir, "packages/" + key + ".tmp");
+		try
+		{
+			FileUtils.deleteDirectory(tmpDir);
+			FileUtils.copyDirectory(extractedDir, tmpDir, false);
+			// rename so that a half written entry is never used
+			if (!tmpDir.renameTo(dir)) FileUtils.deleteDirectory(tmpDir);
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not cache the package " + extractedDir, e);
+		}
+	}
+
+	/**
+	 * @return the name and version that were stored for the jar or null if it was not stored or the jar changed since
+	 */
+	Pair<String, String> getJarNameAndVersion(File jarFile)
+	{
+		String[] value = getJarValue(jarFile.getAbsolutePath());
+		if (value == null || !value[0].equals(getJarStamp(jarFile))) return null;
+		return new Pair<String, String>(value[1], value[2].length() > 0 ? value[2] : null);
+	}
+
+	/**
+	 * Stores the name and version (can be null if not found in the manifest) of the jar.
+	 */
+	void putJarNameAndVersion(File jarFile, Pair<String, String> nameAndVersion)
+	{
+		String version = nameAndVersion.getRight();
+		jars.setProperty(jarFile.getAbsolutePath(), getJarStamp(jarFile) + '|' + nameAndVersion.getLeft() + '|' + (version != null ? version : ""));
+		jarsChanged = true;
+	}
+
+	/**
+	 * @return the stamp, name and version stored for the jar path, or null
+	 */
+	private String[] getJarValue(String path)
+	{
+		String value = jars.getProperty(path);
+		if (value == null) return null;
+		// the stamp has a '|' itself, the name has none
+		String[] parts = value.split("\\|", 4);
+		if (parts.length < 4) return null;
+		return new String[] { parts[0] + '|' + parts[1], parts[2], parts[3] };
+	}
+
+	private static String getJarStamp(File jarFile)
+	{
+		return Long.toString(jarFile.length()) + '|' + jarFile.lastModified();
+	}
+
+	/**
+	 * Writes the jar information without the jars that are changed or gone, and removes the other entries that were not used for a while.
+	 */
+	void save()
+	{
+		for (String path : jars.stringPropertyNames())
+		{
+			String[] value = getJarValue(path);
+			File jarFile = new File(path);
+			if (value == null || !jarFile.isFile() || !value[0].equals(getJarStamp(jarFile)))
+			{
+				jars.remove(path);
+				jarsChanged = true;
+			}
+		}
+		if (jarsChanged)
+		{
+			try (FileOutputStream fos = new FileOutputStream(new File(cacheDir, JARS_FILE_NAME)))
+			{
+				jars.store(fos, "war export jars (size|last modified|name|version)");
+				jarsChanged = false;
+			}
+			catch (IOException e)
+			{
+				ServoyLog.logError("Could not write the war export cache of the jars", e);
+			}
+		}
+		long oldest = System.currentTimeMillis() - MAX_UNUSED_TIME;
+		for (String dirName : new String[] { "less", "packages" })
+		{
+			File[] entries = new File(cacheDir, dirName).listFiles();
+			if (entries == null) continue;
+			for (File entry : entries)
+			{
+				if (entry.lastModified() < oldest) FileUtils.deleteQuietly(entry);
+			}
+		}
+	}
+
+	private static File touch(File file)
+	{
+		if (!file.exists()) return null;
+		file.setLastModified(System.currentTimeMillis());
+		return file;
+	}
+}
@@ -20,6 +20,7 @@ package com.servoy.eclipse.model.war.exporter;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -30,7 +31,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.io.SequenceInputStream;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URI;
@@ -38,15 +41,19 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
 import java.time.ZoneId;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -60,12 +67,16 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 import javax.crypto.Cipher;
 import javax.xml.parsers.DocumentBuilder;
@@ -79,6 +90,12 @@ import javax.xml.transform.TransformerFactoryConfigurationError;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 
+import org.apache.commons.compress.archivers.zip.ScatterZipOutputStream;
+import org.apache.commons.compress.archivers.zip.StreamCompressor;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryRequest;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.parallel.ScatterGatherBackingStore;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOCase;
@@ -92,6 +109,8 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.Version;
 import org.sablo.IndexPageEnhancer;
 import org.sablo.specification.Package.IPackageReader;
@@ -205,6 +224,15 @@ public class WarExporter
 	private static final Set<String> HTTP_PLUGIN_FILES = Set.of("httpclient5.jar", "httpcore5-h2.jar", "httpcore5.jar");
 
 	private static final String WRO4J_RUNNER = "wro4j-runner-1.8.0";
+	/**
+	 * Files that are already compressed, these are stored as is in the war file.
+	 */
+	private static final Set<String> STORED_EXTENSIONS = Set.of("jar", "zip", "war", "gz", "png", "jpg", "jpeg", "gif", "woff", "woff2", "mp3", "mp4");
+	private static final int ZIP_THREADS = Integer.getInteger("servoy.warexport.zipthreads", Runtime.getRuntime().availableProcessors()).intValue();
+	/**
+	 * Megabytes of compressed data of an entry that is kept in memory until the entry is written, bigger entries continue in a temporary file.
+	 */
+	private static final int ZIP_MEMORY_PER_ENTRY = Integer.getInteger("servoy.warexport.zipmemory", 32).intValue();
 	private static final Set<String> EXCLUDED_RESOURCES_BY_NAME;
 
 	static
@@ -242,6 +270,7 @@ public class WarExporter
 	private final SpecProviderState componentsSpecProviderState;
 	private final SpecProviderState servicesSpecProviderState;
 	private Set<File> pluginFiles = new HashSet<>();
+	private WarExportCache exportCache;
 
 	public WarExporter(IWarExportModel exportModel, IXMLExportUserChannel userChannel)
 	{
@@ -261,6 +290,7 @@ public class WarExporter
 	{
 		SubMonitor monitor = SubMonitor.convert(m, "Creating War File", 42);
 		File warFile = createNewWarFile();
+		exportCache = WarExportCache.create();
 		monitor.worked(2);
 		File tmpWarDir = createTempDir();
 		monitor.worked(2);
@@ -345,6 +375,7 @@ public class WarExporter
 		if (monitor.isCanceled()) return;
 		// first check,remove duplicate jars from the plugins dir.
 		checkDuplicateJars(tmpWarDir);
+		if (exportCache != null) exportCache.save();
 		monitor.worked(1);
 		// after that copy or move everything to the WEB-INF/lib dir to have 1 big classpath but only if this is not for a smartclient
 		if (!exportModel.getStartRMI())
@@ -599,40 +630,61 @@ public class WarExporter
 		// not from the none active solutions, problem could be that the none active solutions can have duplicate names..
 		IServoyModel servoyModel = ServoyModelFinder.getServoyModel();
 		FlattenedSolution fs = servoyModel.getFlattenedSolution();
+		List<Media> lessMedias = new ArrayList<Media>();
+		List<Object> lessKeyParts = new ArrayList<Object>();
+		lessKeyParts.add(fs.getName());
+		// the compiler also includes the servoy theme and less sources of the ngclient bundle, those change with a servoy upgrade
+		lessKeyParts.add(ClientVersion.getBundleVersionWithPostFix());
+		Bundle lessBundle = FrameworkUtil.getBundle(LessCompiler.class);
+		lessKeyParts.add(lessBundle != null ? lessBundle.getSymbolicName() + '_' + lessBundle.getVersion() + '_' + lessBundle.getLastModified() : null);
 		Iterator<Media> it = fs.getMedias(false);
 		while (it.hasNext())
 		{
 			Media media = it.next();
 			if (media.getName().endsWith(".less"))
 			{
-				String content = LessCompiler.compileSolutionLessFile(media, fs);
-				if (content != null)
+				lessMedias.add(media);
+				// a less file can import any other less file, so the compiled css of each depends on all of them
+				lessKeyParts.add(media.getName());
+				lessKeyParts.add(media.getMediaData());
+			}
+		}
+		String lessKey = exportCache != null && lessMedias.size() > 0 ? WarExportCache.createKey(lessKeyParts.toArray()) : null;
+		for (Media media : lessMedias)
+		{
+			String mediaKey = lessKey != null ? WarExportCache.createKey(lessKey, media.getName()) : null;
+			String content = mediaKey != null ? exportCache.getCompiledLess(mediaKey) : null;
+			if (content == null)
+			{
+				content = LessCompiler.compileSolutionLessFile(media, fs);
+				if (content != null && mediaKey != null) exportCache.putCompiledLess(mediaKey, content);
+			}
+			if (content != null)
+			{
+				File folder = new File(tmpWarDir, MediaResourcesServlet.SERVOY_SOLUTION_CSS);
+				try
 				{
-					File folder = new File(tmpWarDir, MediaResourcesServlet.SERVOY_SOLUTION_CSS);
-					try
+					File f = new File(folder, media.getName().replace(".less", ".css"));
+					if (!f.getParentFile().exists() && !f.getParentFile().mkdirs())
 					{
-						File f = new File(folder, media.getName().replace(".less", ".css"));
-						if (!f.getParentFile().exists() && !f.getParentFile().mkdirs())
-						{
-							ServoyLog.logError("Could not create folder " + f.getParentFile().getName() + " for less media: " + media.getName(),
-								new RuntimeException());
-							break;
-						}
-						f.createNewFile();
-						try (PrintWriter printWriter = new PrintWriter(f))
-						{
-							printWriter.println(content);
-						}
-						catch (FileNotFoundException e)
-						{
-							ServoyLog.logError(e);
-						}
+						ServoyLog.logError("Could not create folder " + f.getParentFile().getName() + " for less media: " + media.getName(),
+							new RuntimeException());
+						break;
+					}
+					f.createNewFile();
+					try (PrintWriter printWriter = new PrintWriter(f))
+					{
+						printWriter.println(content);
 					}
-					catch (IOException e)
+					catch (FileNotFoundException e)
 					{
-						ServoyLog.logError("Error creating less file:  " + media.getName(), e);
+						ServoyLog.logError(e);
 					}
 				}
+				catch (IOException e)
+				{
+					ServoyLog.logError("Error creating less file:  " + media.getName(), e);
+				}
 			}
 		}
 	}
@@ -1042,7 +1094,15 @@ public class WarExporter
 								excludes = new HashSet<String>(EXCLUDED_RESOURCES_BY_NAME);
 								excludes.add(entryDir + '/'); // extractaJar is startsWith because of the jar entries.
 							}
-							extractJar(name, resource, tmpWarDir, allTemplates, excludes);
+							// only the spec, manifest and json files are extracted, so no templates are added for a package that is in the cache
+							File packageDir = new File(tmpWarDir, name);
+							String packageKey = exportCache != null
+								? WarExportCache.createKey(name, resource.getAbsolutePath(), resource, new TreeSet<String>(excludes).toString()) : null;
+							if (packageKey == null || !exportCache.copyExtractedPackage(packageKey, packageDir))
+							{
+								extractJar(name, resource, tmpWarDir, allTemplates, excludes);
+								if (packageKey != null && packageDir.isDirectory()) exportCache.putExtractedPackage(packageKey, packageDir);
+							}
 						}
 					}
 				}
@@ -1119,12 +1179,9 @@ public class WarExporter
 				{
 					continue;
 				}
-				try (InputStream is = jarfile.getInputStream(je); FileOutputStream fo = new FileOutputStream(fl))
+				try (InputStream is = jarfile.getInputStream(je))
 				{
-					while (is.available() > 0)
-					{
-						fo.write(is.read());
-					}
+					Files.copy(is, fl.toPath(), StandardCopyOption.REPLACE_EXISTING);
 				}
 				if (fl.getName().endsWith(".html"))
 				{
@@ -1154,12 +1211,9 @@ public class WarExporter
 						String serverScriptPath = path.substring(path.indexOf("/") + 1);
 						ZipEntry serverScriptEntry = jarfile.getEntry(serverScriptPath);
 						File destScriptFile = new File(destdir, serverScriptPath);
-						try (InputStream is = jarfile.getInputStream(serverScriptEntry); FileOutputStream fo = new FileOutputStream(destScriptFile))
+						try (InputStream is = jarfile.getInputStream(serverScriptEntry))
 						{
-							while (is.available() > 0)
-							{
-								fo.write(is.read());
-							}
+							Files.copy(is, destScriptFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 						}
 						catch (Exception ex)
 						{
@@ -1876,46 +1930,196 @@ public class WarExporter
 		}
 	}
 
+	/**
+	 * Zips the directory into the war file, the entries are compressed in parallel and then written into the war file in the order of the directory.
+	 * Files that are already compressed (like jars) are stored instead of deflated again, those are written directly into the war file.
+	 * Only a limited number of compressed entries is waiting to be written, so the compressed data that is kept (in memory or in temporary files) stays bounded.
+	 */
 	private void zipDirectory(File directory, File zip) throws ExportException
 	{
-		try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zip)))
+		AtomicInteger threadCount = new AtomicInteger();
+		int threads = Math.max(1, ZIP_THREADS);
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "War export zipper " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		// the files in the war order, with the pending compression of the deflated ones (null for the stored ones)
+		Deque<Pair<File, Future<ScatterZipOutputStream>>> pending = new ArrayDeque<Pair<File, Future<ScatterZipOutputStream>>>();
+		try (ZipArchiveOutputStream zos = new ZipArchiveOutputStream(zip))
+		{
+			List<File> files = new ArrayList<File>();
+			listZipFiles(directory, files);
+			File tempDir = zip.getAbsoluteFile().getParentFile();
+			for (File file : files)
+			{
+				Future<ScatterZipOutputStream> compressed = null;
+				if (!STORED_EXTENSIONS.contains(FilenameUtils.getExtension(file.getName()).toLowerCase()))
+				{
+					compressed = executor.submit(() -> compress(file, directory, tempDir));
+				}
+				pending.add(new Pair<File, Future<ScatterZipOutputStream>>(file, compressed));
+				while (!pending.isEmpty() && (pending.size() > threads * 2 || pending.peek().getRight() == null))
+				{
+					writeZipEntry(zos, directory, pending.poll());
+				}
+			}
+			while (!pending.isEmpty())
+			{
+				writeZipEntry(zos, directory, pending.poll());
+			}
+		}
+		catch (InterruptedException e)
 		{
-			zip(directory, directory, zos);
+			Thread.currentThread().interrupt();
+			throw new ExportException("Creating the war file " + zip + " was interrupted", e);
 		}
 		catch (Exception e)
 		{
 			throw new ExportException("Can't create the war file " + zip, e);
 		}
+		finally
+		{
+			executor.shutdownNow();
+			for (Pair<File, Future<ScatterZipOutputStream>> entry : pending)
+			{
+				Future<ScatterZipOutputStream> compressed = entry.getRight();
+				if (compressed != null && !compressed.cancel(true) && compressed.isDone())
+				{
+					try
+					{
+						compressed.get().close();
+					}
+					catch (Exception e)
+					{
+						// the war file failed already, this is only cleanup of the compressed data
+					}
+				}
+			}
+		}
 	}
 
-	private void zip(File directory, File base, ZipOutputStream zos) throws IOException
+	private void listZipFiles(File directory, List<File> zipFiles)
 	{
 		File[] files = directory.listFiles();
-		byte[] buffer = new byte[8192];
-		int read = 0;
 		for (File file : files)
 		{
 			// skip the WRO4J_RUNNNER if somehow it couldn't be deleted.
 			if (file.getName().equals(WRO4J_RUNNER) || file.getName().equals("wro.xml")) continue;
 			if (file.isDirectory())
 			{
-				zip(file, base, zos);
+				listZipFiles(file, zipFiles);
 			}
 			else
 			{
-				FileInputStream in = new FileInputStream(file);
-				ZipEntry entry = new ZipEntry(file.getPath().substring(base.getPath().length() + 1).replace('\\', '/'));
-				zos.putNextEntry(entry);
-				while (-1 != (read = in.read(buffer)))
+				zipFiles.add(file);
+			}
+		}
+	}
+
+	private static ScatterZipOutputStream compress(File file, File base, File tempDir) throws IOException
+	{
+		SpillingBackingStore backingStore = new SpillingBackingStore(ZIP_MEMORY_PER_ENTRY * 1024L * 1024L, tempDir);
+		ScatterZipOutputStream compressed = new ScatterZipOutputStream(backingStore, StreamCompressor.create(backingStore));
+		try
+		{
+			compressed.addArchiveEntry(ZipArchiveEntryRequest.createZipArchiveEntryRequest(createZipEntry(file, base, ZipEntry.DEFLATED), () -> {
+				try
 				{
-					zos.write(buffer, 0, read);
+					return new FileInputStream(file);
 				}
-				zos.closeEntry();
-				in.close();
+				catch (FileNotFoundException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+			}));
+			return compressed;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			compressed.close();
+			throw e;
+		}
+	}
+
+	private static void writeZipEntry(ZipArchiveOutputStream zos, File base, Pair<File, Future<ScatterZipOutputStream>> entry)
+		throws IOException, InterruptedException, ExecutionException
+	{
+		if (entry.getRight() == null)
+		{
+			zos.putArchiveEntry(createZipEntry(entry.getLeft(), base, ZipEntry.STORED));
+			Files.copy(entry.getLeft().toPath(), zos);
+			zos.closeArchiveEntry();
+		}
+		else
+		{
+			try (ScatterZipOutputStream compressed = entry.getRight().get())
+			{
+				compressed.writeTo(zos);
 			}
 		}
 	}
 
+	private static ZipArchiveEntry createZipEntry(File file, File base, int method)
+	{
+		ZipArchiveEntry entry = new ZipArchiveEntry(file.getPath().substring(base.getPath().length() + 1).replace('\\', '/'));
+		entry.setMethod(method);
+		entry.setSize(file.length());
+		entry.setTime(file.lastModified());
+		return entry;
+	}
+
+	/**
+	 * Keeps the compressed data of one entry in memory, and continues in a temporary file when it gets bigger than the limit.
+	 */
+	private static class SpillingBackingStore implements ScatterGatherBackingStore
+	{
+		private final long memoryLimit;
+		private final File tempDir;
+		private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+		private Path tempFile;
+		private OutputStream tempOutput;
+
+		SpillingBackingStore(long memoryLimit, File tempDir)
+		{
+			this.memoryLimit = memoryLimit;
+			this.tempDir = tempDir;
+		}
+
+		@Override
+		public void writeOut(byte[] data, int offset, int length) throws IOException
+		{
+			if (tempOutput == null && memory.size() + length > memoryLimit)
+			{
+				tempFile = Files.createTempFile(tempDir.toPath(), "warzip", ".tmp");
+				tempOutput = new BufferedOutputStream(Files.newOutputStream(tempFile));
+			}
+			if (tempOutput != null) tempOutput.write(data, offset, length);
+			else memory.write(data, offset, length);
+		}
+
+		@Override
+		public void closeForWriting() throws IOException
+		{
+			if (tempOutput != null) tempOutput.close();
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException
+		{
+			InputStream memoryInput = new ByteArrayInputStream(memory.toByteArray());
+			return tempFile != null ? new SequenceInputStream(memoryInput, Files.newInputStream(tempFile)) : memoryInput;
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			closeForWriting();
+			memory = new ByteArrayOutputStream();
+			if (tempFile != null) Files.deleteIfExists(tempFile);
+		}
+	}
+
 	private void copyJnlp(File tmpWarDir, String appServerDir, String pluginJnlpName, Writer fw, Set<File> writtenFiles) throws ExportException, IOException
 	{
 		if (pluginJnlpName.startsWith("/servoy-client/"))
@@ -1973,7 +2177,7 @@ public class WarExporter
 		String version = null;
 		try
 		{
-			Pair<String, String> pair = JarManager.getNameAndVersion(jarFile.toURI().toURL());
+			Pair<String, String> pair = getJarNameAndVersion(jarFile);
 			if (pair != null)
 			{
 				jarName = pair.getLeft();
@@ -2022,6 +2226,17 @@ public class WarExporter
 		vFiles.get(version).add(jarFile);
 	}
 
+	private Pair<String, String> getJarNameAndVersion(File jarFile) throws MalformedURLException
+	{
+		Pair<String, String> pair = exportCache != null ? exportCache.getJarNameAndVersion(jarFile) : null;
+		if (pair == null)
+		{
+			pair = JarManager.getNameAndVersion(jarFile.toURI().toURL());
+			if (pair != null && pair.getLeft() != null && exportCache != null) exportCache.putJarNameAndVersion(jarFile, pair);
+		}
+		return pair;
+	}
+
 	private String checkVersionString(String v)
 	{
 		if (v == null)
@@ -2250,9 +2465,16 @@ public class WarExporter
 					{
 						if (destination != null && source != null)
 						{
-							destination.transferFrom(source, 0, source.size());
+							long size = source.size();
+							long position = 0;
+							while (position < size)
+							{
+								position += source.transferTo(position, size - position, destination);
+							}
 						}
 					}
+					// keep the time stamp, it is used in the war entries and as part of the key in the export cache
+					destFile.setLastModified(sourceFile.lastModified());
 				}
 			}
 		}
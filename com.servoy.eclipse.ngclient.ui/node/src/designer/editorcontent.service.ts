@@ -9,6 +9,8 @@ import { TypesRegistry, IWebObjectSpecification, RootPropertyContextCreator } fr
 @Injectable()
 export class EditorContentService {
     designFormCallback: IDesignFormComponent;
+    // version of the last form data update, the server sends patches against that version
+    private formDataVersion: number;
 
     constructor(private formService: FormService, protected converterService: ConverterService<unknown>, private typesRegistry: TypesRegistry) {
 
@@ -23,6 +25,15 @@ export class EditorContentService {
         const formCache = this.formService.getFormCacheByName(this.designFormCallback.getFormName());
 
         const data = JSON.parse(updates);
+        if (data.version !== undefined) {
+            if (this.formDataVersion !== undefined && this.formDataVersion !== data.baseVersion) {
+                // an update was missed, so this patch can't be applied; load the whole form again
+                this.formDataVersion = data.version;
+                this.contentRefresh();
+                return;
+            }
+            this.formDataVersion = data.version;
+        }
         const reorderLayoutContainers: Array<StructureCache> = new Array();
         const orphanLayoutContainers: Array<StructureCache> = new Array();
         let renderGhosts = false;
@@ -389,9 +400,14 @@ export class EditorContentService {
 
             component.model[propName] = value;
         }
-        for (const property of Object.keys(component.model)) {
-            if (elem.model[property] === undefined) {
-                delete component.model[property];
+        if (elem.modelPatch) {
+            // only the changed properties are sent
+            elem.removedModel?.forEach((property) => delete component.model[property]);
+        } else {
+            for (const property of Object.keys(component.model)) {
+                if (elem.model[property] === undefined) {
+                    delete component.model[property];
+                }
             }
         }
         return redrawDecorators;
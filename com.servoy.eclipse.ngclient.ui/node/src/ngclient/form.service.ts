@@ -716,4 +716,6 @@ export interface ServerElement {
     specName: string,
     elType: string,
     handlers: Array<string>,
+    modelPatch?: boolean,
+    removedModel?: Array<string>,
 }
\ No newline at end of file
@@ -268,5 +268,6 @@ public class Activator extends Plugin
 	public void stop(BundleContext context) throws Exception
 	{
 		if (buildCommand != null) buildCommand.cancel();
+		WebPackagesListener.dispose();
 	}
 }
@@ -19,16 +19,32 @@ package com.servoy.eclipse.ngclient.ui;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import org.apache.commons.io.FileUtils;
@@ -36,25 +52,42 @@ import org.apache.commons.io.FileUtils;
 import com.servoy.j2db.util.Debug;
 
 /**
+ * Keeps a target dir in sync with a source dir.
+ * Watch events are collected for a short time and deduplicated per path, so a checkout or build that touches many files results in one batch;
+ * the files of a batch are copied by a pool that is shared by all the syncs and a file is not copied when the target already has the same content.
+ * When the watch service lost events (overflow) the whole tree is compared again, then only files that this sync copied itself are removed from the target.
+ *
  * @author jcompagner
  * @since 2021.06
  *
  */
 public class DirectorySync
 {
+	// time to wait for more events before a batch is synced, and the maximum time a batch is delayed when events keep coming
+	private static final long COALESCE_WINDOW = Long.getLong("servoy.directorysync.coalesce", 300).longValue();
+	private static final long MAX_BATCH_DELAY = 10 * COALESCE_WINDOW;
+	private static final ExecutorService COPY_POOL = createCopyPool();
+
+	private final File srcRoot;
+	private final File targetDir;
 	private final Predicate<String> ignoreFilter;
+	// content hashes of source and target files, only valid as long as the size and timestamp are the same
+	private final Map<Path, FileHash> hashes = new ConcurrentHashMap<>();
+	// target files that this sync did write, the target can also have files of its own (like an installed node_modules)
+	private final Set<Path> copiedFiles = ConcurrentHashMap.newKeySet();
 	private volatile WatchService watchService;
 	private volatile boolean destroy = false;
 	private volatile Thread thread;
 
 	public DirectorySync(File srcRoot, File targetDir, Predicate<String> ignoreFilter)
 	{
+		this.srcRoot = srcRoot;
+		this.targetDir = targetDir;
 		this.ignoreFilter = ignoreFilter;
 
 		try
 		{
 			watchService = FileSystems.getDefault().newWatchService();
-			final Path dir = srcRoot.toPath();
 			addAllDirs(srcRoot);
 			thread = new Thread(() -> {
 				while (!destroy)
@@ -71,80 +104,45 @@ public class DirectorySync
 					{
 						continue;
 					}
-					Path parent = (Path)key.watchable();
-					File targetFolder = new File(targetDir, dir.relativize(parent).toString());
-					for (WatchEvent< ? > event : key.pollEvents())
-					{
-						WatchEvent.Kind< ? > kind = event.kind();
 
-						if (kind == StandardWatchEventKinds.OVERFLOW)
+					// source path -> if it was created in this batch
+					Map<Path, Boolean> changed = new LinkedHashMap<>();
+					boolean overflow = false;
+					long batchEnd = System.currentTimeMillis() + MAX_BATCH_DELAY;
+					while (key != null && !destroy)
+					{
+						overflow = collectEvents(key, changed) || overflow;
+						long wait = Math.min(COALESCE_WINDOW, batchEnd - System.currentTimeMillis());
+						try
 						{
-							continue;
+							key = wait > 0 ? watchService.poll(wait, TimeUnit.MILLISECONDS) : null;
 						}
-						Path localPath = (Path)event.context();
-						Path filename = parent.resolve(localPath);
+						catch (InterruptedException x)
+						{
+							key = null;
+						}
+					}
+					if (destroy) break;
 
-						File target = new File(targetFolder, localPath.toString());
-						if (kind == StandardWatchEventKinds.ENTRY_DELETE)
+					try
+					{
+						if (overflow)
 						{
-							try
-							{
-								if (filename.toFile().exists())
-								{
-									Files.walkFileTree(target.toPath(), DeletePathVisitor.INSTANCE);
-								}
-							}
-							catch (IOException e)
-							{
-								Debug.error(e);
-							}
+							Debug.log("DirectorySync events lost, comparing the whole tree of " + srcRoot);
+							// watch the dirs that where created in the mean time
+							addAllDirs(srcRoot);
+							List<Future<Boolean>> copies = new ArrayList<>();
+							reconcile(srcRoot, targetDir, copies);
+							waitFor(copies);
 						}
-						else if (kind == StandardWatchEventKinds.ENTRY_CREATE || kind == StandardWatchEventKinds.ENTRY_MODIFY)
+						else
 						{
-							if (filename.toFile().isDirectory())
-							{
-								if (kind == StandardWatchEventKinds.ENTRY_CREATE)
-								{
-									System.out.println("recreating folder " + filename);
-									// new dir, start watching it.
-									addAllDirs(filename.toFile());
-									createFolder(target);
-									try
-									{
-										FileUtils.copyDirectory(filename.toFile(), target);
-									}
-									catch (IOException e)
-									{
-										Activator.getInstance().getLog().error("Error copy dir " + filename + " to " + target, e);
-									}
-								}
-							}
-							else
-							{
-								if (filename.toFile().exists())
-								{
-									System.out.println("copy changed file " + filename);
-									try (InputStream is = new FileInputStream(filename.toFile()))
-									{
-										copyOrCreateFile(localPath.toString(), targetFolder, is);
-									}
-									catch (IOException e)
-									{
-										if (filename.toFile().exists())
-										{
-											Activator.getInstance().getLog().error("Error copying file " + filename, e);
-										}
-									}
-								}
-							}
+							sync(changed);
 						}
-
 					}
-
-					// Reset the key -- this step is critical if you want to receive further watch events.
-					if (key.isValid())
+					catch (RuntimeException e)
 					{
-						key.reset();
+						Activator.getInstance().getLog().error("Error syncing " + srcRoot + " to " + targetDir, e);
 					}
 				}
 				try
@@ -172,6 +170,212 @@ public class DirectorySync
 		thread.interrupt();
 	}
 
+	/**
+	 * Adds the paths of the events of the key to the changed map and resets the key.
+	 * @return true if events where lost
+	 */
+	private static boolean collectEvents(WatchKey key, Map<Path, Boolean> changed)
+	{
+		boolean overflow = false;
+		Path parent = (Path)key.watchable();
+		for (WatchEvent< ? > event : key.pollEvents())
+		{
+			WatchEvent.Kind< ? > kind = event.kind();
+			if (kind == StandardWatchEventKinds.OVERFLOW)
+			{
+				overflow = true;
+			}
+			else
+			{
+				Path filename = parent.resolve((Path)event.context());
+				changed.merge(filename, Boolean.valueOf(kind == StandardWatchEventKinds.ENTRY_CREATE), (oldValue, newValue) -> oldValue || newValue);
+			}
+		}
+
+		// Reset the key -- this step is critical if you want to receive further watch events.
+		if (key.isValid())
+		{
+			key.reset();
+		}
+		return overflow;
+	}
+
+	/**
+	 * Syncs the current state of the changed paths, the events only tell which paths to look at.
+	 */
+	private void sync(Map<Path, Boolean> changed)
+	{
+		List<Future<Boolean>> copies = new ArrayList<>();
+		changed.forEach((filename, created) -> {
+			File source = filename.toFile();
+			File target = new File(targetDir, srcRoot.toPath().relativize(filename).toString());
+			if (!source.exists())
+			{
+				delete(target);
+			}
+			else if (source.isDirectory())
+			{
+				// a modify of a dir is just a change of its children, those have their own events.
+				if (created.booleanValue())
+				{
+					// new dir, start watching it.
+					if (addAllDirs(source)) reconcile(source, target, copies);
+				}
+			}
+			else
+			{
+				copies.add(COPY_POOL.submit(() -> copyIfChanged(source, target)));
+			}
+		});
+		int copied = waitFor(copies);
+		if (copied > 0 && Debug.tracing()) Debug.trace("DirectorySync copied " + copied + " of " + copies.size() + " changed files from " + srcRoot + " to " + targetDir);
+	}
+
+	/**
+	 * Makes the target dir the same as the source dir, only files with a different content are copied.
+	 * Files that are only in the target are removed if this sync copied them, a deleted source file whose event was lost.
+	 */
+	private void reconcile(File sourceDir, File target, List<Future<Boolean>> copies)
+	{
+		createFolder(target);
+		File[] children = sourceDir.listFiles();
+		if (children == null) return;
+
+		Set<String> names = new HashSet<>();
+		for (File child : children)
+		{
+			names.add(child.getName());
+			File targetChild = new File(target, child.getName());
+			if (child.isDirectory())
+			{
+				if (ignoreFilter == null || !ignoreFilter.test(child.toURI().getPath()))
+				{
+					reconcile(child, targetChild, copies);
+				}
+			}
+			else
+			{
+				copies.add(COPY_POOL.submit(() -> copyIfChanged(child, targetChild)));
+			}
+		}
+
+		File[] targetChildren = target.listFiles();
+		if (targetChildren == null) return;
+		for (File targetChild : targetChildren)
+		{
+			if (!names.contains(targetChild.getName()))
+			{
+				Path targetChildPath = targetChild.toPath();
+				for (Path copiedFile : copiedFiles)
+				{
+					if (copiedFile.startsWith(targetChildPath)) delete(copiedFile.toFile());
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return true if the file was copied, false if the target already had the same content
+	 */
+	private boolean copyIfChanged(File source, File target)
+	{
+		try
+		{
+			String hash = null;
+			if (target.isFile() && target.length() == source.length())
+			{
+				hash = getContentHash(source);
+				if (hash.equals(getContentHash(target))) return false;
+			}
+			createFolder(target.getParentFile());
+			Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			copiedFiles.add(target.toPath());
+			if (hash != null) hashes.put(target.toPath(), new FileHash(target, hash));
+			else hashes.remove(target.toPath());
+			return true;
+		}
+		catch (IOException e)
+		{
+			if (source.exists())
+			{
+				Activator.getInstance().getLog().error("Error copying file " + source, e);
+			}
+			return false;
+		}
+	}
+
+	private void delete(File target)
+	{
+		if (!target.exists()) return;
+		try
+		{
+			Files.walkFileTree(target.toPath(), DeletePathVisitor.INSTANCE);
+		}
+		catch (IOException e)
+		{
+			Debug.error(e);
+		}
+		Path targetPath = target.toPath();
+		hashes.keySet().removeIf(path -> path.startsWith(targetPath));
+		copiedFiles.removeIf(path -> path.startsWith(targetPath));
+	}
+
+	private String getContentHash(File file) throws IOException
+	{
+		FileHash fileHash = hashes.get(file.toPath());
+		if (fileHash == null || !fileHash.isValid(file))
+		{
+			try
+			{
+				fileHash = new FileHash(file, HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()))));
+			}
+			catch (NoSuchAlgorithmException e)
+			{
+				// every java platform must support SHA-256
+				throw new IllegalStateException(e);
+			}
+			hashes.put(file.toPath(), fileHash);
+		}
+		return fileHash.hash;
+	}
+
+	/**
+	 * Waits until all the copies are done.
+	 * @return the number of files that were really copied
+	 */
+	private static int waitFor(List<Future<Boolean>> copies)
+	{
+		int copied = 0;
+		for (Future<Boolean> copy : copies)
+		{
+			try
+			{
+				if (copy.get().booleanValue()) copied++;
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException e)
+			{
+				Debug.error(e.getCause());
+			}
+		}
+		return copied;
+	}
+
+	private static ExecutorService createCopyPool()
+	{
+		AtomicInteger threadCount = new AtomicInteger();
+		int threads = Integer.getInteger("servoy.directorysync.copythreads", Math.min(4, Runtime.getRuntime().availableProcessors())).intValue();
+		return Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+			Thread thread = new Thread(runnable, "DirectorySync copier " + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
 	private boolean addAllDirs(File dir)
 	{
 		String filename = dir.toURI().getPath();
@@ -237,4 +441,23 @@ public class DirectorySync
 		File file = new File(nodeFolder, filename);
 		FileUtils.copyInputStreamToFile(is, file);
 	}
+
+	private static class FileHash
+	{
+		private final long length;
+		private final long lastModified;
+		private final String hash;
+
+		private FileHash(File file, String hash)
+		{
+			this.length = file.length();
+			this.lastModified = file.lastModified();
+			this.hash = hash;
+		}
+
+		private boolean isValid(File file)
+		{
+			return length == file.length() && lastModified == file.lastModified();
+		}
+	}
 }
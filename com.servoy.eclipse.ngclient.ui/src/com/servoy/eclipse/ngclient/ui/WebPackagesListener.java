@@ -18,9 +18,14 @@
 package com.servoy.eclipse.ngclient.ui;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -29,9 +34,12 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,6 +54,8 @@ import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -146,6 +156,9 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 				CssLibSet cssLibs = new CssLibSet();
 				boolean hasFontAwesomePro = false;
 				Set<String> packageToInstall = new HashSet<>();
+				// npm package name -> fingerprint and npm package name -> what to install for it
+				Map<String, String> packageFingerprints = new TreeMap<>();
+				Map<String, String> packageInstalls = new HashMap<>();
 				Set<String> assetsToAdd = new HashSet<>();
 				Map<String, Pair<WebLayoutSpecification, String>> structureTagNames = new HashMap<>();
 				// service are based just on all service specifications
@@ -273,10 +286,12 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 							IPackageReader packageReader = entry.getValue();
 							String entryPoint = ng2Config.getEntryPoint();
 							String pck = checkPackage(dependencies, packageName, packageReader, entryPoint, console);
+							packageFingerprints.put(packageName, getPackageFingerprint(packageName, packageReader, entryPoint));
 							if (pck != null)
 							{
 								writeConsole(console, "- need to install package " + pck);
 								packageToInstall.add(pck);
+								packageInstalls.put(packageName, pck);
 							}
 						});
 
@@ -286,9 +301,11 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 							IPackageReader packageReader = entry.getValue();
 							String entryPoint = spec.getEntryPoint();
 							String pck = checkPackage(dependencies, packageName, packageReader, entryPoint, console);
+							packageFingerprints.put(packageName, getPackageFingerprint(packageName, packageReader, entryPoint));
 							if (pck != null)
 							{
 								packageToInstall.add(pck);
+								packageInstalls.put(packageName, pck);
 							}
 						});
 					}
@@ -607,8 +624,50 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 					writeErrorToConsoleAndLog(console, e, "Exception while checking assets: ");
 					// TODO should we return a WARNING status here as we do for other failures?
 				}
-				if (packageToInstall.size() > 0 || sourceChanged || !new File(projectFolder, "dist").exists() || cleanInstall.get())
+				boolean buildNeeded = packageToInstall.size() > 0 || sourceChanged || !new File(projectFolder, "dist").exists() || cleanInstall.get();
+				// the packages that are installed, only the changed ones when the rest of the last build can be reused
+				Set<String> installPackages = packageToInstall;
+				boolean partialInstall = false;
+				// compare with the fingerprint of the last successful build, the checks above also trigger when files are rewritten or extracted again
+				// with the same contents (a switch to another branch and back, touched package zips)
+				File fingerprintFile = new File(projectFolder, BUILD_FINGERPRINT_FILE);
+				Properties fingerprint = createBuildFingerprint(packageFingerprints);
+				if (buildNeeded && !cleanInstall.get() && new File(projectFolder, "dist/app/browser/index.html").exists())
 				{
+					Properties previousFingerprint = loadBuildFingerprint(fingerprintFile);
+					if (fingerprint.equals(previousFingerprint))
+					{
+						writeConsole(console, "- packages and generated sources have the same fingerprint as the last build");
+						buildNeeded = false;
+					}
+					else if (previousFingerprint != null && fingerprint.keySet().equals(previousFingerprint.keySet()) &&
+						Objects.equals(fingerprint.getProperty(SOURCES_FINGERPRINT), previousFingerprint.getProperty(SOURCES_FINGERPRINT)) &&
+						Objects.equals(fingerprint.getProperty(DEPENDENCIES_FINGERPRINT), previousFingerprint.getProperty(DEPENDENCIES_FINGERPRINT)) &&
+						Objects.equals(fingerprint.getProperty(NODE_MODULES_FINGERPRINT), previousFingerprint.getProperty(NODE_MODULES_FINGERPRINT)))
+					{
+						// only the contents of some packages changed, just install those (if all of them can be installed on their own)
+						Set<String> changedPackages = new HashSet<>();
+						boolean[] allInstallable = { true };
+						packageFingerprints.forEach((packageName, packageFingerprint) -> {
+							if (!packageFingerprint.equals(previousFingerprint.getProperty(PACKAGE_FINGERPRINT_PREFIX + packageName)))
+							{
+								writeConsole(console, "- package " + packageName + " changed");
+								String pck = packageInstalls.get(packageName);
+								if (pck != null) changedPackages.add(pck);
+								else allInstallable[0] = false;
+							}
+						});
+						if (allInstallable[0])
+						{
+							partialInstall = true;
+							installPackages = changedPackages;
+						}
+					}
+				}
+				if (buildNeeded)
+				{
+					// a failing or canceled build should not leave the old fingerprint behind
+					fingerprintFile.delete();
 					if (warExportModel == null)
 					{
 						Display.getDefault().asyncExec(() -> {
@@ -656,7 +715,7 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 					// or if there are really packages to install.
 					List<String> command = new ArrayList<>();
 					command.add("install");
-					packageToInstall.forEach(packageName -> command.add(packageName));
+					installPackages.forEach(packageName -> command.add(packageName));
 					command.add("./dist-public/"); // also add the public api
 					command.add("--legacy-peer-deps");
 					RunNPMCommand npmCommand = Activator.getInstance().createNPMCommand(this.projectFolder, command);
@@ -670,6 +729,8 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 							return new Status(IStatus.WARNING, getClass(),
 								"npm install many, packages, that, are, needed EXIT_CODE was: " + npmCommand.getExitCode());
 						}
+						// the packages are installed, a failed install returned above and still has them
+						packageToInstall.clear();
 					}
 					catch (Exception e)
 					{
@@ -696,7 +757,7 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 							return new Status(IStatus.WARNING, getClass(), "npm ci failed: " + e.getMessage());
 						}
 					}
-					else
+					else if (!partialInstall)
 					{
 						npmCommand = Activator.getInstance().createNPMCommand(this.projectFolder, Arrays.asList("update", "--legacy-peer-deps"));
 						try
@@ -715,21 +776,24 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 							return new Status(IStatus.WARNING, getClass(), "npm update failed: " + e.getMessage());
 						}
 					}
-					npmCommand = Activator.getInstance().createNPMCommand(this.projectFolder, Arrays.asList("dedup"));
-					try
+					if (!partialInstall)
 					{
-						npmCommand.runCommand(monitor);
-						if (npmCommand.getExitCode() != 0)
+						npmCommand = Activator.getInstance().createNPMCommand(this.projectFolder, Arrays.asList("dedup"));
+						try
 						{
-							writeConsole(console,
-								"\r\n" + "Unexpected EXIT_CODE calling npm dedup: " + npmCommand.getExitCode() + "\r\n");
-							return new Status(IStatus.WARNING, getClass(), "npm dedup EXIT_CODE was: " + npmCommand.getExitCode());
+							npmCommand.runCommand(monitor);
+							if (npmCommand.getExitCode() != 0)
+							{
+								writeConsole(console,
+									"\r\n" + "Unexpected EXIT_CODE calling npm dedup: " + npmCommand.getExitCode() + "\r\n");
+								return new Status(IStatus.WARNING, getClass(), "npm dedup EXIT_CODE was: " + npmCommand.getExitCode());
+							}
+						}
+						catch (Exception e)
+						{
+							writeErrorToConsoleAndLog(console, e, "Exception while running 'npm dedup': ");
+							return new Status(IStatus.WARNING, getClass(), "npm dedup failed: " + e.getMessage());
 						}
-					}
-					catch (Exception e)
-					{
-						writeErrorToConsoleAndLog(console, e, "Exception while running 'npm dedup': ");
-						return new Status(IStatus.WARNING, getClass(), "npm dedup failed: " + e.getMessage());
 					}
 					long dedupTime = System.currentTimeMillis();
 					// after dedup we have to run our own dedup, but then compared to the root node_modules
@@ -818,6 +882,10 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 							writeErrorToConsoleAndLog(console, e, "Exception while running 'npm run " + whatToRun + "': ");
 							return new Status(IStatus.WARNING, getClass(), "npm run " + whatToRun + " failed: " + e.getMessage());
 						}
+						// npm install did update the package.json
+						fingerprint.setProperty(DEPENDENCIES_FINGERPRINT, getDependenciesFingerprint());
+						fingerprint.setProperty(NODE_MODULES_FINGERPRINT, getNodeModulesFingerprint());
+						saveBuildFingerprint(fingerprintFile, fingerprint, console);
 					}
 				}
 				else writeConsole(console, "Skipping install / build as no changes were found.");
@@ -1272,10 +1340,157 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 			int endIndex = content.indexOf(end) + end.length();
 			return content.substring(0, startIndex) + toInsert + content.substring(endIndex);
 		}
+
+		/**
+		 * The fingerprint of a package is its version, entry point and the contents it is installed from.
+		 * This must be called after {@link #checkPackage(JSONObject, String, IPackageReader, String, StringOutputStream)} did update the packages folder.
+		 */
+		private String getPackageFingerprint(String packageName, IPackageReader packageReader, String entryPoint)
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(packageReader.getVersion()).append('|').append(entryPoint);
+			if (packageReader instanceof ZipPackageReader && packageReader.getResource() != null)
+			{
+				// the contents and not the timestamp, a checkout of the same zip does touch it
+				sb.append('|').append(getContentHash(packageReader.getResource()));
+			}
+			else if (packageReader instanceof DirPackageReader)
+			{
+				// the DirectorySync keeps the copy in the packages folder up to date with the source project
+				File packageFolder = new File(new File(projectFolder, "packages"), packageName);
+				if (packageFolder.isDirectory())
+				{
+					long[] lastModified = new long[1];
+					int[] count = new int[1];
+					FileUtils.listFiles(packageFolder, TrueFileFilter.TRUE, TrueFileFilter.TRUE).forEach(file -> {
+						if (!".timestamp".equals(file.getName()))
+						{
+							lastModified[0] = Math.max(lastModified[0], file.lastModified());
+							count[0]++;
+						}
+					});
+					sb.append('|').append(count[0]).append('|').append(lastModified[0]);
+				}
+			}
+			return sb.toString();
+		}
+
+		/**
+		 * Creates the fingerprint of all the inputs of the npm install and build: the packages, the generated sources and configuration and the kind of build.
+		 */
+		private Properties createBuildFingerprint(Map<String, String> packageFingerprints)
+		{
+			Properties fingerprint = new Properties();
+			packageFingerprints.forEach((packageName, packageFingerprint) -> fingerprint.setProperty(PACKAGE_FINGERPRINT_PREFIX + packageName, packageFingerprint));
+			MessageDigest digest = createDigest();
+			digest.update(Activator.getInstance().getBundle().getVersion().toString().getBytes(StandardCharsets.UTF_8));
+			digest.update((warExportModel != null ? "war:" + warExportModel.exportNG2Mode() : "debug").getBytes(StandardCharsets.UTF_8));
+			digest.update((byte)(SOURCE_DEBUG ? 1 : 0));
+			for (String generated : GENERATED_SOURCES)
+			{
+				File file = new File(projectFolder, generated);
+				try
+				{
+					digest.update(generated.getBytes(StandardCharsets.UTF_8));
+					if (file.exists()) digest.update(Files.readAllBytes(file.toPath()));
+				}
+				catch (IOException e)
+				{
+					// a unique value, so that the build is done
+					digest.update(Long.toString(System.nanoTime()).getBytes(StandardCharsets.UTF_8));
+				}
+			}
+			fingerprint.setProperty(SOURCES_FINGERPRINT, HexFormat.of().formatHex(digest.digest()));
+			fingerprint.setProperty(DEPENDENCIES_FINGERPRINT, getDependenciesFingerprint());
+			fingerprint.setProperty(NODE_MODULES_FINGERPRINT, getNodeModulesFingerprint());
+			return fingerprint;
+		}
+
+		/**
+		 * The dependencies of the package.json, this is what npm has installed in the node_modules.
+		 */
+		private String getDependenciesFingerprint()
+		{
+			try
+			{
+				JSONObject dependencies = new JSONObject(FileUtils.readFileToString(new File(projectFolder, "package.json"), "UTF-8"))
+					.optJSONObject("dependencies");
+				StringBuilder sb = new StringBuilder();
+				String[] names = dependencies != null ? JSONObject.getNames(dependencies) : null;
+				if (names != null)
+				{
+					Arrays.sort(names);
+					for (String name : names)
+					{
+						sb.append(name).append('@').append(dependencies.optString(name)).append('\n');
+					}
+				}
+				return HexFormat.of().formatHex(createDigest().digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+			}
+			catch (IOException | JSONException e)
+			{
+				return "";
+			}
+		}
+
+		/**
+		 * Whether the node_modules are there, a removed node_modules folder must be installed again even if nothing else changed.
+		 */
+		private String getNodeModulesFingerprint()
+		{
+			return Boolean.toString(new File(projectFolder, "node_modules").isDirectory());
+		}
+
+		private Properties loadBuildFingerprint(File fingerprintFile)
+		{
+			if (fingerprintFile.exists())
+			{
+				Properties fingerprint = new Properties();
+				try (FileInputStream fis = new FileInputStream(fingerprintFile))
+				{
+					fingerprint.load(fis);
+					return fingerprint;
+				}
+				catch (IOException e)
+				{
+					Activator.getInstance().getLog().error("Could not read the build fingerprint " + fingerprintFile, e);
+				}
+			}
+			return null;
+		}
+
+		private void saveBuildFingerprint(File fingerprintFile, Properties fingerprint, StringOutputStream console)
+		{
+			try (FileOutputStream fos = new FileOutputStream(fingerprintFile))
+			{
+				fingerprint.store(fos, "Titanium NGClient build fingerprint");
+			}
+			catch (IOException e)
+			{
+				writeErrorToConsoleAndLog(console, e, "Exception while writing the build fingerprint: ");
+				fingerprintFile.delete();
+			}
+		}
 	}
 
 	private static boolean SOURCE_DEBUG = "true".equals(System.getProperty("ti.ng.source.debug", "false"));
 
+	// the fingerprint of the last successful build is stored next to the node_modules of the project folder
+	private static final String BUILD_FINGERPRINT_FILE = ".build_fingerprint";
+	private static final String PACKAGE_FINGERPRINT_PREFIX = "package.";
+	private static final String SOURCES_FINGERPRINT = "sources";
+	private static final String DEPENDENCIES_FINGERPRINT = "dependencies";
+	private static final String NODE_MODULES_FINGERPRINT = "node_modules";
+	private static final String[] GENERATED_SOURCES = new String[] { "src/ngclient/allservices.service.ts", "src/ngclient/form/form_component.component.ts", //
+		"src/designer/designform_component.component.ts", "src/servoycore/listformcomponent/listformcomponent.ts", "src/ngclient/allcomponents.module.ts", //
+		"angular.json", "tsconfig.json" };
+	// content hash of package zips per project (the project name, or "" for zips outside of the workspace) and path, with the size and timestamp it was taken for
+	// so that an unchanged zip is not read again; the hashes of a project are dropped when it is closed or deleted
+	private static final ConcurrentMap<String, ConcurrentMap<String, Pair<String, String>>> contentHashes = new ConcurrentHashMap<>();
+	private static final IResourceChangeListener projectCloseListener = event -> {
+		if (event.getResource() != null) contentHashes.remove(event.getResource().getName());
+	};
+
 	private static final AtomicBoolean ignore = new AtomicBoolean(false);
 
 	private static final AtomicInteger scheduled = new AtomicInteger(0); // 0 == no jobs, 1 == job scheduled, 2  or 3 == job running, 3 == run again.
@@ -1284,8 +1499,44 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 	private static final ConcurrentMap<File, DirectorySync> watchCreated = new ConcurrentHashMap<>();
 	private static final SerialRule serialRule = SerialRule.getNewSerialRule();
 
+	private static String getContentHash(File file)
+	{
+		String stamp = Long.toString(file.length()) + '|' + file.lastModified();
+		IFile[] workspaceFiles = ResourcesPlugin.getWorkspace().getRoot().findFilesForLocationURI(file.toURI());
+		ConcurrentMap<String, Pair<String, String>> projectHashes = contentHashes
+			.computeIfAbsent(workspaceFiles.length > 0 ? workspaceFiles[0].getProject().getName() : "", projectName -> new ConcurrentHashMap<>());
+		Pair<String, String> contentHash = projectHashes.get(file.getAbsolutePath());
+		if (contentHash == null || !contentHash.getLeft().equals(stamp))
+		{
+			try
+			{
+				contentHash = new Pair<>(stamp, HexFormat.of().formatHex(createDigest().digest(Files.readAllBytes(file.toPath()))));
+				projectHashes.put(file.getAbsolutePath(), contentHash);
+			}
+			catch (IOException e)
+			{
+				return file.getAbsolutePath() + '|' + stamp;
+			}
+		}
+		return contentHash.getRight();
+	}
+
+	private static MessageDigest createDigest()
+	{
+		try
+		{
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// every java platform must support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
 	public WebPackagesListener()
 	{
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(projectCloseListener, IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
 		if (WebServiceSpecProvider.isLoaded() && ServoyModelFinder.getServoyModel().getActiveProject() != null)
 			createNodeFolderAndCheckPackages();
 	}
@@ -1322,6 +1573,15 @@ public class WebPackagesListener implements ILoadedNGPackagesListener
 		job.schedule();
 	}
 
+	/**
+	 * Stops tracking the projects, called when the plugin stops.
+	 */
+	public static void dispose()
+	{
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectCloseListener);
+		contentHashes.clear();
+	}
+
 	public static boolean isBuildRunning()
 	{
 		return scheduled.get() > 1;
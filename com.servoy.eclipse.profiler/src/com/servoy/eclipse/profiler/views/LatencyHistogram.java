@@ -0,0 +1,124 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+/**
+ * Histogram of times (in ms) with a fixed size, so that percentiles can be shown for every aggregate without keeping all the times.
+ * Times below 16 ms are counted exactly, larger times are counted in 8 buckets per power of two, so a percentile is at most 12.5% too high.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+	private static final int BUCKET_COUNT = LINEAR_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long count;
+	private long max;
+
+	public void record(long time)
+	{
+		record(time, 1);
+	}
+
+	/**
+	 * Records the time the given number of times.
+	 */
+	public void record(long time, int times)
+	{
+		if (times <= 0) return;
+		long value = Math.max(0, time);
+		counts[getBucket(value)] += times;
+		count += times;
+		if (value > max) max = value;
+	}
+
+	/**
+	 * Adds the times of the other histogram to this one, the result is the same as when all the times were recorded in this histogram.
+	 */
+	public void merge(LatencyHistogram other)
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		if (other.max > max) max = other.max;
+	}
+
+	public long getCount()
+	{
+		return count;
+	}
+
+	public long getMax()
+	{
+		return max;
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return the highest time of the bucket that has the percentile, never more then the max; 0 when nothing is recorded
+	 */
+	public long getPercentile(double percentile)
+	{
+		if (count == 0) return 0;
+		long rank = Math.max(1, (long)Math.ceil(percentile / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			seen += counts[i];
+			if (seen >= rank) return Math.min(getHighestValue(i), max);
+		}
+		return max;
+	}
+
+	/**
+	 * Appends the percentiles as xml attributes.
+	 */
+	void toXML(StringBuilder sb)
+	{
+		sb.append("p50=\"");
+		sb.append(getPercentile(50));
+		sb.append("\" p95=\"");
+		sb.append(getPercentile(95));
+		sb.append("\" p99=\"");
+		sb.append(getPercentile(99));
+		sb.append("\" max=\"");
+		sb.append(max);
+		sb.append('"');
+	}
+
+	private static int getBucket(long value)
+	{
+		if (value < LINEAR_BUCKETS) return (int)value;
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long getHighestValue(int bucket)
+	{
+		if (bucket < LINEAR_BUCKETS) return bucket;
+		int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+		int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+		int shift = exponent - SUB_BUCKET_BITS;
+		return ((long)(SUB_BUCKETS + subBucket) << shift) + (1L << shift) - 1;
+	}
+}
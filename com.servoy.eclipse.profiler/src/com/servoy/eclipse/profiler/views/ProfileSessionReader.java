@@ -0,0 +1,321 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the session files of the {@link ProfileSessionRecorder}, the calls are given one root at a time so a large session does not have to fit in memory.
+ * A session can be exported as collapsed stacks for flame graph tools, it is not loaded into the profiler view.
+ */
+public class ProfileSessionReader
+{
+	private static final int MAX_QUERY_FRAME_LENGTH = 200;
+
+	/**
+	 * A profiled call as it is stored in a session file.
+	 */
+	public static final class RecordedCall
+	{
+		private final String methodName;
+		private final String sourceName;
+		private final int innerFunctionLineStart;
+		private final boolean calculation;
+		private final long time;
+		private final long ownTime;
+		private final List<RecordedDataCall> dataCalls = new ArrayList<RecordedDataCall>();
+		private final List<RecordedCall> children = new ArrayList<RecordedCall>();
+
+		/**
+		 * @param innerFunctionLineStart -1 if the call is not an inner function
+		 */
+		public RecordedCall(String methodName, String sourceName, int innerFunctionLineStart, boolean calculation, long time, long ownTime)
+		{
+			this.methodName = methodName;
+			this.sourceName = sourceName;
+			this.innerFunctionLineStart = innerFunctionLineStart;
+			this.calculation = calculation;
+			this.time = time;
+			this.ownTime = ownTime;
+		}
+
+		public String getMethodName()
+		{
+			return methodName;
+		}
+
+		public String getSourceName()
+		{
+			return sourceName;
+		}
+
+		public int getInnerFunctionLineStart()
+		{
+			return innerFunctionLineStart;
+		}
+
+		public boolean isCalculation()
+		{
+			return calculation;
+		}
+
+		public long getTime()
+		{
+			return time;
+		}
+
+		public long getOwnTime()
+		{
+			return ownTime;
+		}
+
+		public List<RecordedDataCall> getDataCalls()
+		{
+			return dataCalls;
+		}
+
+		public List<RecordedCall> getChildren()
+		{
+			return children;
+		}
+	}
+
+	/**
+	 * A data call of a profiled call as it is stored in a session file.
+	 */
+	public static final class RecordedDataCall
+	{
+		private final String name;
+		private final String datasource;
+		private final String query;
+		private final long time;
+		private final int count;
+
+		public RecordedDataCall(String name, String datasource, String query, long time, int count)
+		{
+			this.name = name;
+			this.datasource = datasource;
+			this.query = query;
+			this.time = time;
+			this.count = count;
+		}
+
+		public String getName()
+		{
+			return name;
+		}
+
+		public String getDatasource()
+		{
+			return datasource;
+		}
+
+		public String getQuery()
+		{
+			return query;
+		}
+
+		public long getTime()
+		{
+			return time;
+		}
+
+		public int getCount()
+		{
+			return count;
+		}
+	}
+
+	private ProfileSessionReader()
+	{
+	}
+
+	/**
+	 * Reads all the root calls of the session; a file that ends with an incomplete record (of a client that was killed) is read up to that record.
+	 *
+	 * @return the number of root calls
+	 */
+	public static int read(File sessionFile, Consumer<RecordedCall> consumer) throws IOException
+	{
+		int count = 0;
+		List<String> strings = new ArrayList<String>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sessionFile), 64 * 1024)))
+		{
+			if (in.readInt() != ProfileSessionRecorder.MAGIC || in.readInt() != ProfileSessionRecorder.VERSION)
+			{
+				throw new IOException(sessionFile + " is not a profiler session of this version");
+			}
+			while (true)
+			{
+				int tag = in.read();
+				if (tag == -1) break;
+				if (tag == ProfileSessionRecorder.STRING_RECORD)
+				{
+					int id = in.readInt();
+					byte[] bytes = new byte[in.readInt()];
+					in.readFully(bytes);
+					if (id != strings.size()) throw new IOException("Invalid string table in profiler session " + sessionFile);
+					strings.add(new String(bytes, StandardCharsets.UTF_8));
+				}
+				else if (tag == ProfileSessionRecorder.CALL_RECORD)
+				{
+					byte[] bytes = new byte[in.readInt()];
+					in.readFully(bytes);
+					consumer.accept(readCall(new DataInputStream(new ByteArrayInputStream(bytes)), strings));
+					count++;
+				}
+				else
+				{
+					throw new IOException("Invalid record in profiler session " + sessionFile);
+				}
+			}
+		}
+		catch (EOFException e)
+		{
+			// the last record is incomplete, all the complete ones are read
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the session in the collapsed stack format ("frame;frame;frame weight" per line) that flame graph tools take as input.
+	 * The weight is the own time in ms of the last frame, data calls are separate frames so the own time of a method does not include its queries.
+	 *
+	 * @return the number of root calls
+	 */
+	public static int exportCollapsedStacks(File sessionFile, File outputFile) throws IOException
+	{
+		Map<String, long[]> stacks = new HashMap<String, long[]>();
+		int count = read(sessionFile, call -> collapse(call, null, stacks));
+
+		List<String> sortedStacks = new ArrayList<String>(stacks.keySet());
+		Collections.sort(sortedStacks);
+		try (Writer writer = Files.newBufferedWriter(outputFile.toPath(), StandardCharsets.UTF_8))
+		{
+			for (String stack : sortedStacks)
+			{
+				long weight = stacks.get(stack)[0];
+				if (weight > 0)
+				{
+					writer.write(stack);
+					writer.write(' ');
+					writer.write(Long.toString(weight));
+					writer.write('\n');
+				}
+			}
+		}
+		return count;
+	}
+
+	private static void collapse(RecordedCall call, String parentStack, Map<String, long[]> stacks)
+	{
+		String stack = parentStack == null ? getFrame(call) : parentStack + ';' + getFrame(call);
+		long dataCallsTime = 0;
+		for (RecordedDataCall dataCall : call.dataCalls)
+		{
+			addWeight(stacks, stack + ';' + getFrame(dataCall), dataCall.time);
+			dataCallsTime += dataCall.time;
+		}
+		addWeight(stacks, stack, Math.max(0, call.ownTime - dataCallsTime));
+		for (RecordedCall child : call.children)
+		{
+			collapse(child, stack, stacks);
+		}
+	}
+
+	private static void addWeight(Map<String, long[]> stacks, String stack, long weight)
+	{
+		stacks.computeIfAbsent(stack, key -> new long[1])[0] += weight;
+	}
+
+	private static String getFrame(RecordedCall call)
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append(call.methodName);
+		if (call.innerFunctionLineStart != -1) sb.append('#').append(call.innerFunctionLineStart);
+		if (call.sourceName != null)
+		{
+			String fileName = new File(call.sourceName).getName();
+			sb.append('[').append(fileName.endsWith(".js") ? fileName.substring(0, fileName.length() - 3) : fileName).append(']');
+		}
+		if (call.calculation) sb.append(" (calculation)");
+		return cleanFrame(sb.toString());
+	}
+
+	private static String getFrame(RecordedDataCall dataCall)
+	{
+		String query = dataCall.query != null ? dataCall.query : "";
+		if (query.length() > MAX_QUERY_FRAME_LENGTH) query = query.substring(0, MAX_QUERY_FRAME_LENGTH) + "...";
+		return cleanFrame(dataCall.name + ": " + query);
+	}
+
+	/**
+	 * ';' separates the frames and a new line the stacks, so they can't be in a frame.
+	 */
+	private static String cleanFrame(String frame)
+	{
+		return frame.replace(';', ',').replace('\r', ' ').replace('\n', ' ');
+	}
+
+	private static RecordedCall readCall(DataInputStream in, List<String> strings) throws IOException
+	{
+		String methodName = getString(strings, in.readInt());
+		String sourceName = getString(strings, in.readInt());
+		int innerFunctionLineStart = in.readInt();
+		boolean calculation = in.readBoolean();
+		long time = in.readLong();
+		RecordedCall call = new RecordedCall(methodName, sourceName, innerFunctionLineStart, calculation, time, in.readLong());
+		int dataCallCount = in.readInt();
+		for (int i = 0; i < dataCallCount; i++)
+		{
+			String name = getString(strings, in.readInt());
+			String datasource = getString(strings, in.readInt());
+			String query = getString(strings, in.readInt());
+			long dataCallTime = in.readLong();
+			call.dataCalls.add(new RecordedDataCall(name, datasource, query, dataCallTime, in.readInt()));
+		}
+		int childCount = in.readInt();
+		for (int i = 0; i < childCount; i++)
+		{
+			call.children.add(readCall(in, strings));
+		}
+		return call;
+	}
+
+	private static String getString(List<String> strings, int id) throws IOException
+	{
+		if (id == -1) return null;
+		if (id < 0 || id >= strings.size()) throw new IOException("Unknown string " + id + " in profiler session");
+		return strings.get(id);
+	}
+}
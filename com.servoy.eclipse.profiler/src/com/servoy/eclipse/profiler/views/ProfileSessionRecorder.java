@@ -0,0 +1,211 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.servoy.eclipse.model.util.ServoyLog;
+import com.servoy.eclipse.profiler.views.ProfileSessionReader.RecordedCall;
+import com.servoy.eclipse.profiler.views.ProfileSessionReader.RecordedDataCall;
+import com.servoy.j2db.debug.DataCallProfileData;
+import com.servoy.j2db.debug.IProfileListener;
+import com.servoy.j2db.debug.ProfileData;
+
+/**
+ * Profile listener that appends all the profiled calls to a session file, so that a long run can be recorded without keeping it in memory.
+ * <p>
+ * The file starts with {@link #MAGIC} and {@link #VERSION}, followed by records that start with a tag byte:
+ * <ul>
+ * <li>{@link #STRING_RECORD}: id (int) and the utf-8 bytes (int length + bytes) of a method, source, action or query name;
+ * it is written once, before the first call that uses it</li>
+ * <li>{@link #CALL_RECORD}: the length (int) and bytes of one profiled root call with all its data calls and child calls, see {@link #writeCall(RecordedCall)}</li>
+ * </ul>
+ * Because every record is written at once, a file of a client that was killed can still be read up to its last complete record.
+ * The file can be read with {@link ProfileSessionReader}.
+ */
+public class ProfileSessionRecorder implements IProfileListener
+{
+	static final int MAGIC = 0x53565950; // SVYP
+	static final int VERSION = 1;
+	static final byte STRING_RECORD = 1;
+	static final byte CALL_RECORD = 2;
+
+	private static final long FLUSH_INTERVAL = 2000;
+
+	private final File file;
+	private final Consumer<ProfileSessionRecorder> failureListener;
+	private final DataOutputStream out;
+	private final Map<String, Integer> stringIds = new HashMap<String, Integer>();
+	private final ByteArrayOutputStream callBuffer = new ByteArrayOutputStream(1024);
+	private final DataOutputStream callOut = new DataOutputStream(callBuffer);
+	private long lastFlush = System.currentTimeMillis();
+	private boolean closed;
+
+	/**
+	 * @param failureListener called (on the thread that profiled the call) when the recording stopped because the file could not be written
+	 */
+	public ProfileSessionRecorder(File file, Consumer<ProfileSessionRecorder> failureListener) throws IOException
+	{
+		this.file = file;
+		this.failureListener = failureListener;
+		out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+	}
+
+	public File getFile()
+	{
+		return file;
+	}
+
+	public void addProfileData(ProfileData profileData)
+	{
+		addCall(toRecordedCall(profileData));
+	}
+
+	/**
+	 * Appends the call as a root call to the session.
+	 */
+	public void addCall(RecordedCall call)
+	{
+		boolean failed = false;
+		synchronized (this)
+		{
+			if (closed) return;
+			try
+			{
+				callBuffer.reset();
+				writeCall(call);
+				out.writeByte(CALL_RECORD);
+				out.writeInt(callBuffer.size());
+				callBuffer.writeTo(out);
+
+				long now = System.currentTimeMillis();
+				if (now - lastFlush > FLUSH_INTERVAL)
+				{
+					out.flush();
+					lastFlush = now;
+				}
+			}
+			catch (IOException e)
+			{
+				ServoyLog.logError("Could not record the profile data in " + file + ", recording is stopped", e);
+				close();
+				failed = true;
+			}
+		}
+		if (failed && failureListener != null) failureListener.accept(this);
+	}
+
+	public synchronized void close()
+	{
+		if (closed) return;
+		closed = true;
+		try
+		{
+			out.close();
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not close the profiler session " + file, e);
+		}
+	}
+
+	/**
+	 * A call is written as: method, source (string ids), inner function line start (int, -1 if not an inner function), calculation (boolean),
+	 * time and own time (long), the number of data calls (int) each as action name, datasource, query (string ids), time (long) and count (int),
+	 * and the number of child calls (int) each written as a call.
+	 */
+	private void writeCall(RecordedCall call) throws IOException
+	{
+		callOut.writeInt(getStringId(call.getMethodName()));
+		callOut.writeInt(getStringId(call.getSourceName()));
+		callOut.writeInt(call.getInnerFunctionLineStart());
+		callOut.writeBoolean(call.isCalculation());
+		callOut.writeLong(call.getTime());
+		callOut.writeLong(call.getOwnTime());
+
+		callOut.writeInt(call.getDataCalls().size());
+		for (RecordedDataCall dataCall : call.getDataCalls())
+		{
+			callOut.writeInt(getStringId(dataCall.getName()));
+			callOut.writeInt(getStringId(dataCall.getDatasource()));
+			callOut.writeInt(getStringId(dataCall.getQuery()));
+			callOut.writeLong(dataCall.getTime());
+			callOut.writeInt(dataCall.getCount());
+		}
+
+		callOut.writeInt(call.getChildren().size());
+		for (RecordedCall child : call.getChildren())
+		{
+			writeCall(child);
+		}
+	}
+
+	private static RecordedCall toRecordedCall(ProfileData pd)
+	{
+		int[] lineNumbers = pd.getLineNumbers();
+		RecordedCall call = new RecordedCall(pd.getMethodName(), pd.getSourceName(),
+			pd.isInnerFunction() && lineNumbers != null && lineNumbers.length > 0 ? lineNumbers[0] : -1, pd.isCalculation(), pd.getTime(), pd.getOwnTime());
+		Collection<DataCallProfileData> dataCalls = pd.getDataCallProfileDatas();
+		for (DataCallProfileData dataCall : dataCalls)
+		{
+			call.getDataCalls().add(
+				new RecordedDataCall(dataCall.getName(), dataCall.getDatasource(), dataCall.getQuery(), dataCall.getTime(), dataCall.getCount()));
+		}
+		ProfileData[] children = pd.getChildren();
+		if (children != null)
+		{
+			for (ProfileData child : children)
+			{
+				call.getChildren().add(toRecordedCall(child));
+			}
+		}
+		return call;
+	}
+
+	/**
+	 * @return the id of the string, the string is written to the file when it is new; -1 for null
+	 */
+	private int getStringId(String value) throws IOException
+	{
+		if (value == null) return -1;
+		Integer id = stringIds.get(value);
+		if (id == null)
+		{
+			id = Integer.valueOf(stringIds.size());
+			stringIds.put(value, id);
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeByte(STRING_RECORD);
+			out.writeInt(id.intValue());
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+		return id.intValue();
+	}
+}
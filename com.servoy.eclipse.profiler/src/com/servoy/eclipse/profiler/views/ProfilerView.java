@@ -16,15 +16,20 @@
  */
 package com.servoy.eclipse.profiler.views;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.ResourcesPlugin;
@@ -51,6 +56,7 @@ import org.eclipse.jface.dialogs.InputDialog;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.util.Throttler;
 import org.eclipse.jface.viewers.ColumnLabelProvider;
 import org.eclipse.jface.viewers.ColumnViewerToolTipSupport;
 import org.eclipse.jface.viewers.DoubleClickEvent;
@@ -87,6 +93,7 @@ import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.FileDialog;
 import org.eclipse.swt.widgets.Menu;
 import org.eclipse.swt.widgets.Table;
 import org.eclipse.swt.widgets.TableColumn;
@@ -117,6 +124,7 @@ import org.eclipse.ui.texteditor.ITextEditor;
 import com.servoy.eclipse.core.ServoyModel;
 import com.servoy.eclipse.model.util.ServoyLog;
 import com.servoy.eclipse.profiler.Activator;
+import com.servoy.eclipse.profiler.views.SqlStatementAggregator.StatementGroup;
 import com.servoy.eclipse.ui.editors.table.ColumnsSorter;
 import com.servoy.eclipse.ui.resource.FileEditorInputFactory;
 import com.servoy.j2db.debug.DataCallProfileData;
@@ -160,6 +168,9 @@ public class ProfilerView extends ViewPart
 	public static final String TREE_WIDTH_SETTING = "profilerView.treeWidth";
 	public static final String TABLE_WIDTH_SETTING = "profilerView.tableWidth";
 	public static final String MAX_NUMBER_OF_ROOTS_SETTING = "profilerView.maxNrOfRoots";
+	public static final String PERCENTILE_COLUMN_WIDTH_SETTING = "profilerView.percentileColumnWidth";
+	public static final String PERCENTILE_TABLE_COLUMN_WIDTH_SETTING = "profilerView.percentileTableColumnWidth";
+	public static final String CALLERS_TABLE_COLUMN_WIDTH_SETTING = "profilerView.callersTableColumnWidth";
 
 	public static final int METHOD_NAME_COLUMN_WIDTH_DEFAULT = 200;
 	public static final int OWN_TIME_COLUMN_WIDTH_DEFAULT = 100;
@@ -177,11 +188,69 @@ public class ProfilerView extends ViewPart
 	public static final int TREE_WIDTH_DEFAULT = 50;
 	public static final int TABLE_WIDTH_DEFAULT = 50;
 	public static final int MAX_NUMBER_OF_ROOTS_DEFAULT = 400;
+	public static final int PERCENTILE_COLUMN_WIDTH_DEFAULT = 70;
+	public static final int PERCENTILE_TABLE_COLUMN_WIDTH_DEFAULT = 70;
+	public static final int CALLERS_TABLE_COLUMN_WIDTH_DEFAULT = 250;
+
+	/**
+	 * The percentiles that are shown for the aggregated times, the 100th percentile is the max.
+	 */
+	private static final double[] PERCENTILES = { 50, 95, 99, 100 };
+	private static final String[] PERCENTILE_NAMES = { "P50 (ms)", "P95 (ms)", "P99 (ms)", "Max (ms)" };
+
+	/**
+	 * The tree is refreshed at most this many times per second while profile data comes in.
+	 */
+	private static final int MAX_REFRESHES_PER_SECOND = Math.max(1, Integer.getInteger("servoy.profiler.refreshesPerSecond", 4).intValue());
+
+	/**
+	 * When more roots are added or dropped between two refreshes the tree is just refreshed completely.
+	 */
+	private static final int MAX_INCREMENTAL_UPDATES = 100;
 
 	private int maxNrOfRoots = MAX_NUMBER_OF_ROOTS_DEFAULT;
 
+	/**
+	 * The identity of an {@link AggregateData}, so that the aggregate of a profile data can be looked up in a hash map.
+	 */
+	private static final class AggregateKey
+	{
+		private final String methodName;
+
+		private final String sourceName;
+
+		private final int innerFunctionLineStart;
+
+		private AggregateKey(ProfileData pd)
+		{
+			this.methodName = pd.getMethodName();
+			this.sourceName = pd.getSourceName();
+			this.innerFunctionLineStart = pd.isInnerFunction() && pd.getLineNumbers() != null && pd.getLineNumbers().length > 0 ? pd.getLineNumbers()[0]
+				: -1;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (31 * methodName.hashCode() + sourceName.hashCode()) * 31 + innerFunctionLineStart;
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj instanceof AggregateKey)
+			{
+				AggregateKey key = (AggregateKey)obj;
+				return key.methodName.equals(methodName) && key.sourceName.equals(sourceName) && key.innerFunctionLineStart == innerFunctionLineStart;
+			}
+			return false;
+		}
+	}
+
 	private static final class AggregateData
 	{
+		private final AggregateKey key;
+
 		private final String methodName;
 
 		private final String sourceName;
@@ -192,23 +261,25 @@ public class ProfilerView extends ViewPart
 
 		private long ownTime;
 
-		private final List<AggregateData> callees = new ArrayList<AggregateData>();
+		private final Map<AggregateKey, AggregateData> callees = new LinkedHashMap<AggregateKey, AggregateData>();
 
 		private final HashMap<String, DataCallProfileData> dataCallProfileDataMap = new HashMap<String, DataCallProfileData>();
 
+		private final HashMap<String, LatencyHistogram> dataCallHistograms = new HashMap<String, LatencyHistogram>();
+
+		private final LatencyHistogram histogram = new LatencyHistogram();
+
 		private int innerFunctionLineStart = -1;
 
 		/**
 		 * @param pd
 		 */
-		public AggregateData(ProfileData pd)
+		public AggregateData(AggregateKey key, ProfileData pd)
 		{
-			this.methodName = pd.getMethodName();
-			this.sourceName = pd.getSourceName();
-			if (pd.isInnerFunction() && pd.getLineNumbers() != null && pd.getLineNumbers().length > 0)
-			{
-				this.innerFunctionLineStart = pd.getLineNumbers()[0];
-			}
+			this.key = key;
+			this.methodName = key.methodName;
+			this.sourceName = key.sourceName;
+			this.innerFunctionLineStart = key.innerFunctionLineStart;
 			add(pd);
 		}
 
@@ -231,9 +302,12 @@ public class ProfilerView extends ViewPart
 				time += pd.getTime();
 				ownTime += pd.getOwnTime();
 				count++;
+				histogram.record(pd.getTime());
 
 				for (DataCallProfileData dataCallProfileData : pd.getDataCallProfileDatas())
 				{
+					// a data call can already be the sum of more calls of the same query, their own times are not known so it is one sample of the total time
+					dataCallHistograms.computeIfAbsent(dataCallProfileData.getQuery(), query -> new LatencyHistogram()).record(dataCallProfileData.getTime());
 					DataCallProfileData oldDataCallProfileData = dataCallProfileDataMap.get(dataCallProfileData.getQuery());
 					if (oldDataCallProfileData != null)
 					{
@@ -252,16 +326,15 @@ public class ProfilerView extends ViewPart
 				ProfileData[] children = pd.getChildren();
 				for (ProfileData profileData : children)
 				{
-					AggregateData parent = new AggregateData(profileData);
-					int index = callees.indexOf(parent);
-					if (index == -1)
+					AggregateKey calleeKey = new AggregateKey(profileData);
+					AggregateData callee = callees.get(calleeKey);
+					if (callee == null)
 					{
-						callees.add(parent);
+						callees.put(calleeKey, new AggregateData(calleeKey, profileData));
 					}
 					else
 					{
-						parent = callees.get(index);
-						parent.add(profileData);
+						callee.add(profileData);
 					}
 				}
 
@@ -274,7 +347,7 @@ public class ProfilerView extends ViewPart
 
 		public AggregateData[] getChildren()
 		{
-			return callees.toArray(new AggregateData[0]);
+			return callees.values().toArray(new AggregateData[callees.size()]);
 		}
 
 		/**
@@ -285,12 +358,17 @@ public class ProfilerView extends ViewPart
 		{
 			if (obj instanceof AggregateData)
 			{
-				AggregateData ad = (AggregateData)obj;
-				return ad.methodName.equals(methodName) && ad.sourceName.equals(sourceName) && ad.innerFunctionLineStart == this.innerFunctionLineStart;
+				return ((AggregateData)obj).key.equals(key);
 			}
 			return false;
 		}
 
+		@Override
+		public int hashCode()
+		{
+			return key.hashCode();
+		}
+
 		/**
 		 * @return
 		 */
@@ -331,6 +409,16 @@ public class ProfilerView extends ViewPart
 			return count;
 		}
 
+		public LatencyHistogram getHistogram()
+		{
+			return histogram;
+		}
+
+		public LatencyHistogram getDataCallHistogram(String query)
+		{
+			return dataCallHistograms.get(query);
+		}
+
 		/**
 		 * @param sb
 		 */
@@ -353,7 +441,9 @@ public class ProfilerView extends ViewPart
 			sb.append(time);
 			sb.append("\" count=\"");
 			sb.append(count);
-			sb.append("\" source=\"");
+			sb.append("\" ");
+			histogram.toXML(sb);
+			sb.append(" source=\"");
 			sb.append(sourceName);
 			sb.append("\">");
 			Collection<DataCallProfileData> dataCallProfileDatas = getDataCallProfileDataMap();
@@ -364,9 +454,21 @@ public class ProfilerView extends ViewPart
 					sb.append('\n');
 					sb.append(childPrefix);
 					dataCallProfileData.toXML(sb);
+					LatencyHistogram dataCallHistogram = dataCallHistograms.get(dataCallProfileData.getQuery());
+					if (dataCallHistogram != null)
+					{
+						// the times of the data call above
+						sb.append('\n');
+						sb.append(childPrefix);
+						sb.append("<datacalllatency count=\"");
+						sb.append(dataCallHistogram.getCount());
+						sb.append("\" ");
+						dataCallHistogram.toXML(sb);
+						sb.append("/>");
+					}
 				}
 			}
-			for (AggregateData child : callees)
+			for (AggregateData child : callees.values())
 			{
 				sb.append('\n');
 				sb.append(childPrefix);
@@ -399,7 +501,7 @@ public class ProfilerView extends ViewPart
 			long totalSqlAggregatedTime = this.getOwnDataQueriesAggregatedTime();
 			if (this.callees.size() > 0)
 			{
-				for (AggregateData ad : callees)
+				for (AggregateData ad : callees.values())
 				{
 					totalSqlAggregatedTime += ad.getTotalDataQueriesAggregatedTime();
 				}
@@ -418,17 +520,25 @@ public class ProfilerView extends ViewPart
 		 */
 		public int compare(AggregateData o1, AggregateData o2)
 		{
-			return (int)(o2.ownTime - o1.ownTime);
+			return Long.compare(o2.ownTime, o1.ownTime);
 		}
 
 	}
 
 	private static class DataCallProfileDataAggregate extends DataCallProfileData
 	{
+		private final LatencyHistogram histogram;
+
 		public DataCallProfileDataAggregate(String name, String datasource, String transaction_id, long startTime, long endTime, String query,
-			String argumentString, int count)
+			String argumentString, int count, LatencyHistogram histogram)
 		{
 			super(name, datasource, transaction_id, startTime, endTime, query, argumentString, count);
+			this.histogram = histogram;
+		}
+
+		public LatencyHistogram getHistogram()
+		{
+			return histogram;
 		}
 	}
 
@@ -445,12 +555,20 @@ public class ProfilerView extends ViewPart
 
 	private Action exportData;
 
+	private Action recordSession;
+
+	private Action exportSession;
+
+	private ProfileSessionRecorder sessionRecorder;
+
 	private Action configureContents;
 
 	private Action toggleAggregateView;
 
 	private Action toggleAverageAggregateView;
 
+	private Action toggleStatementView;
+
 	private Action toggleProfile;
 
 	private Action openCallPostion;
@@ -468,11 +586,21 @@ public class ProfilerView extends ViewPart
 	class MethodCallContentProvider implements IStructuredContentProvider, ITreeContentProvider, IProfileListener
 	{
 
-		private final List<ProfileData> invisibleRoot = new ArrayList<ProfileData>();
+		/**
+		 * Ring buffer of the profiled roots, newest first; the oldest is dropped when there are more then maxNrOfRoots.
+		 */
+		private final ArrayDeque<ProfileData> invisibleRoot = new ArrayDeque<ProfileData>();
+
+		private final Map<AggregateKey, AggregateData> aggregateData = new HashMap<AggregateKey, AggregateData>();
+
+		private final List<ProfileData> addedRoots = new ArrayList<ProfileData>();
+
+		private final List<ProfileData> removedRoots = new ArrayList<ProfileData>();
 
-		private final List<AggregateData> aggregateData = new ArrayList<AggregateData>();
+		private boolean fullRefresh = false;
 
-		private final List<AggregateData> aggregateRoots = new ArrayList<AggregateData>();
+		private final Throttler refreshThrottler = new Throttler(Display.getDefault(), Duration.ofMillis(1000 / MAX_REFRESHES_PER_SECOND),
+			() -> refreshViewer(false));
 
 		private boolean aggregateView = false;
 
@@ -486,19 +614,43 @@ public class ProfilerView extends ViewPart
 		{
 		}
 
-		public Object[] getElements(Object parent)
+		public synchronized Object[] getElements(Object parent)
 		{
 			if (parent.equals(getViewSite()))
 			{
 				if (aggregateView)
 				{
-					return aggregateRoots.toArray();
+					return getAggregateRoots().toArray();
 				}
 				return invisibleRoot.toArray();
 			}
 			return getChildren(parent);
 		}
 
+		/**
+		 * @return the aggregated roots, sorted on own time
+		 */
+		synchronized List<AggregateData> getAggregateRoots()
+		{
+			List<AggregateData> aggregateRoots = new ArrayList<AggregateData>(aggregateData.values());
+			Collections.sort(aggregateRoots, AggregateDataComparator.INSTANCE);
+			return aggregateRoots;
+		}
+
+		synchronized List<ProfileData> getRoots()
+		{
+			return new ArrayList<ProfileData>(invisibleRoot);
+		}
+
+		synchronized void clear(boolean aggregates)
+		{
+			invisibleRoot.clear();
+			if (aggregates)
+			{
+				aggregateData.clear();
+			}
+		}
+
 		public Object getParent(Object child)
 		{
 			if (child instanceof ProfileData)
@@ -508,7 +660,7 @@ public class ProfilerView extends ViewPart
 			return null;
 		}
 
-		public Object[] getChildren(Object parent)
+		public synchronized Object[] getChildren(Object parent)
 		{
 			if (parent instanceof ProfileData)
 			{
@@ -521,7 +673,7 @@ public class ProfilerView extends ViewPart
 			return new Object[0];
 		}
 
-		public boolean hasChildren(Object parent)
+		public synchronized boolean hasChildren(Object parent)
 		{
 			if (parent instanceof ProfileData) return ((ProfileData)parent).getChildren().length > 0;
 			if (parent instanceof AggregateData) return ((AggregateData)parent).getChildren().length > 0;
@@ -536,26 +688,26 @@ public class ProfilerView extends ViewPart
 			if (profileData.getMethodName().equals("<eval>") && profileData.getSourceName().equals("internal_anon") &&
 				(profileData.getChildren() == null || profileData.getChildren().length == 0)) return;
 
-			invisibleRoot.add(0, profileData);
-
-			if (invisibleRoot.size() > maxNrOfRoots)
-			{
-				invisibleRoot.remove(invisibleRoot.size() - 1);
-			}
-
-			calculateAggregateData(profileData);
-			//Collections.sort(aggregateData, AggregateDataComparator.INSTANCE);
-			Collections.sort(aggregateRoots, AggregateDataComparator.INSTANCE);
-
-			Display.getDefault().asyncExec(new Runnable()
+			synchronized (this)
 			{
-
-				public void run()
+				invisibleRoot.addFirst(profileData);
+				addedRoots.add(profileData);
+				while (invisibleRoot.size() > maxNrOfRoots)
 				{
-					methodCallViewer.refresh();
+					ProfileData removed = invisibleRoot.removeLast();
+					if (!addedRoots.remove(removed)) removedRoots.add(removed);
 				}
-			});
+				if (addedRoots.size() + removedRoots.size() > MAX_INCREMENTAL_UPDATES)
+				{
+					fullRefresh = true;
+					addedRoots.clear();
+					removedRoots.clear();
+				}
+
+				calculateAggregateData(profileData);
+			}
 
+			refreshThrottler.throttledExec();
 		}
 
 		/**
@@ -563,20 +715,58 @@ public class ProfilerView extends ViewPart
 		 */
 		private void calculateAggregateData(ProfileData profileData)
 		{
-			AggregateData ad = new AggregateData(profileData);
-			int index = aggregateData.indexOf(ad);
-			if (index != -1)
+			AggregateKey key = new AggregateKey(profileData);
+			AggregateData ad = aggregateData.get(key);
+			if (ad != null)
 			{
-				ad = aggregateData.get(index);
 				ad.add(profileData);
 			}
 			else
 			{
-				aggregateData.add(ad);
+				aggregateData.put(key, new AggregateData(key, profileData));
 			}
-			if (!aggregateRoots.contains(ad))
+		}
+
+		/**
+		 * Shows the changes in the tree, only the added and dropped roots are updated when the plain (not aggregated) view is shown.
+		 * Must be called in the ui thread.
+		 */
+		void refreshViewer(boolean all)
+		{
+			if (methodCallViewer == null || methodCallViewer.getControl().isDisposed()) return;
+
+			Object[] added;
+			Object[] removed;
+			boolean refreshAll;
+			synchronized (this)
 			{
-				aggregateRoots.add(ad);
+				refreshAll = all || fullRefresh || aggregateView;
+				added = addedRoots.toArray();
+				removed = removedRoots.toArray();
+				addedRoots.clear();
+				removedRoots.clear();
+				fullRefresh = false;
+			}
+
+			if (refreshAll)
+			{
+				methodCallViewer.refresh();
+			}
+			else if (added.length > 0 || removed.length > 0)
+			{
+				methodCallViewer.getControl().setRedraw(false);
+				try
+				{
+					methodCallViewer.remove(removed);
+					for (Object root : added)
+					{
+						methodCallViewer.insert(getViewSite(), root, 0);
+					}
+				}
+				finally
+				{
+					methodCallViewer.getControl().setRedraw(true);
+				}
 			}
 		}
 
@@ -601,7 +791,7 @@ public class ProfilerView extends ViewPart
 
 				public void run()
 				{
-					methodCallViewer.refresh();
+					refreshViewer(true);
 				}
 			});
 		}
@@ -631,7 +821,7 @@ public class ProfilerView extends ViewPart
 
 				public void run()
 				{
-					methodCallViewer.refresh();
+					refreshViewer(true);
 				}
 			});
 		}
@@ -640,25 +830,42 @@ public class ProfilerView extends ViewPart
 	class DataCallContentProvider implements IStructuredContentProvider, IProfileListener
 	{
 
-		private final List<AggregateData> aggregateData = new ArrayList<AggregateData>();
+		private final Map<AggregateKey, AggregateData> aggregateData = new HashMap<AggregateKey, AggregateData>();
+
+		/**
+		 * All the data calls grouped by statement, this is the input of the sql table when the statement view is shown.
+		 */
+		private final SqlStatementAggregator statements = new SqlStatementAggregator();
+
+		private final Throttler statementsRefreshThrottler = new Throttler(Display.getDefault(), Duration.ofMillis(1000 / MAX_REFRESHES_PER_SECOND),
+			() -> {
+				if (statementView && !sqlDataViewer.getControl().isDisposed()) sqlDataViewer.refresh();
+			});
 
 		private boolean aggregateView = false;
 
-		public void addProfileData(ProfileData profileData)
+		private volatile boolean statementView = false;
+
+		public synchronized void addProfileData(ProfileData profileData)
 		{
 			if (profileData.getMethodName().equals("<eval>") && profileData.getSourceName().equals("internal_anon") &&
 				(profileData.getChildren() == null || profileData.getChildren().length == 0)) return;
 
-			AggregateData ad = new AggregateData(profileData);
-			int index = aggregateData.indexOf(ad);
-			if (index != -1)
+			for (DataCallProfileData dataCall : profileData.getDataCallProfileDatas())
+			{
+				statements.add(profileData, dataCall);
+			}
+			if (statementView) statementsRefreshThrottler.throttledExec();
+
+			AggregateKey key = new AggregateKey(profileData);
+			AggregateData ad = aggregateData.get(key);
+			if (ad != null)
 			{
-				ad = aggregateData.get(index);
 				ad.add(profileData);
 			}
 			else
 			{
-				aggregateData.add(ad);
+				aggregateData.put(key, new AggregateData(key, profileData));
 			}
 			ProfileData[] children = profileData.getChildren();
 			for (ProfileData pd : children)
@@ -692,8 +899,12 @@ public class ProfilerView extends ViewPart
 		 *
 		 * @see org.eclipse.jface.viewers.IStructuredContentProvider#getElements(java.lang.Object)
 		 */
-		public Object[] getElements(Object inputElement)
+		public synchronized Object[] getElements(Object inputElement)
 		{
+			if (inputElement == statements)
+			{
+				return statements.getGroups().toArray();
+			}
 			if (inputElement instanceof ProfileData)
 			{
 				return ((ProfileData)inputElement).getDataCallProfileDatas().toArray();
@@ -712,7 +923,8 @@ public class ProfilerView extends ViewPart
 						{
 							dataCallArray[index] = new DataCallProfileDataAggregate(dataCallProfileData.getName(), dataCallProfileData.getDatasource(),
 								dataCallProfileData.getTransactionId(), 0, dataCallProfileData.getTime(), dataCallProfileData.getQuery(),
-								dataCallProfileData.getArgumentString(), dataCallProfileData.getCount());
+								dataCallProfileData.getArgumentString(), dataCallProfileData.getCount(),
+								ad.getDataCallHistogram(dataCallProfileData.getQuery()));
 							index++;
 						}
 
@@ -726,13 +938,9 @@ public class ProfilerView extends ViewPart
 
 		void toggleAggregateView()
 		{
-			if (aggregateView)
+			if (!statementView)
 			{
-				arguments.getColumn().setText("Arguments");
-			}
-			else
-			{
-				arguments.getColumn().setText("Count");
+				arguments.getColumn().setText(aggregateView ? "Arguments" : "Count");
 			}
 			aggregateView = !aggregateView;
 			Display.getDefault().asyncExec(new Runnable()
@@ -745,6 +953,34 @@ public class ProfilerView extends ViewPart
 			});
 		}
 
+		/**
+		 * Switches the sql table between the data calls of the selected method and all the statements grouped by their shape.
+		 */
+		void toggleStatementView()
+		{
+			statementView = !statementView;
+			if (statementView)
+			{
+				time.setText("Total Time (ms)");
+				query.getColumn().setText("Statement");
+				arguments.getColumn().setText("Count");
+				sqlDataViewer.setInput(statements);
+			}
+			else
+			{
+				time.setText("Own Time (ms)");
+				query.getColumn().setText("Query/Action");
+				arguments.getColumn().setText(aggregateView ? "Count" : "Arguments");
+				Object selected = ((IStructuredSelection)methodCallViewer.getSelection()).getFirstElement();
+				sqlDataViewer.setInput(selected != null ? selected : getViewSite());
+			}
+		}
+
+		synchronized void clearStatements()
+		{
+			statements.clear();
+		}
+
 	}
 
 	class MethodCallLabelProvider implements ITableLabelProvider
@@ -845,6 +1081,9 @@ public class ProfilerView extends ViewPart
 						}
 						return sourceName;
 					}
+					default :
+						// percentiles are only there for aggregates
+						return "";
 				}
 			}
 			else if (element instanceof AggregateData)
@@ -890,6 +1129,8 @@ public class ProfilerView extends ViewPart
 							: aggregatedData.getTotalDataQueriesAggregatedTime() / aggregatedData.getCount());
 					case 6 :
 						return aggregatedData.getSourceName();
+					default :
+						return getPercentileText(aggregatedData.getHistogram(), columnIndex - FIRST_PERCENTILE_COLUMN);
 				}
 			}
 			return null;
@@ -946,7 +1187,30 @@ public class ProfilerView extends ViewPart
 		public String getColumnText(Object element, int columnIndex)
 		{
 
-			if (element instanceof DataCallProfileDataAggregate)
+			if (element instanceof StatementGroup)
+			{
+				StatementGroup group = (StatementGroup)element;
+				switch (columnIndex)
+				{
+					case 0 :
+						return group.getName();
+					case 1 :
+						return Long.toString(group.getTime());
+					case 2 :
+						return group.getStatement();
+					case 3 :
+						return Long.toString(group.getCount());
+					case 4 :
+						return group.getDatasource();
+					case 5 :
+						return group.getTransactionId();
+					case CALLERS_TABLE_COLUMN :
+						return group.getCallers();
+					default :
+						return getPercentileText(group.getHistogram(), columnIndex - FIRST_PERCENTILE_TABLE_COLUMN);
+				}
+			}
+			else if (element instanceof DataCallProfileDataAggregate)
 			{
 				DataCallProfileDataAggregate pd = (DataCallProfileDataAggregate)element;
 				switch (columnIndex)
@@ -963,6 +1227,8 @@ public class ProfilerView extends ViewPart
 						return pd.getDatasource();
 					case 5 :
 						return pd.getTransactionId();
+					default :
+						return getPercentileText(pd.getHistogram(), columnIndex - FIRST_PERCENTILE_TABLE_COLUMN);
 				}
 			}
 			else if (element instanceof DataCallProfileData)
@@ -1031,8 +1297,36 @@ public class ProfilerView extends ViewPart
 	private TableViewerColumn arguments;
 	private TableColumn datasource;
 	private TableColumn transaction;
+	private TreeColumn[] percentileColumns;
+	private TableColumn[] percentileTableColumns;
+	private TableColumn callers;
 	private Tree tree;
 
+	private static final int FIRST_PERCENTILE_COLUMN = 7;
+	private static final int FIRST_PERCENTILE_TABLE_COLUMN = 6;
+	private static final int CALLERS_TABLE_COLUMN = FIRST_PERCENTILE_TABLE_COLUMN + 4;
+
+	private static String getPercentileText(LatencyHistogram histogram, int percentileIndex)
+	{
+		if (histogram == null || percentileIndex < 0 || percentileIndex >= PERCENTILES.length) return "";
+		return Long.toString(histogram.getPercentile(PERCENTILES[percentileIndex]));
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static Comparator createPercentileComparator(final double percentile)
+	{
+		return new Comparator()
+		{
+			@Override
+			public int compare(Object o1, Object o2)
+			{
+				long time1 = o1 instanceof ProfileData ? ((ProfileData)o1).getTime() : ((AggregateData)o1).getHistogram().getPercentile(percentile);
+				long time2 = o2 instanceof ProfileData ? ((ProfileData)o2).getTime() : ((AggregateData)o2).getHistogram().getPercentile(percentile);
+				return Long.compare(time1, time2);
+			}
+		};
+	}
+
 	/**
 	 * The constructor.
 	 */
@@ -1075,6 +1369,9 @@ public class ProfilerView extends ViewPart
 		int argumentsTableColumnWidth = getSavedState(ARGUMENTS_TABLE_COLUMN_WIDTH_SETTING, ARGUMENTS_TABLE_COLUMN_WIDTH_DEFAULT);
 		int datasourceTableColumnWidth = getSavedState(DATASOURCE_TABLE_COLUMN_WIDTH_SETTING, DATASOURCE_TABLE_COLUMN_WIDTH_DEFAULT);
 		int transactionTableColumnWidth = getSavedState(TRANSACTION_TABLE_COLUMN_WIDTH_SETTING, TRANSACTION_TABLE_COLUMN_WIDTH_DEFAULT);
+		int percentileColumnWidth = getSavedState(PERCENTILE_COLUMN_WIDTH_SETTING, PERCENTILE_COLUMN_WIDTH_DEFAULT);
+		int percentileTableColumnWidth = getSavedState(PERCENTILE_TABLE_COLUMN_WIDTH_SETTING, PERCENTILE_TABLE_COLUMN_WIDTH_DEFAULT);
+		int callersTableColumnWidth = getSavedState(CALLERS_TABLE_COLUMN_WIDTH_SETTING, CALLERS_TABLE_COLUMN_WIDTH_DEFAULT);
 		int[] sashFormWeights = new int[] { getSavedState(TREE_WIDTH_SETTING, TREE_WIDTH_DEFAULT), getSavedState(TABLE_WIDTH_SETTING, TABLE_WIDTH_DEFAULT) };
 		maxNrOfRoots = getSavedState(MAX_NUMBER_OF_ROOTS_SETTING, MAX_NUMBER_OF_ROOTS_DEFAULT);
 
@@ -1119,12 +1416,22 @@ public class ProfilerView extends ViewPart
 		fileColumn.setResizable(true);
 		fileColumn.setWidth(fileColumnWidth);
 
+		percentileColumns = new TreeColumn[PERCENTILES.length];
+		for (int i = 0; i < PERCENTILES.length; i++)
+		{
+			percentileColumns[i] = new TreeColumn(tree, SWT.RIGHT);
+			percentileColumns[i].setText(PERCENTILE_NAMES[i]);
+			percentileColumns[i].setResizable(true);
+			percentileColumns[i].setWidth(percentileColumnWidth);
+		}
+
 		methodCallViewer.setContentProvider(methodCallContentProvider);
 		methodCallViewer.setLabelProvider(new MethodCallLabelProvider());
 
 		final boolean isAverageToggleButtonPressed = methodCallContentProvider.averageAggregateView;
 		methodCallViewer.setSorter(new ColumnsSorter(methodCallViewer,
-			new TreeColumn[] { methodNameColumn, timeColumn, ownTimeColumn, fileColumn, argsColumn, timeQueryColumn, totalTimeQueryColumn },
+			new TreeColumn[] { methodNameColumn, timeColumn, ownTimeColumn, fileColumn, argsColumn, timeQueryColumn, totalTimeQueryColumn,
+				percentileColumns[0], percentileColumns[1], percentileColumns[2], percentileColumns[3] },
 			new Comparator[] { new Comparator()
 			{
 
@@ -1206,7 +1513,8 @@ public class ProfilerView extends ViewPart
 							: ((AggregateData)o2).getTotalDataQueriesAggregatedTime() / ((AggregateData)o2).getCount();
 					return (time1 > time2 ? 1 : (time1 < time2 ? -1 : 0));
 				}
-			} }));
+			}, createPercentileComparator(PERCENTILES[0]), createPercentileComparator(PERCENTILES[1]), createPercentileComparator(
+				PERCENTILES[2]), createPercentileComparator(PERCENTILES[3]) }));
 
 		methodCallViewer.setInput(getViewSite());
 
@@ -1246,6 +1554,20 @@ public class ProfilerView extends ViewPart
 		transaction.setWidth(transactionTableColumnWidth);
 		transaction.setResizable(true);
 
+		percentileTableColumns = new TableColumn[PERCENTILES.length];
+		for (int i = 0; i < PERCENTILES.length; i++)
+		{
+			percentileTableColumns[i] = new TableColumn(table, SWT.RIGHT);
+			percentileTableColumns[i].setText(PERCENTILE_NAMES[i]);
+			percentileTableColumns[i].setWidth(percentileTableColumnWidth);
+			percentileTableColumns[i].setResizable(true);
+		}
+
+		callers = new TableColumn(table, SWT.NONE);
+		callers.setText("Called From");
+		callers.setWidth(callersTableColumnWidth);
+		callers.setResizable(true);
+
 
 		dataCallContentProvider = new DataCallContentProvider();
 		sqlDataViewer.setLabelProvider(new DataCallLabelProvider());
@@ -1326,6 +1648,7 @@ public class ProfilerView extends ViewPart
 
 			public void selectionChanged(SelectionChangedEvent event)
 			{
+				if (dataCallContentProvider.statementView) return;
 				IStructuredSelection selection = (IStructuredSelection)event.getSelection();
 				if (selection.getFirstElement() != null)
 				{
@@ -1377,7 +1700,7 @@ public class ProfilerView extends ViewPart
 					return;
 				}
 				tree.select(item);
-				sqlDataViewer.setInput(item.getData());
+				if (!dataCallContentProvider.statementView) sqlDataViewer.setInput(item.getData());
 			}
 		});
 
@@ -1455,6 +1778,7 @@ public class ProfilerView extends ViewPart
 
 		RemoteDebugScriptEngine.deregisterProfileListener(methodCallContentProvider);
 		RemoteDebugScriptEngine.deregisterProfileListener(dataCallContentProvider);
+		stopSessionRecording();
 	}
 
 	private void hookContextMenu()
@@ -1517,11 +1841,15 @@ public class ProfilerView extends ViewPart
 		manager.add(new Separator());
 		manager.add(toggleAggregateView);
 		manager.add(toggleAverageAggregateView);
+		manager.add(toggleStatementView);
 		manager.add(new Separator());
 		manager.add(clearData);
 		manager.add(new Separator());
 		manager.add(exportData);
 		manager.add(new Separator());
+		manager.add(recordSession);
+		manager.add(exportSession);
+		manager.add(new Separator());
 		manager.add(configureContents);
 	}
 
@@ -1609,14 +1937,17 @@ public class ProfilerView extends ViewPart
 			@Override
 			public void run()
 			{
-				methodCallContentProvider.invisibleRoot.clear();
+				methodCallContentProvider.clear(methodCallContentProvider.aggregateView);
 				if (methodCallContentProvider.aggregateView)
 				{
-					methodCallContentProvider.aggregateData.clear();
-					dataCallContentProvider.aggregateData.clear();
-					methodCallContentProvider.aggregateRoots.clear();
+					synchronized (dataCallContentProvider)
+					{
+						dataCallContentProvider.aggregateData.clear();
+					}
 				}
-				methodCallViewer.refresh();
+				dataCallContentProvider.clearStatements();
+				methodCallContentProvider.refreshViewer(true);
+				if (dataCallContentProvider.statementView) sqlDataViewer.refresh();
 			}
 		};
 		clearData.setText("Clear data");
@@ -1663,6 +1994,16 @@ public class ProfilerView extends ViewPart
 		//start the profile view with this button being disabled
 		toggleAverageAggregateView.setEnabled(false);
 
+		toggleStatementView = new Action("Group Queries by Statement", IAction.AS_CHECK_BOX)
+		{
+			@Override
+			public void run()
+			{
+				dataCallContentProvider.toggleStatementView();
+			}
+		};
+		toggleStatementView.setToolTipText("Show all queries grouped by statement, datasource and transaction instead of the queries of the selected method");
+
 		toggleProfile = new Action("Start profiling", IAction.AS_CHECK_BOX)
 		{
 			@Override
@@ -1806,6 +2147,115 @@ public class ProfilerView extends ViewPart
 			}
 		};
 		configureContents.setText("Configure Contents...");
+
+		recordSession = new Action("Record session to file...", IAction.AS_CHECK_BOX)
+		{
+			@Override
+			public void run()
+			{
+				if (recordSession.isChecked())
+				{
+					startSessionRecording();
+				}
+				else
+				{
+					stopSessionRecording();
+				}
+			}
+		};
+		recordSession.setToolTipText("Records all profiled calls to a file, also the ones that are not shown anymore");
+
+		exportSession = new Action()
+		{
+			@Override
+			public void run()
+			{
+				exportSessionAsFlameGraph();
+			}
+		};
+		exportSession.setText("Export recorded session as flame graph...");
+		exportSession.setToolTipText("Export a recorded session as collapsed stacks, the input of flame graph tools");
+	}
+
+	private void startSessionRecording()
+	{
+		FileDialog dialog = new FileDialog(getSite().getShell(), SWT.SAVE);
+		dialog.setText("Record profiler session");
+		dialog.setFilterExtensions(new String[] { "*.svyprof" });
+		dialog.setFileName("session.svyprof");
+		dialog.setOverwrite(true);
+		String fileName = dialog.open();
+		if (fileName == null)
+		{
+			recordSession.setChecked(false);
+			return;
+		}
+		try
+		{
+			sessionRecorder = new ProfileSessionRecorder(new File(fileName), recorder -> Display.getDefault().asyncExec(() -> {
+				// writing failed, the recorder is already closed but still has to be deregistered
+				if (sessionRecorder == recorder) stopSessionRecording();
+			}));
+			RemoteDebugScriptEngine.registerProfileListener(sessionRecorder);
+			recordSession.setText("Stop recording session (" + sessionRecorder.getFile().getName() + ")");
+		}
+		catch (IOException e)
+		{
+			ServoyLog.logError("Could not start recording the profiler session to " + fileName, e);
+			sessionRecorder = null;
+			recordSession.setChecked(false);
+		}
+	}
+
+	private void stopSessionRecording()
+	{
+		if (sessionRecorder != null)
+		{
+			RemoteDebugScriptEngine.deregisterProfileListener(sessionRecorder);
+			sessionRecorder.close();
+			sessionRecorder = null;
+		}
+		if (recordSession != null)
+		{
+			recordSession.setText("Record session to file...");
+			recordSession.setChecked(false);
+		}
+	}
+
+	private void exportSessionAsFlameGraph()
+	{
+		FileDialog openDialog = new FileDialog(getSite().getShell(), SWT.OPEN);
+		openDialog.setText("Select a recorded profiler session");
+		openDialog.setFilterExtensions(new String[] { "*.svyprof", "*.*" });
+		final String sessionFileName = openDialog.open();
+		if (sessionFileName == null) return;
+
+		FileDialog saveDialog = new FileDialog(getSite().getShell(), SWT.SAVE);
+		saveDialog.setText("Export collapsed stacks");
+		saveDialog.setFilterExtensions(new String[] { "*.folded" });
+		saveDialog.setFileName(new File(sessionFileName).getName().replace(".svyprof", "") + ".folded");
+		saveDialog.setOverwrite(true);
+		final String outputFileName = saveDialog.open();
+		if (outputFileName == null) return;
+
+		Job job = new Job("exporting profiler session")
+		{
+			@Override
+			protected IStatus run(IProgressMonitor monitor)
+			{
+				try
+				{
+					ProfileSessionReader.exportCollapsedStacks(new File(sessionFileName), new File(outputFileName));
+					return Status.OK_STATUS;
+				}
+				catch (IOException e)
+				{
+					return new Status(IStatus.ERROR, Activator.PLUGIN_ID, "Could not export the profiler session " + sessionFileName, e);
+				}
+			}
+		};
+		job.setUser(true);
+		job.schedule();
 	}
 
 	/**
@@ -1822,7 +2272,7 @@ public class ProfilerView extends ViewPart
 				final StringBuilder sb = new StringBuilder(200);
 				if (exportAggregate)
 				{
-					List<AggregateData> aggregateData = methodCallContentProvider.aggregateRoots;
+					List<AggregateData> aggregateData = methodCallContentProvider.getAggregateRoots();
 					for (AggregateData ad : aggregateData)
 					{
 						ad.toXML(sb);
@@ -1830,7 +2280,7 @@ public class ProfilerView extends ViewPart
 				}
 				else
 				{
-					List<ProfileData> invisibleRoot = methodCallContentProvider.invisibleRoot;
+					List<ProfileData> invisibleRoot = methodCallContentProvider.getRoots();
 					for (ProfileData profileData : invisibleRoot)
 					{
 						profileData.toXML(sb);
@@ -1980,6 +2430,9 @@ public class ProfilerView extends ViewPart
 		mem.putInteger(ARGUMENTS_TABLE_COLUMN_WIDTH_SETTING, arguments.getColumn().getWidth());
 		mem.putInteger(DATASOURCE_TABLE_COLUMN_WIDTH_SETTING, datasource.getWidth());
 		mem.putInteger(TRANSACTION_TABLE_COLUMN_WIDTH_SETTING, transaction.getWidth());
+		mem.putInteger(PERCENTILE_COLUMN_WIDTH_SETTING, percentileColumns[0].getWidth());
+		mem.putInteger(PERCENTILE_TABLE_COLUMN_WIDTH_SETTING, percentileTableColumns[0].getWidth());
+		mem.putInteger(CALLERS_TABLE_COLUMN_WIDTH_SETTING, callers.getWidth());
 		mem.putInteger(TREE_WIDTH_SETTING, sashForm.getWeights()[0]);
 		mem.putInteger(TABLE_WIDTH_SETTING, sashForm.getWeights()[1]);
 		mem.putInteger(MAX_NUMBER_OF_ROOTS_SETTING, maxNrOfRoots);
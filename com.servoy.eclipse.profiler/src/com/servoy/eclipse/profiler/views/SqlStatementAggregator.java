@@ -0,0 +1,262 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import com.servoy.j2db.debug.DataCallProfileData;
+import com.servoy.j2db.debug.ProfileData;
+
+/**
+ * Groups all the profiled data calls on the shape of their statement (literals and parameter lists stripped), datasource and transaction,
+ * so that a statement that is executed many times from the same method (like a foundset load per record) shows up as one row with a high count.
+ * Must be synchronized by the caller.
+ */
+public class SqlStatementAggregator
+{
+	private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+	private static final int MAX_SHOWN_CALLERS = 5;
+
+	private final Map<StatementKey, StatementGroup> groups = new HashMap<StatementKey, StatementGroup>();
+
+	void add(ProfileData caller, DataCallProfileData dataCall)
+	{
+		String query = dataCall.getQuery();
+		if (query == null) return;
+		StatementKey key = new StatementKey(normalize(query), dataCall.getDatasource(), dataCall.getTransactionId());
+		StatementGroup group = groups.get(key);
+		if (group == null)
+		{
+			group = new StatementGroup(key);
+			groups.put(key, group);
+		}
+		group.add(caller, dataCall);
+	}
+
+	void clear()
+	{
+		groups.clear();
+	}
+
+	/**
+	 * @return the groups, the most executed statements first
+	 */
+	List<StatementGroup> getGroups()
+	{
+		List<StatementGroup> list = new ArrayList<StatementGroup>(groups.values());
+		Collections.sort(list, (g1, g2) -> {
+			int result = Long.compare(g2.count, g1.count);
+			return result != 0 ? result : Long.compare(g2.time, g1.time);
+		});
+		return list;
+	}
+
+	/**
+	 * Replaces the string and number literals with '?' and a list of parameters with one '(?)', and collapses all whitespace,
+	 * so statements that only differ in their arguments get the same shape.
+	 */
+	public static String normalize(String sql)
+	{
+		StringBuilder sb = new StringBuilder(sql.length());
+		int length = sql.length();
+		int i = 0;
+		while (i < length)
+		{
+			char c = sql.charAt(i);
+			if (c == '\'')
+			{
+				// string literal, '' is an escaped quote
+				i++;
+				while (i < length)
+				{
+					if (sql.charAt(i) == '\'')
+					{
+						if (i + 1 < length && sql.charAt(i + 1) == '\'') i++;
+						else break;
+					}
+					i++;
+				}
+				sb.append('?');
+				i++;
+			}
+			else if (c == '"')
+			{
+				// quoted identifier, kept as is
+				int end = sql.indexOf('"', i + 1);
+				if (end == -1) end = length - 1;
+				sb.append(sql, i, end + 1);
+				i = end + 1;
+			}
+			else if (Character.isDigit(c) && (sb.length() == 0 || !isIdentifierPart(sb.charAt(sb.length() - 1))))
+			{
+				while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.'))
+				{
+					i++;
+				}
+				sb.append('?');
+			}
+			else if (Character.isWhitespace(c))
+			{
+				while (i < length && Character.isWhitespace(sql.charAt(i)))
+				{
+					i++;
+				}
+				if (sb.length() > 0 && i < length) sb.append(' ');
+			}
+			else
+			{
+				sb.append(c);
+				i++;
+			}
+		}
+		return PARAMETER_LIST.matcher(sb).replaceAll("(?)");
+	}
+
+	private static boolean isIdentifierPart(char c)
+	{
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.';
+	}
+
+	private static String getCallerName(ProfileData caller)
+	{
+		String sourceName = caller.getSourceName();
+		if (sourceName == null) return caller.getMethodName();
+		String fileName = new File(sourceName).getName();
+		return caller.getMethodName() + '[' + (fileName.endsWith(".js") ? fileName.substring(0, fileName.length() - 3) : fileName) + ']';
+	}
+
+	private static final class StatementKey
+	{
+		private final String statement;
+		private final String datasource;
+		private final String transactionId;
+
+		private StatementKey(String statement, String datasource, String transactionId)
+		{
+			this.statement = statement;
+			this.datasource = datasource;
+			this.transactionId = transactionId;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return Objects.hash(statement, datasource, transactionId);
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if (obj instanceof StatementKey)
+			{
+				StatementKey key = (StatementKey)obj;
+				return key.statement.equals(statement) && Objects.equals(key.datasource, datasource) && Objects.equals(key.transactionId, transactionId);
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * All the calls of one statement shape.
+	 */
+	static final class StatementGroup
+	{
+		private final StatementKey key;
+		private final LatencyHistogram histogram = new LatencyHistogram();
+		private final Map<String, int[]> callers = new HashMap<String, int[]>();
+		private String name;
+		private long count;
+		private long time;
+
+		private StatementGroup(StatementKey key)
+		{
+			this.key = key;
+		}
+
+		private void add(ProfileData caller, DataCallProfileData dataCall)
+		{
+			int dataCallCount = Math.max(1, dataCall.getCount());
+			count += dataCallCount;
+			time += dataCall.getTime();
+			// a data call can already be the sum of more calls, their own times are not known so it is one sample of the total time
+			histogram.record(dataCall.getTime());
+			if (name == null) name = dataCall.getName();
+			else if (!name.equals(dataCall.getName()) && !name.endsWith(", ...")) name += ", ...";
+			callers.computeIfAbsent(getCallerName(caller), callerName -> new int[1])[0] += dataCallCount;
+		}
+
+		String getName()
+		{
+			return name;
+		}
+
+		String getStatement()
+		{
+			return key.statement;
+		}
+
+		String getDatasource()
+		{
+			return key.datasource;
+		}
+
+		String getTransactionId()
+		{
+			return key.transactionId;
+		}
+
+		long getCount()
+		{
+			return count;
+		}
+
+		long getTime()
+		{
+			return time;
+		}
+
+		LatencyHistogram getHistogram()
+		{
+			return histogram;
+		}
+
+		/**
+		 * @return the methods that executed the statement the most, with the number of executions
+		 */
+		String getCallers()
+		{
+			List<Map.Entry<String, int[]>> entries = new ArrayList<Map.Entry<String, int[]>>(callers.entrySet());
+			Collections.sort(entries, (e1, e2) -> Integer.compare(e2.getValue()[0], e1.getValue()[0]));
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < entries.size() && i < MAX_SHOWN_CALLERS; i++)
+			{
+				if (i > 0) sb.append(", ");
+				sb.append(entries.get(i).getKey()).append(" (").append(entries.get(i).getValue()[0]).append(')');
+			}
+			if (entries.size() > MAX_SHOWN_CALLERS) sb.append(", ...");
+			return sb.toString();
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.designer.editor.rfb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+/**
+ * Unit tests for the patches the form editor gets from the mirror of what it already has.
+ */
+public class TestDesignerModelMirror
+{
+	private static JSONObject component(String name, String text, String styleClass)
+	{
+		JSONObject model = new JSONObject();
+		model.put("text", text);
+		if (styleClass != null) model.put("styleClass", styleClass);
+		JSONObject component = new JSONObject();
+		component.put("name", name);
+		component.put("specName", "bootstrapcomponents-label");
+		component.put("model", model);
+		return component;
+	}
+
+	private static JSONObject container(String id)
+	{
+		JSONObject attributes = new JSONObject();
+		attributes.put("svy-id", id);
+		JSONObject container = new JSONObject();
+		container.put("tagname", "div");
+		container.put("attributes", attributes);
+		return container;
+	}
+
+	private static JSONObject parent(String parentId)
+	{
+		JSONObject parent = new JSONObject();
+		parent.put("uuid", parentId != null ? parentId : JSONObject.NULL);
+		parent.put("location", -1);
+		parent.put("formIndex", 0);
+		return parent;
+	}
+
+	/**
+	 * A form with a column container that has a row container with a button in it, the label is in the given parent.
+	 */
+	private static JSONObject formData(String labelText, String labelParent)
+	{
+		JSONObject data = new JSONObject();
+		data.put("ng2components", new JSONArray().put(component("label", labelText, null)).put(component("button", "ok", "btn")));
+		data.put("ng2containers", new JSONArray().put(container("column")).put(container("row")));
+		JSONObject childParentMap = new JSONObject();
+		childParentMap.put("label", parent(labelParent));
+		childParentMap.put("button", parent("row"));
+		childParentMap.put("row", parent("column"));
+		childParentMap.put("column", parent(null));
+		data.put("childParentMap", childParentMap);
+		return data;
+	}
+
+	private static DesignerModelMirror createMirror()
+	{
+		DesignerModelMirror mirror = new DesignerModelMirror();
+		mirror.reset(true);
+		mirror.createPatch(formData("hello", "row").toString());
+		return mirror;
+	}
+
+	private static JSONObject getComponent(JSONObject patch, String name)
+	{
+		JSONArray components = patch.optJSONArray("ng2components");
+		if (components != null)
+		{
+			for (int i = 0; i < components.length(); i++)
+			{
+				if (name.equals(components.getJSONObject(i).optString("name"))) return components.getJSONObject(i);
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testOldEditor() throws Exception
+	{
+		DesignerModelMirror mirror = new DesignerModelMirror();
+		mirror.reset(false);
+		String data = formData("hello", "row").put("components", new JSONObject()).toString();
+		assertEquals("the old editor should get the data as is", data, mirror.createPatch(data));
+	}
+
+	@Test
+	public void testUnchanged() throws Exception
+	{
+		DesignerModelMirror mirror = new DesignerModelMirror();
+		mirror.reset(true);
+		JSONObject first = new JSONObject(mirror.createPatch(formData("hello", "row").put("components", new JSONObject()).toString()));
+		assertNotNull("the first update should have the label", getComponent(first, "label"));
+		assertEquals("the first update should have both containers", 2, first.getJSONArray("ng2containers").length());
+		assertFalse("the old editor sections should be left out", first.has("components"));
+
+		JSONObject second = new JSONObject(mirror.createPatch(formData("hello", "row").toString()));
+		assertFalse("unchanged components should be left out", second.has("ng2components"));
+		assertFalse("unchanged containers should be left out", second.has("ng2containers"));
+		assertTrue("the child parent map should still be sent", second.has("childParentMap"));
+	}
+
+	@Test
+	public void testModelOnly() throws Exception
+	{
+		DesignerModelMirror mirror = createMirror();
+		JSONObject data = formData("changed", "row");
+		data.getJSONArray("ng2components").getJSONObject(1).getJSONObject("model").remove("styleClass");
+		JSONObject patch = new JSONObject(mirror.createPatch(data.toString()));
+
+		JSONObject label = getComponent(patch, "label");
+		assertNotNull("the changed label should be sent", label);
+		assertTrue("only the model of the label changed", label.getBoolean("modelPatch"));
+		assertEquals("only the changed property should be sent", "changed", label.getJSONObject("model").getString("text"));
+		assertEquals("only the changed property should be sent", 1, label.getJSONObject("model").length());
+		assertEquals("nothing was removed from the label model", 0, label.getJSONArray("removedModel").length());
+		assertEquals("the other properties of the label should be sent", "bootstrapcomponents-label", label.getString("specName"));
+
+		JSONObject button = getComponent(patch, "button");
+		assertNotNull("the changed button should be sent", button);
+		assertEquals("no property of the button was changed", 0, button.getJSONObject("model").length());
+		assertEquals("the removed property should be sent", "styleClass", button.getJSONArray("removedModel").getString(0));
+	}
+
+	@Test
+	public void testNotOnlyModel() throws Exception
+	{
+		DesignerModelMirror mirror = createMirror();
+		JSONObject data = formData("hello", "row");
+		data.getJSONArray("ng2components").getJSONObject(0).put("specName", "bootstrapcomponents-button");
+		JSONObject label = getComponent(new JSONObject(mirror.createPatch(data.toString())), "label");
+		assertNotNull("the changed label should be sent", label);
+		assertFalse("the whole label should be sent when more than its model changed", label.has("modelPatch"));
+		assertEquals("the whole model should be sent", "hello", label.getJSONObject("model").getString("text"));
+	}
+
+	@Test
+	public void testReparent() throws Exception
+	{
+		DesignerModelMirror mirror = createMirror();
+		JSONObject patch = new JSONObject(mirror.createPatch(formData("hello", "column").toString()));
+		JSONObject label = getComponent(patch, "label");
+		assertNotNull("the moved label should be sent", label);
+		assertFalse("the whole label should be sent when it is moved", label.has("modelPatch"));
+		assertEquals("only the moved label should be sent", 1, patch.getJSONArray("ng2components").length());
+	}
+
+	@Test
+	public void testDeleteAndAddAgain() throws Exception
+	{
+		DesignerModelMirror mirror = createMirror();
+		JSONObject deleted = new JSONObject();
+		deleted.put("deleted", new JSONArray().put("label"));
+		mirror.createPatch(deleted.toString());
+
+		JSONObject patch = new JSONObject(mirror.createPatch(formData("hello", "row").toString()));
+		JSONObject label = getComponent(patch, "label");
+		assertNotNull("the label that was deleted should be sent again", label);
+		assertFalse("the whole label should be sent again", label.has("modelPatch"));
+		assertNull("the button was not deleted", getComponent(patch, "button"));
+	}
+
+	@Test
+	public void testDeleteContainer() throws Exception
+	{
+		DesignerModelMirror mirror = createMirror();
+		JSONObject deleted = new JSONObject();
+		deleted.put("deletedContainers", new JSONArray().put("column"));
+		mirror.createPatch(deleted.toString());
+
+		// the editor also removed the row and the components in it, so they are new again
+		JSONObject patch = new JSONObject(mirror.createPatch(formData("hello", "row").toString()));
+		assertNotNull("the label in the deleted container should be sent again", getComponent(patch, "label"));
+		assertNotNull("the button in the deleted container should be sent again", getComponent(patch, "button"));
+		assertEquals("both containers should be sent again", 2, patch.getJSONArray("ng2containers").length());
+	}
+
+	@Test
+	public void testDeleteOtherContainer() throws Exception
+	{
+		DesignerModelMirror mirror = createMirror();
+		JSONObject deleted = new JSONObject();
+		deleted.put("deletedContainers", new JSONArray().put("other"));
+		mirror.createPatch(deleted.toString());
+
+		JSONObject patch = new JSONObject(mirror.createPatch(formData("hello", "row").toString()));
+		assertFalse("nothing in the form was deleted", patch.has("ng2components"));
+		assertFalse("nothing in the form was deleted", patch.has("ng2containers"));
+	}
+
+	@Test
+	public void testVersions() throws Exception
+	{
+		DesignerModelMirror mirror = new DesignerModelMirror();
+		mirror.reset(true);
+		JSONObject first = new JSONObject(mirror.createPatch(formData("hello", "row").toString()));
+		JSONObject second = new JSONObject(mirror.createPatch(formData("changed", "row").toString()));
+		assertEquals("each patch should apply to the version of the previous one", first.getLong("version"), second.getLong("baseVersion"));
+		assertEquals("the versions should follow each other", first.getLong("version") + 1, second.getLong("version"));
+
+		// an editor that missed a version loads the whole form again, which resets the mirror
+		mirror.reset(true);
+		JSONObject afterReset = new JSONObject(mirror.createPatch(formData("changed", "row").toString()));
+		assertEquals("the versions should go on after a reset", second.getLong("version"), afterReset.getLong("baseVersion"));
+		JSONObject label = getComponent(afterReset, "label");
+		assertNotNull("everything should be sent again after a reset", label);
+		assertFalse("the whole label should be sent after a reset", label.has("modelPatch"));
+		assertEquals("both containers should be sent again after a reset", 2, afterReset.getJSONArray("ng2containers").length());
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the buckets and percentiles of the profiler latency histogram.
+ */
+public class TestLatencyHistogram
+{
+	/**
+	 * The lowest percentile is the highest value of the bucket of the smallest time, as long as a bigger time is recorded too.
+	 */
+	private static long getBucketHighestValue(long time)
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(time);
+		histogram.record(Long.MAX_VALUE);
+		return histogram.getPercentile(0);
+	}
+
+	@Test
+	public void testEmpty() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals("nothing recorded", 0, histogram.getCount());
+		assertEquals("no percentile without times", 0, histogram.getPercentile(50));
+		assertEquals("no max without times", 0, histogram.getMax());
+	}
+
+	@Test
+	public void testLinearBuckets() throws Exception
+	{
+		for (long time = 0; time < 16; time++)
+		{
+			assertEquals("times below 16 should be exact", time, getBucketHighestValue(time));
+		}
+	}
+
+	@Test
+	public void testFirstLogarithmicBuckets() throws Exception
+	{
+		assertEquals("16 and 17 should share a bucket", 17, getBucketHighestValue(16));
+		assertEquals("16 and 17 should share a bucket", 17, getBucketHighestValue(17));
+		assertEquals("18 should start a new bucket", 19, getBucketHighestValue(18));
+		assertEquals("31 should be the last value of the 16-31 range", 31, getBucketHighestValue(30));
+		assertEquals("31 should be the last value of the 16-31 range", 31, getBucketHighestValue(31));
+		assertEquals("32 should start buckets of 4", 35, getBucketHighestValue(32));
+		assertEquals("buckets of 4 until 63", 63, getBucketHighestValue(60));
+	}
+
+	@Test
+	public void testLargeBuckets() throws Exception
+	{
+		long value = 1L << 62;
+		assertEquals("2^62 should be in a bucket of 2^59", value + (1L << 59) - 1, getBucketHighestValue(value));
+		assertEquals("2^62 - 1 should be in the last bucket below 2^62", value - 1, getBucketHighestValue(value - 1));
+		assertEquals("the largest time should be in the last bucket", Long.MAX_VALUE, getBucketHighestValue(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentileNotAboveMax() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1000);
+		assertEquals("the bucket of 1000 goes until 1023, but the max is 1000", 1000, histogram.getPercentile(99));
+		assertEquals("max should be the recorded time", 1000, histogram.getMax());
+	}
+
+	@Test
+	public void testNegativeTime() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		assertEquals("a negative time should be counted as 0", 0, histogram.getPercentile(100));
+		assertEquals("a negative time should still be counted", 1, histogram.getCount());
+	}
+
+	@Test
+	public void testPercentiles() throws Exception
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long time = 1; time <= 10; time++)
+		{
+			histogram.record(time, 10);
+		}
+		histogram.record(0, 0);
+		assertEquals("recording 0 times should not count", 100, histogram.getCount());
+		assertEquals("p50 should be the 50th time", 5, histogram.getPercentile(50));
+		assertEquals("p95 should be the 95th time", 10, histogram.getPercentile(95));
+		assertEquals("p1 should be the first time", 1, histogram.getPercentile(1));
+		assertEquals("p100 should be the max", 10, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void testMerge() throws Exception
+	{
+		LatencyHistogram all = new LatencyHistogram();
+		LatencyHistogram first = new LatencyHistogram();
+		LatencyHistogram second = new LatencyHistogram();
+		for (long time = 1; time <= 200; time++)
+		{
+			all.record(time * 7);
+			(time % 3 == 0 ? first : second).record(time * 7);
+		}
+		first.merge(second);
+		assertEquals("merged count should be the sum", all.getCount(), first.getCount());
+		assertEquals("merged max should be the highest max", all.getMax(), first.getMax());
+		for (double percentile : new double[] { 1, 50, 95, 99, 100 })
+		{
+			assertEquals("merged p" + percentile + " should be the same as when recorded in one histogram", all.getPercentile(percentile),
+				first.getPercentile(percentile));
+		}
+		assertEquals("merged histogram should not be changed", 134, second.getCount());
+
+		LatencyHistogram empty = new LatencyHistogram();
+		empty.merge(new LatencyHistogram());
+		assertEquals("merging empty histograms should stay empty", 0, empty.getCount());
+		empty.merge(all);
+		assertEquals("merging into an empty histogram should copy it", all.getPercentile(50), empty.getPercentile(50));
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.servoy.eclipse.profiler.views.ProfileSessionReader.RecordedCall;
+import com.servoy.eclipse.profiler.views.ProfileSessionReader.RecordedDataCall;
+
+/**
+ * Tests that the calls written by the {@link ProfileSessionRecorder} are read back by the {@link ProfileSessionReader}.
+ */
+public class TestProfileSession
+{
+	private static RecordedCall createCall(String methodName, long time)
+	{
+		RecordedCall call = new RecordedCall(methodName, "/scopes/globals.js", -1, false, time, time / 2);
+		call.getDataCalls().add(new RecordedDataCall("SQL Query", "db:/example/orders", "select * from orders where id = ?", time / 4, 2));
+		RecordedCall child = new RecordedCall(methodName + "_inner", "/forms/orders.js", 42, true, time / 2, time / 2);
+		child.getDataCalls().add(new RecordedDataCall("Find", null, null, 1, 1));
+		call.getChildren().add(child);
+		return call;
+	}
+
+	private static File record(RecordedCall... calls) throws Exception
+	{
+		File file = File.createTempFile("session", ".svyprof");
+		file.deleteOnExit();
+		ProfileSessionRecorder recorder = new ProfileSessionRecorder(file, null);
+		for (RecordedCall call : calls)
+		{
+			recorder.addCall(call);
+		}
+		recorder.close();
+		return file;
+	}
+
+	private static List<RecordedCall> read(File file) throws Exception
+	{
+		List<RecordedCall> calls = new ArrayList<RecordedCall>();
+		int count = ProfileSessionReader.read(file, calls::add);
+		assertEquals("the returned count should match the read calls", calls.size(), count);
+		return calls;
+	}
+
+	private static void assertCallEquals(RecordedCall expected, RecordedCall actual)
+	{
+		assertEquals("method name", expected.getMethodName(), actual.getMethodName());
+		assertEquals("source name", expected.getSourceName(), actual.getSourceName());
+		assertEquals("inner function line", expected.getInnerFunctionLineStart(), actual.getInnerFunctionLineStart());
+		assertEquals("calculation", expected.isCalculation(), actual.isCalculation());
+		assertEquals("time", expected.getTime(), actual.getTime());
+		assertEquals("own time", expected.getOwnTime(), actual.getOwnTime());
+		assertEquals("data call count", expected.getDataCalls().size(), actual.getDataCalls().size());
+		for (int i = 0; i < expected.getDataCalls().size(); i++)
+		{
+			RecordedDataCall expectedDataCall = expected.getDataCalls().get(i);
+			RecordedDataCall actualDataCall = actual.getDataCalls().get(i);
+			assertEquals("data call name", expectedDataCall.getName(), actualDataCall.getName());
+			assertEquals("data call datasource", expectedDataCall.getDatasource(), actualDataCall.getDatasource());
+			assertEquals("data call query", expectedDataCall.getQuery(), actualDataCall.getQuery());
+			assertEquals("data call time", expectedDataCall.getTime(), actualDataCall.getTime());
+			assertEquals("data call count", expectedDataCall.getCount(), actualDataCall.getCount());
+		}
+		assertEquals("child count", expected.getChildren().size(), actual.getChildren().size());
+		for (int i = 0; i < expected.getChildren().size(); i++)
+		{
+			assertCallEquals(expected.getChildren().get(i), actual.getChildren().get(i));
+		}
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception
+	{
+		RecordedCall first = createCall("onLoad", 100);
+		RecordedCall second = createCall("onShow", 40);
+		List<RecordedCall> calls = read(record(first, second));
+		assertEquals("both root calls should be read", 2, calls.size());
+		assertCallEquals(first, calls.get(0));
+		assertCallEquals(second, calls.get(1));
+		assertNull("a null query should be read back as null", calls.get(0).getChildren().get(0).getDataCalls().get(0).getQuery());
+	}
+
+	@Test
+	public void testEmptySession() throws Exception
+	{
+		assertEquals("a session without calls should read nothing", 0, read(record()).size());
+	}
+
+	@Test
+	public void testTruncatedFile() throws Exception
+	{
+		RecordedCall first = createCall("onLoad", 100);
+		File file = record(first, createCall("onShow", 40));
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			// cut the end of the last call record, like when the developer stopped while writing
+			raf.setLength(raf.length() - 5);
+		}
+		List<RecordedCall> calls = read(file);
+		assertEquals("only the complete call should be read", 1, calls.size());
+		assertCallEquals(first, calls.get(0));
+	}
+
+	@Test
+	public void testNotASessionFile() throws Exception
+	{
+		File file = File.createTempFile("session", ".svyprof");
+		file.deleteOnExit();
+		Files.write(file.toPath(), "not a session".getBytes(StandardCharsets.UTF_8));
+		try
+		{
+			ProfileSessionReader.read(file, call -> {
+			});
+			fail("a file that is not a session should not be read");
+		}
+		catch (IOException e)
+		{
+			// expected
+		}
+	}
+
+	@Test
+	public void testCollapsedStacks() throws Exception
+	{
+		RecordedCall call = new RecordedCall("onLoad", "/forms/orders.js", -1, false, 10, 6);
+		call.getDataCalls().add(new RecordedDataCall("SQL Query", null, "select 1", 4, 1));
+		call.getChildren().add(new RecordedCall("loadOrders", "/scopes/globals.js", -1, false, 4, 4));
+		File output = File.createTempFile("session", ".txt");
+		output.deleteOnExit();
+		ProfileSessionReader.exportCollapsedStacks(record(call), output);
+		List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+		assertTrue("own time minus the data call time for the root", lines.contains("onLoad[orders] 2"));
+		assertTrue("the data call as its own frame", lines.contains("onLoad[orders];SQL Query: select 1 4"));
+		assertTrue("the child call below the root", lines.contains("onLoad[orders];loadOrders[globals] 4"));
+	}
+}
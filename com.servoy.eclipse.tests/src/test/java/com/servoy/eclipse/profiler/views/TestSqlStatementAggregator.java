@@ -0,0 +1,88 @@
+/*
+ This file belongs to the Servoy development and deployment environment, Copyright (C) 1997-2024 Servoy BV
+
+ This program is free software; you can redistribute it and/or modify it under
+ the terms of the GNU Affero General Public License as published by the Free
+ Software Foundation; either version 3 of the License, or (at your option) any
+ later version.
+
+ This program is distributed in the hope that it will be useful, but WITHOUT
+ ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ FOR A PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+
+ You should have received a copy of the GNU Affero General Public License along
+ with this program; if not, see http://www.gnu.org/licenses or write to the Free
+ Software Foundation,Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301
+*/
+
+package com.servoy.eclipse.profiler.views;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the statement shapes the profiler groups the sql data calls on.
+ */
+public class TestSqlStatementAggregator
+{
+	@Test
+	public void testStringLiterals() throws Exception
+	{
+		assertEquals("a string literal should be a parameter", "select * from orders where name = ?",
+			SqlStatementAggregator.normalize("select * from orders where name = 'Smith'"));
+		assertEquals("an escaped quote should stay in the literal", "select * from orders where name = ? and city = ?",
+			SqlStatementAggregator.normalize("select * from orders where name = 'O''Brien' and city = 'Amersfoort'"));
+		assertEquals("an empty literal should be a parameter", "select * from orders where name = ?",
+			SqlStatementAggregator.normalize("select * from orders where name = ''"));
+		assertEquals("digits in a literal should not be seen as numbers", "select * from orders where code = ?",
+			SqlStatementAggregator.normalize("select * from orders where code = 'A12'"));
+	}
+
+	@Test
+	public void testQuotedIdentifiers() throws Exception
+	{
+		assertEquals("a quoted identifier should be kept", "select \"order id\", \"Name 2\" from \"orders\" where \"order id\" = ?",
+			SqlStatementAggregator.normalize("select \"order id\", \"Name 2\" from \"orders\" where \"order id\" = 12"));
+		assertEquals("a quote in a quoted identifier should not start a literal", "select \"it's\" from orders",
+			SqlStatementAggregator.normalize("select \"it's\" from orders"));
+	}
+
+	@Test
+	public void testNumbers() throws Exception
+	{
+		assertEquals("integer and decimal numbers should be parameters", "select * from orders where id = ? and amount > ?",
+			SqlStatementAggregator.normalize("select * from orders where id = 42 and amount > 10.5"));
+		assertEquals("a number right after an operator should be a parameter", "select * from orders where id=? or id<>?",
+			SqlStatementAggregator.normalize("select * from orders where id=42 or id<>7"));
+		assertEquals("a leading number should be a parameter", "? = id", SqlStatementAggregator.normalize("1 = id"));
+	}
+
+	@Test
+	public void testDigitsInIdentifiers() throws Exception
+	{
+		assertEquals("digits in table and column names should be kept", "select t1.col2, address_1 from table3 t1 where t1.col2 = ?",
+			SqlStatementAggregator.normalize("select t1.col2, address_1 from table3 t1 where t1.col2 = 5"));
+		assertEquals("digits after a $ should be kept", "select $1 from orders", SqlStatementAggregator.normalize("select $1 from orders"));
+	}
+
+	@Test
+	public void testWhitespace() throws Exception
+	{
+		assertEquals("whitespace should be collapsed and trimmed", "select * from orders where id = ?",
+			SqlStatementAggregator.normalize("  select *\n\tfrom   orders\r\n where id = ?  \n"));
+	}
+
+	@Test
+	public void testParameterLists() throws Exception
+	{
+		assertEquals("a parameter list should be one parameter", "select * from orders where id in (?)",
+			SqlStatementAggregator.normalize("select * from orders where id in (?, ?, ?)"));
+		assertEquals("lists of a different length should get the same shape", SqlStatementAggregator.normalize("select * from orders where id in (?,?)"),
+			SqlStatementAggregator.normalize("select * from orders where id in ( ? , ? , ? , ? )"));
+		assertEquals("a list of literals should be one parameter", "select * from orders where id in (?) and code in (?)",
+			SqlStatementAggregator.normalize("select * from orders where id in (1, 2, 3) and code in ('a', 'b')"));
+		assertEquals("a list with a column should be kept", "select * from orders where id in (?, customer_id)",
+			SqlStatementAggregator.normalize("select * from orders where id in (?, customer_id)"));
+	}
+}
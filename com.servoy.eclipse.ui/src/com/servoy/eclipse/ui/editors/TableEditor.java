@@ -49,6 +49,7 @@ import com.servoy.base.persistence.IBaseColumn;
 import com.servoy.eclipse.core.Activator;
 import com.servoy.eclipse.core.IActiveProjectListener;
 import com.servoy.eclipse.core.IDeveloperServoyModel;
+import com.servoy.eclipse.core.PersistChangeBatch;
 import com.servoy.eclipse.core.SQLExplorerLoader;
 import com.servoy.eclipse.core.ServoyModelManager;
 import com.servoy.eclipse.core.resource.TableEditorInput;
@@ -699,6 +700,11 @@ public class TableEditor extends MultiPageEditorPart implements IActiveProjectLi
 
 				public void persistChanges(Collection<IPersist> changes)
 				{
+					if (changes instanceof PersistChangeBatch && !((PersistChangeBatch)changes).getChangedDataSources().contains(table.getDataSource()))
+					{
+						// no table node of this table changed
+						return;
+					}
 					IDataSourceManager dsm = ServoyModelManager.getServoyModelManager().getServoyModel().getDataSourceManager();
 					for (IPersist persist : changes)
 					{
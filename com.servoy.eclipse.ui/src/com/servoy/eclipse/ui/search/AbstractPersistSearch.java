@@ -26,8 +26,10 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.text.AbstractTextSearchResult;
+import org.eclipse.search.ui.text.FileTextSearchScope;
 
 import com.servoy.eclipse.core.IDeveloperServoyModel;
+import com.servoy.eclipse.core.PersistReferenceIndex;
 import com.servoy.eclipse.core.ServoyModelManager;
 import com.servoy.eclipse.model.nature.ServoyProject;
 import com.servoy.j2db.persistence.Solution;
@@ -145,6 +147,20 @@ public abstract class AbstractPersistSearch implements ISearchQuery
 		return scopes.toArray(new IResource[scopes.size()]);
 	}
 
+	/**
+	 * Creates the scope for a search of which every match contains the given key (a uuid or literal text),
+	 * only the files that can have a match according to the {@link PersistReferenceIndex} are searched.
+	 *
+	 * @param scopes the projects to search in
+	 * @param fileNamePatterns the file name patterns like "*.frm"
+	 * @param key the text that every match contains
+	 */
+	protected FileTextSearchScope createIndexedSearchScope(IResource[] scopes, String[] fileNamePatterns, String key)
+	{
+		IResource[] files = PersistReferenceIndex.getInstance().getCandidateFiles(scopes, fileNamePatterns, key);
+		return FileTextSearchScope.newSearchScope(files != null ? files : scopes, fileNamePatterns, true);
+	}
+
 	public boolean canRerun()
 	{
 		return true;
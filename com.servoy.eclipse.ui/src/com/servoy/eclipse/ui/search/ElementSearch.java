@@ -72,7 +72,7 @@ public class ElementSearch extends AbstractPersistSearch
 		IResource[] scopes = getScopes((Solution)component.getRootObject());
 		TextSearchRequestor collector = getResultCollector();
 
-		FileTextSearchScope scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.js" }, true);
+		FileTextSearchScope scope = createIndexedSearchScope(scopes, new String[] { "*.js" }, component.getName());
 		((ElementSearchResultCollector)collector).setEngine(DLTKLanguageManager.getSelectionEngine(JavaScriptNature.NATURE_ID));
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("\\b" + component.getName() + "\\b"), monitor);
 
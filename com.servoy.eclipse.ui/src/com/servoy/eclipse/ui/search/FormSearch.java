@@ -63,10 +63,10 @@ public class FormSearch extends AbstractPersistSearch
 		IResource[] scopes = getScopes((Solution)form.getRootObject());
 		TextSearchRequestor collector = getResultCollector();
 
-		FileTextSearchScope scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.frm" }, true);
+		FileTextSearchScope scope = createIndexedSearchScope(scopes, new String[] { "*.frm" }, form.getUUID().toString());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile(form.getUUID().toString()), monitor);
 
-		scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.js" }, true);
+		scope = createIndexedSearchScope(scopes, new String[] { "*.js" }, "forms." + form.getName());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("\\bforms." + form.getName() + "\\b"), monitor);
 
 		return Status.OK_STATUS;
@@ -61,10 +61,10 @@ public class MediaSearch extends AbstractPersistSearch
 
 		TextSearchResultCollector collector = getResultCollector();
 
-		FileTextSearchScope scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.frm", "*.js" }, true);
+		FileTextSearchScope scope = createIndexedSearchScope(scopes, new String[] { "*.frm", "*.js" }, mediaImage.getUUID().toString());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile(mediaImage.getUUID().toString()), monitor);
 
-		scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.js", "*.css", "*.less" }, true);
+		scope = createIndexedSearchScope(scopes, new String[] { "*.js", "*.css", "*.less" }, "media:///" + mediaImage.getName());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("\\bmedia:///" + mediaImage.getName() + "\\b"), monitor);
 
 		return Status.OK_STATUS;
@@ -70,12 +70,13 @@ public class RelationSearch extends AbstractPersistSearch
 		IResource[] scopes = getScopes((Solution)relation.getRootObject());
 		TextSearchRequestor collector = getResultCollector();
 
-		FileTextSearchScope scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.frm", "*.val" }, true);
+		FileTextSearchScope scope = createIndexedSearchScope(scopes, new String[] { "*.frm", "*.val" }, relation.getName());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("\\b" + relation.getName() + "\\b"), monitor);
+		scope = createIndexedSearchScope(scopes, new String[] { "*.frm", "*.val" }, Form.NAMED_FOUNDSET_GLOBAL_RELATION_PREFIX + relation.getName());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("\\b" + Form.NAMED_FOUNDSET_GLOBAL_RELATION_PREFIX + relation.getName() + "\\b"),
 			monitor);
 
-		scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.js" }, true);
+		scope = createIndexedSearchScope(scopes, new String[] { "*.js" }, relation.getName());
 		((RelationSearchResultCollector)collector).setEngine(DLTKLanguageManager.getSelectionEngine(JavaScriptNature.NATURE_ID));
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("\\b" + relation.getName() + "\\b"), monitor);
 
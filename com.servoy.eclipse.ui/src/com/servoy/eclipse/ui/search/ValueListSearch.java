@@ -61,10 +61,10 @@ public class ValueListSearch extends AbstractPersistSearch
 		IResource[] scopes = getScopes((Solution)valueList.getRootObject());
 		TextSearchResultCollector collector = getResultCollector();
 
-		FileTextSearchScope scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.frm", "*.val" }, true);
+		FileTextSearchScope scope = createIndexedSearchScope(scopes, new String[] { "*.frm", "*.val" }, valueList.getUUID().toString());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile(valueList.getUUID().toString()), monitor);
 
-		scope = FileTextSearchScope.newSearchScope(scopes, new String[] { "*.js" }, true);
+		scope = createIndexedSearchScope(scopes, new String[] { "*.js" }, valueList.getName());
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("etValueList.*\"" + valueList.getName() + "\""), monitor);
 		TextSearchEngine.create().search(scope, collector, Pattern.compile("etValueList.*'" + valueList.getName() + "'"), monitor);
 